@@ -0,0 +1,146 @@
+#!/bin/bash
+# Runs two instances against one H2 file database with a shared JWT key ring and
+# checks that they are interchangeable:
+#   - a token issued by one instance is accepted by the other
+#   - an exam started on A can be answered on B
+#   - a retried submit returns the same response on either instance
+#   - a question added on A is seen by B's duplicate check
+#   - a user deleted on A loses access on B, despite B's principal cache
+#   - writes on A reach B's second-level and query caches
+#   - after A is stopped, B carries on with the exam
+#
+# A also runs the embedded cache server that both instances use as their
+# shared tier and invalidation channel.
+#
+#   mvn -DskipTests package && ./multi-instance-demo.sh
+
+cd "$(dirname "$0")"
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAR=target/parakh-backend-0.0.1-SNAPSHOT.jar
+DATA=target/multi-instance
+PORT_A=18091
+PORT_B=18092
+CACHE_PORT=16379
+
+export PARAKH_JWT_KEYS="k1:$(head -c 32 /dev/urandom | base64)"
+export PARAKH_JWT_ACTIVE_KEY_ID=k1
+export PARAKH_SEALING_SECRET="$(head -c 32 /dev/urandom | base64)"
+BUNDLE_KEY=$(openssl genpkey -algorithm ed25519 -outform DER | base64 -w0)
+export PARAKH_BUNDLE_PRIVATE_KEY=$BUNDLE_KEY
+export PARAKH_BUNDLE_PUBLIC_KEY=$(echo "$BUNDLE_KEY" | base64 -d | openssl pkey -inform DER -pubout -outform DER | base64 -w0)
+DB="--spring.datasource.url=jdbc:h2:file:./$DATA/parakhdb;AUTO_SERVER=TRUE;AUTO_RECONNECT=TRUE"
+CACHE="--parakh.cache.backend=redis --parakh.cache.redis.port=$CACHE_PORT"
+
+rm -rf "$DATA" && mkdir -p "$DATA"
+FAILED=0
+
+start() {
+    "$JAVA" -jar "$JAR" --server.port=$1 $DB $CACHE --spring.jpa.show-sql=false "${@:2}" > "$DATA/node-$1.log" 2>&1 &
+    echo $!
+}
+
+wait_ready() {
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$1/api/health/ready")" = "200" ]; do
+        if ! kill -0 "$2" 2>/dev/null; then
+            echo "Instance on port $1 failed to start, see $DATA/node-$1.log"
+            exit 1
+        fi
+        sleep 0.5
+    done
+}
+
+call() {
+    local port=$1 method=$2 path=$3 token=$4 body=$5
+    curl -s -X "$method" "http://localhost:$port$path" -H "Authorization: Bearer $token" \
+        -H 'Content-Type: application/json' ${body:+-d "$body"}
+}
+
+check() {
+    if [ "$2" = "$3" ]; then
+        echo "PASS $1"
+    else
+        echo "FAIL $1: expected [$3], got [$2]"
+        FAILED=1
+    fi
+}
+
+json() {
+    python3 -c "import json,sys; d=json.load(sys.stdin); print($1)"
+}
+
+# A creates the schema and seeds it; B uses it as is
+A=$(start $PORT_A --spring.jpa.hibernate.ddl-auto=create --parakh.cache.embedded-server.port=$CACHE_PORT)
+wait_ready $PORT_A $A
+B=$(start $PORT_B --spring.jpa.hibernate.ddl-auto=none --spring.sql.init.mode=never)
+wait_ready $PORT_B $B
+trap 'kill $A $B 2>/dev/null' EXIT
+
+curl -s -X POST "http://localhost:$PORT_A/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"email":"demo@student.in","password":"pw","name":"Demo","role":"STUDENT","institution":"X"}' > /dev/null
+TOKEN=$(curl -s -X POST "http://localhost:$PORT_A/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"email":"demo@student.in","password":"pw"}' | json 'd["token"]')
+ADMIN_TOKEN=$(curl -s -X POST "http://localhost:$PORT_A/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"email":"admin@parakh.gov.in","password":"admin123"}' | json 'd["token"]')
+USER_ID=$(call $PORT_B GET /api/admin/users "$ADMIN_TOKEN" \
+    | json '[u["id"] for u in d if u["email"] == "demo@student.in"][0]')
+check "token from A accepted by B" "$([ -n "$USER_ID" ] && echo yes)" yes
+
+STATE=$(call $PORT_A POST /api/exam/start "$TOKEN" "{\"userId\":$USER_ID,\"subject\":\"Science\"}")
+EXAM=$(echo "$STATE" | json 'd["examId"]')
+QUESTION=$(echo "$STATE" | json 'd["nextQuestion"]["id"]')
+
+FIRST=$(call $PORT_B POST /api/exam/submit "$TOKEN" "{\"examId\":$EXAM,\"questionId\":$QUESTION,\"selectedOption\":\"B\"}")
+RETRY_A=$(call $PORT_A POST /api/exam/submit "$TOKEN" "{\"examId\":$EXAM,\"questionId\":$QUESTION,\"selectedOption\":\"B\"}")
+RETRY_B=$(call $PORT_B POST /api/exam/submit "$TOKEN" "{\"examId\":$EXAM,\"questionId\":$QUESTION,\"selectedOption\":\"B\"}")
+check "answer on B graded" "$(echo "$FIRST" | json 'd["totalQuestionsAnswered"]')" 1
+check "answer on B, retry on A returns the same response" "$RETRY_A" "$FIRST"
+check "retry on B returns the same response" "$RETRY_B" "$FIRST"
+
+NEW_QUESTION='{"content":"Which gas do plants absorb from the air during photosynthesis?","optionA":"Oxygen","optionB":"Carbon dioxide","optionC":"Nitrogen","optionD":"Helium","correctOption":"B","subject":"Science","difficulty":"EASY","topic":"Plants"}'
+QUESTION_ID=$(call $PORT_A POST /api/admin/questions "$ADMIN_TOKEN" "$NEW_QUESTION" | json 'd["id"]')
+sleep 0.5
+check "question added on A found by B's duplicate check" \
+    "$(call $PORT_B POST /api/admin/questions/duplicates/check "$ADMIN_TOKEN" "$NEW_QUESTION" | json "$QUESTION_ID in d")" True
+
+curl -s -X POST "http://localhost:$PORT_A/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"email":"leaving@student.in","password":"pw","name":"Leaving","role":"STUDENT","institution":"X"}' > /dev/null
+LEAVING_TOKEN=$(curl -s -X POST "http://localhost:$PORT_A/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"email":"leaving@student.in","password":"pw"}' | json 'd["token"]')
+LEAVING_ID=$(call $PORT_B GET /api/admin/users "$ADMIN_TOKEN" \
+    | json '[u["id"] for u in d if u["email"] == "leaving@student.in"][0]')
+status() {
+    curl -s -o /dev/null -w '%{http_code}' "http://localhost:$1$2" -H "Authorization: Bearer $3"
+}
+check "user can read classes on B" "$(status $PORT_B /api/student/classes "$LEAVING_TOKEN")" 200
+call $PORT_A DELETE /api/admin/users/$LEAVING_ID "$ADMIN_TOKEN" > /dev/null
+sleep 0.5
+check "user deleted on A is refused on B" "$(status $PORT_B /api/student/classes "$LEAVING_TOKEN")" 403
+# B caches the question and the student's (empty) class list, then A changes both
+call $PORT_B GET /api/admin/questions/$QUESTION_ID "$ADMIN_TOKEN" > /dev/null
+call $PORT_B GET /api/student/classes "$TOKEN" > /dev/null
+call $PORT_A PUT /api/admin/questions/$QUESTION_ID "$ADMIN_TOKEN" "${NEW_QUESTION/photosynthesis/respiration}" > /dev/null
+curl -s -X POST "http://localhost:$PORT_A/api/auth/register" -H 'Content-Type: application/json' \
+    -d '{"email":"demo@teacher.in","password":"pw","name":"Teacher","role":"TEACHER","institution":"X"}' > /dev/null
+TEACHER_TOKEN=$(curl -s -X POST "http://localhost:$PORT_A/api/auth/login" -H 'Content-Type: application/json' \
+    -d '{"email":"demo@teacher.in","password":"pw"}' | json 'd["token"]')
+CLASS_ID=$(call $PORT_A POST /api/teacher/classes "$TEACHER_TOKEN" '{"name":"8B","subject":"Science","description":"Demo"}' \
+    | json 'd["id"]')
+call $PORT_A POST /api/teacher/classes/$CLASS_ID/students "$TEACHER_TOKEN" '{"email":"demo@student.in"}' > /dev/null
+sleep 0.5
+check "question edited on A read on B" \
+    "$(call $PORT_B GET /api/admin/questions/$QUESTION_ID "$ADMIN_TOKEN" | json '"respiration" in d["content"]')" True
+check "enrolment on A listed on B" "$(call $PORT_B GET /api/student/classes "$TOKEN" | json 'len(d)')" 1
+
+call $PORT_B GET /api/admin/cache/stats "$ADMIN_TOKEN" | json '"\n".join("B cache %s: hit ratio %.2f (%d requests)" % (r["region"], r["hitRatio"], r["requests"]) for r in d)'
+
+kill $A
+wait $A 2>/dev/null
+STATE=$FIRST
+for i in $(seq 1 10); do
+    [ "$(echo "$STATE" | json 'd["examCompleted"]')" = "False" ] || break
+    QUESTION=$(echo "$STATE" | json 'd["nextQuestion"]["id"]')
+    STATE=$(call $PORT_B POST /api/exam/submit "$TOKEN" "{\"examId\":$EXAM,\"questionId\":$QUESTION,\"selectedOption\":\"A\"}")
+done
+check "B completes the exam after A stopped" "$(echo "$STATE" | json 'd["examCompleted"]')" True
+
+exit $FAILED
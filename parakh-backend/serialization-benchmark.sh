@@ -0,0 +1,13 @@
+#!/bin/bash
+# Serialization benchmark: JSON throughput and bytes allocated per operation for
+# map-based request/response handling against the typed DTOs in dto/, with and
+# without the Blackbird module.
+#
+#   mvn -DskipTests compile && ./serialization-benchmark.sh [seconds-per-case]
+
+cd "$(dirname "$0")"
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+CP_FILE=target/benchmark.classpath
+
+mvn -B -q dependency:build-classpath -Dmdep.outputFile="$CP_FILE" > /dev/null || exit 1
+"$JAVA" -cp "target/classes:$(cat "$CP_FILE")" benchmarks/SerializationBenchmark.java "${1:-3}"
@@ -0,0 +1,160 @@
+package com.parakh.backend.archive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Read side of a segment written by ResponseSegmentWriter. The file is memory
+// mapped and only the exam index is decoded up front; response columns are read
+// straight from the mapping with absolute gets, so concurrent readers need no
+// locking and the page cache does the buffering.
+public class ResponseSegment {
+
+    private final MappedByteBuffer data;
+    private final int examCount;
+    private final int responseCount;
+
+    private final long[] examIds;
+    private final int[] firstResponse;
+    private final int[] questionsAt;
+    private final int[] timesAt;
+    private final int[] escapedAt; // null in version 1 segments
+    private final String[] dictionary;
+
+    private final int completedAt;
+    private final int optionsAt;
+    private final int correctAt;
+
+    private ResponseSegment(MappedByteBuffer data) {
+        this.data = data;
+        int version = data.getInt(4);
+        if (data.getInt(0) != ResponseSegmentWriter.MAGIC || (version != 1 && version != ResponseSegmentWriter.VERSION))
+            throw new IllegalStateException("Not a response segment");
+        examCount = data.getInt(8);
+        responseCount = data.getInt(12);
+
+        int examsAt = 20;
+        completedAt = examsAt + data.getInt(16) + 4;
+        int dictionaryAt = completedAt + data.getInt(completedAt - 4) + 4;
+        optionsAt = dictionaryAt + data.getInt(dictionaryAt - 4) + 4;
+        correctAt = optionsAt + data.getInt(optionsAt - 4) + 4;
+        int questionsStart = correctAt + data.getInt(correctAt - 4) + 4;
+        int timesStart = questionsStart + data.getInt(questionsStart - 4) + 4;
+        int escapedStart = timesStart + data.getInt(timesStart - 4) + 4;
+
+        examIds = new long[examCount];
+        firstResponse = new int[examCount + 1];
+        questionsAt = new int[examCount + 1];
+        timesAt = new int[examCount + 1];
+        escapedAt = version == 1 ? null : new int[examCount + 1];
+        Cursor cursor = new Cursor(examsAt);
+        long examId = 0;
+        questionsAt[0] = questionsStart;
+        timesAt[0] = timesStart;
+        if (escapedAt != null)
+            escapedAt[0] = escapedStart;
+        for (int i = 0; i < examCount; i++) {
+            examId += cursor.next();
+            examIds[i] = examId;
+            firstResponse[i + 1] = firstResponse[i] + (int) cursor.next();
+            questionsAt[i + 1] = questionsAt[i] + (int) cursor.next();
+            timesAt[i + 1] = timesAt[i] + (int) cursor.next();
+            if (escapedAt != null)
+                escapedAt[i + 1] = escapedAt[i] + (int) cursor.next();
+        }
+
+        cursor = new Cursor(dictionaryAt);
+        dictionary = new String[(int) cursor.next() + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            dictionary[i] = cursor.nextString();
+        }
+    }
+
+    public static ResponseSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new ResponseSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getExamCount() {
+        return examCount;
+    }
+
+    public int getResponseCount() {
+        return responseCount;
+    }
+
+    // Position of the exam in this segment, or -1
+    public int indexOf(long examId) {
+        int index = Arrays.binarySearch(examIds, examId);
+        return index >= 0 ? index : -1;
+    }
+
+    public boolean isCompleted(int examIndex) {
+        return bit(completedAt, examIndex);
+    }
+
+    public void forEachResponse(int examIndex, ResponseVisitor visitor) {
+        long examId = examIds[examIndex];
+        Cursor questions = new Cursor(questionsAt[examIndex]);
+        Cursor times = new Cursor(timesAt[examIndex]);
+        Cursor escaped = escapedAt != null ? new Cursor(escapedAt[examIndex]) : null;
+        long questionId = 0;
+        for (int r = firstResponse[examIndex]; r < firstResponse[examIndex + 1]; r++) {
+            questionId += unzigzag(questions.next());
+            long time = times.next();
+            int code = data.get(optionsAt + r) & 0xFF;
+            String option = code == ResponseSegmentWriter.ESCAPED && escaped != null ? escaped.nextString()
+                    : dictionary[code];
+            visitor.visit(examId, questionId, option, bit(correctAt, r), time == 0 ? null : time - 1);
+        }
+    }
+
+    // Every response in the segment, in exam order
+    public void forEachResponse(boolean completedOnly, ResponseVisitor visitor) {
+        for (int i = 0; i < examCount; i++) {
+            if (!completedOnly || isCompleted(i))
+                forEachResponse(i, visitor);
+        }
+    }
+
+    private boolean bit(int sectionAt, int index) {
+        return (data.get(sectionAt + (index >>> 3)) & (1 << (index & 7))) != 0;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private final class Cursor {
+        int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        long next() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        String nextString() {
+            byte[] bytes = new byte[(int) next()];
+            data.get(position, bytes);
+            position += bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
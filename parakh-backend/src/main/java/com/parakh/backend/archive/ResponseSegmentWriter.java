@@ -0,0 +1,191 @@
+package com.parakh.backend.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds one columnar segment of archived responses, exam by exam in ascending
+// exam id, and writes it in one go. Sections, each prefixed with its length:
+//   exams      per exam: id delta, response count, bytes in the question, time
+//              and escaped columns (varints)
+//   completed  one bit per exam, set for COMPLETED (not TERMINATED) exams
+//   dictionary the first 254 distinct selected options; code 0 means no answer
+//   options    one dictionary code per response, ESCAPED for any other option
+//   correct    one bit per response
+//   questions  question id deltas within each exam (zigzag varints)
+//   times      time taken + 1 per response, 0 when unknown (varints)
+//   escaped    the option of each ESCAPED response (length-prefixed UTF-8)
+// Version 1 segments have no escaped column and no escape code.
+// Response ids and next-question links are not kept; nothing reads them once
+// an exam has ended.
+public class ResponseSegmentWriter {
+
+    static final int MAGIC = 0x50524131; // "PRA1"
+    static final int VERSION = 2;
+    static final int ESCAPED = 255;
+
+    private final ByteArrayOutputStream exams = new ByteArrayOutputStream();
+    private final BitSet completed = new BitSet();
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final ByteArrayOutputStream options = new ByteArrayOutputStream();
+    private final BitSet correct = new BitSet();
+    private final ByteArrayOutputStream questions = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream times = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream escaped = new ByteArrayOutputStream();
+
+    private int examCount;
+    private int responseCount;
+    private long examId = -1;
+    private long previousExamId;
+    private long previousQuestionId;
+    private int examResponses;
+    private int questionsStart;
+    private int timesStart;
+    private int escapedStart;
+
+    public ResponseSegmentWriter() {
+        dictionary.add(null);
+    }
+
+    // Responses must arrive grouped by exam, exams in ascending id
+    public void add(long examId, boolean examCompleted, long questionId, String selectedOption, boolean isCorrect,
+            Long timeTakenSeconds) {
+        if (examId != this.examId) {
+            if (examId < this.examId)
+                throw new IllegalArgumentException("Exams out of order: " + examId + " after " + this.examId);
+            finishExam();
+            this.examId = examId;
+            if (examCompleted)
+                completed.set(examCount);
+            previousQuestionId = 0;
+            examResponses = 0;
+            questionsStart = questions.size();
+            timesStart = times.size();
+            escapedStart = escaped.size();
+        }
+        Integer code = selectedOption == null ? Integer.valueOf(0) : codes.get(selectedOption);
+        if (code == null && dictionary.size() < ESCAPED) {
+            code = dictionary.size();
+            dictionary.add(selectedOption);
+            codes.put(selectedOption, code);
+        }
+        if (code == null) {
+            // Options are checked at submit, but older rows may hold anything
+            options.write(ESCAPED);
+            writeString(escaped, selectedOption);
+        } else {
+            options.write(code);
+        }
+        if (isCorrect)
+            correct.set(responseCount);
+        writeVarint(questions, zigzag(questionId - previousQuestionId));
+        previousQuestionId = questionId;
+        writeVarint(times, timeTakenSeconds == null ? 0 : timeTakenSeconds + 1);
+        examResponses++;
+        responseCount++;
+    }
+
+    public int getExamCount() {
+        return examCount + (examResponses > 0 ? 1 : 0);
+    }
+
+    public int getResponseCount() {
+        return responseCount;
+    }
+
+    // Writes to a temporary file next to the target and moves it into place,
+    // so a segment file is either complete or absent. Returns its size.
+    public long write(Path file) throws IOException {
+        finishExam();
+        byte[][] sections = {
+                exams.toByteArray(),
+                bits(completed, examCount),
+                dictionaryBytes(),
+                options.toByteArray(),
+                bits(correct, responseCount),
+                questions.toByteArray(),
+                times.toByteArray(),
+                escaped.toByteArray() };
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(MAGIC).putInt(VERSION).putInt(examCount).putInt(responseCount).flip();
+
+        Files.createDirectories(file.getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (byte[] section : sections) {
+                writeFully(channel, ByteBuffer.allocate(4).putInt(section.length).flip());
+                writeFully(channel, ByteBuffer.wrap(section));
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+
+    private void finishExam() {
+        if (examResponses == 0)
+            return;
+        writeVarint(exams, examId - previousExamId);
+        writeVarint(exams, examResponses);
+        writeVarint(exams, questions.size() - questionsStart);
+        writeVarint(exams, times.size() - timesStart);
+        writeVarint(exams, escaped.size() - escapedStart);
+        previousExamId = examId;
+        examResponses = 0;
+        examCount++;
+    }
+
+    private byte[] dictionaryBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, dictionary.size() - 1);
+        for (String option : dictionary.subList(1, dictionary.size())) {
+            writeString(out, option);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    // BitSet.toByteArray drops trailing zero bytes; readers expect all of them
+    private static byte[] bits(BitSet bits, int count) {
+        byte[] packed = new byte[(count + 7) / 8];
+        byte[] set = bits.toByteArray();
+        System.arraycopy(set, 0, packed, 0, set.length);
+        return packed;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
@@ -0,0 +1,7 @@
+package com.parakh.backend.archive;
+
+// One archived student response, as read back from a segment
+@FunctionalInterface
+public interface ResponseVisitor {
+    void visit(long examId, long questionId, String selectedOption, boolean isCorrect, Long timeTakenSeconds);
+}
@@ -0,0 +1,182 @@
+package com.parakh.backend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// A named cache: a bounded W-TinyLFU near cache on this instance, optionally
+// backed by the shared remote tier. Values in the remote tier are JSON, so
+// distributed regions must hold plain Jackson-friendly objects; near-only
+// regions can hold anything. Invalidations are broadcast so other instances
+// drop their near copies.
+//
+// A load that read the old value before an invalidation must not cache it
+// afterwards. Here, each invalidation bumps an epoch (striped by key) that a
+// load records before it starts and checks before it caches. In the remote
+// tier, an invalidation leaves a short-lived tombstone instead of deleting
+// the key, and loads only add missing keys, so one that finishes on another
+// instance cannot write the old value back over it.
+public class CacheRegion<V> {
+
+    private static final int EPOCH_STRIPES = 64;
+    // Outlasts any load in flight when the key was invalidated
+    private static final long TOMBSTONE_MILLIS = 10_000;
+    // Not valid JSON, so never mistaken for a value
+    private static final byte[] TOMBSTONE = { 0 };
+
+    private final String name;
+    private final Class<V> type;
+    private final TinyLfuCache<String, V> near;
+    private final RemoteCache remote;
+    private final long ttlMillis;
+    private final ObjectMapper objectMapper;
+    private final CacheRegistry registry;
+
+    private final AtomicLongArray epochs = new AtomicLongArray(EPOCH_STRIPES);
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    CacheRegion(String name, Class<V> type, long maximumSize, long ttlMillis, RemoteCache remote,
+            ObjectMapper objectMapper, CacheRegistry registry) {
+        this.name = name;
+        this.type = type;
+        this.near = new TinyLfuCache<>(maximumSize, ttlMillis);
+        this.remote = remote;
+        this.ttlMillis = ttlMillis;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Near cache, then the remote tier, then the loader. A null from the loader
+    // is returned but not cached, and so is a value the key was invalidated
+    // while it was being read.
+    public V get(String key, Function<String, V> loader) {
+        V value = near.getIfPresent(key);
+        if (value != null)
+            return value;
+        int stripe = stripe(key);
+        long epoch = epochs.get(stripe);
+        value = getRemote(key);
+        if (value != null) {
+            remoteHits.increment();
+            return putNear(key, value, stripe, epoch);
+        }
+        value = loader.apply(key);
+        loads.increment();
+        if (value == null || epochs.get(stripe) != epoch)
+            return value;
+        putRemoteIfAbsent(key, value);
+        return putNear(key, value, stripe, epoch);
+    }
+
+    public V getIfPresent(String key) {
+        return near.getIfPresent(key);
+    }
+
+    public void put(String key, V value) {
+        near.put(key, value);
+        putRemote(key, value);
+    }
+
+    // Drops the entry here, in the remote tier and on every other instance
+    public void invalidate(String key) {
+        epochs.incrementAndGet(stripe(key));
+        near.invalidate(key);
+        if (remote != null)
+            remote.put(remoteKey(key), TOMBSTONE, TOMBSTONE_MILLIS);
+        registry.publishInvalidation(name, key);
+    }
+
+    // Drops only this instance's copy
+    public void evictLocal(String key) {
+        epochs.incrementAndGet(stripe(key));
+        near.invalidate(key);
+    }
+
+    void clearLocal() {
+        for (int i = 0; i < EPOCH_STRIPES; i++) {
+            epochs.incrementAndGet(i);
+        }
+        near.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        long nearHits = near.getHits();
+        long remote = remoteHits.sum();
+        long requests = nearHits + near.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("region", name);
+        stats.put("distributed", this.remote != null);
+        stats.put("size", near.size());
+        stats.put("requests", requests);
+        stats.put("nearHits", nearHits);
+        stats.put("remoteHits", remote);
+        stats.put("loads", loads.sum());
+        stats.put("evictions", near.getEvictions());
+        stats.put("nearHitRatio", requests > 0 ? (double) nearHits / requests : 0);
+        stats.put("hitRatio", requests > 0 ? (double) (nearHits + remote) / requests : 0);
+        return stats;
+    }
+
+    private V getRemote(String key) {
+        if (remote == null)
+            return null;
+        byte[] bytes = remote.get(remoteKey(key));
+        if (bytes == null || Arrays.equals(bytes, TOMBSTONE))
+            return null;
+        try {
+            return objectMapper.readValue(bytes, type);
+        } catch (IOException e) {
+            System.out.println("Dropping unreadable cache entry " + remoteKey(key) + ": " + e.getMessage());
+            remote.delete(remoteKey(key));
+            return null;
+        }
+    }
+
+    private void putRemote(String key, V value) {
+        if (remote == null)
+            return;
+        try {
+            remote.put(remoteKey(key), objectMapper.writeValueAsBytes(value), ttlMillis);
+        } catch (IOException e) {
+            System.out.println("Could not serialize cache entry " + remoteKey(key) + ": " + e.getMessage());
+        }
+    }
+
+    private void putRemoteIfAbsent(String key, V value) {
+        if (remote == null)
+            return;
+        try {
+            remote.putIfAbsent(remoteKey(key), objectMapper.writeValueAsBytes(value), ttlMillis);
+        } catch (IOException e) {
+            System.out.println("Could not serialize cache entry " + remoteKey(key) + ": " + e.getMessage());
+        }
+    }
+
+    // An invalidation landing between the epoch check and the put takes the
+    // entry out again
+    private V putNear(String key, V value, int stripe, long epoch) {
+        V cached = near.putIfAbsent(key, value);
+        if (epochs.get(stripe) != epoch)
+            near.invalidate(key);
+        return cached;
+    }
+
+    private int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % EPOCH_STRIPES;
+    }
+
+    private String remoteKey(String key) {
+        return "parakh:" + name + ":" + key;
+    }
+}
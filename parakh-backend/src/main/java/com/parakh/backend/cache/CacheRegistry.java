@@ -0,0 +1,134 @@
+package com.parakh.backend.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Owns the cache regions and the shared tier. With parakh.cache.backend=local
+// every region is a near cache only; with "redis" distributed regions are
+// backed by a Redis-protocol server, and invalidations travel over its
+// pub/sub channel to every instance. Replicas that are not regions (like the
+// question index) can listen for a region name as well.
+@Component
+public class CacheRegistry {
+
+    private static final String CHANNEL = "parakh:invalidate";
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${parakh.cache.backend:local}")
+    private String backend;
+
+    @Value("${parakh.cache.redis.host:localhost}")
+    private String redisHost;
+
+    @Value("${parakh.cache.redis.port:6379}")
+    private int redisPort;
+
+    @Value("${parakh.cache.redis.pool-size:8}")
+    private int redisPoolSize;
+
+    @Value("${parakh.cache.redis.timeout-ms:500}")
+    private int redisTimeoutMillis;
+
+    // Starts the embedded stand-in server on this port (development only)
+    @Value("${parakh.cache.embedded-server.port:0}")
+    private int embeddedServerPort;
+
+    // Identifies this instance's own invalidation messages
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, CacheRegion<?>> regions = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private final List<Supplier<List<Map<String, Object>>>> statsSources = new CopyOnWriteArrayList<>();
+    private RemoteCache remote;
+    private EmbeddedRespServer embeddedServer;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (embeddedServerPort > 0) {
+            embeddedServer = new EmbeddedRespServer(embeddedServerPort);
+            System.out.println("Embedded cache server listening on port " + embeddedServer.getPort());
+        }
+        if (backend.equalsIgnoreCase("redis")) {
+            remote = new RespRemoteCache(redisHost, redisPort, redisPoolSize, redisTimeoutMillis);
+            remote.subscribe(CHANNEL, this::onMessage);
+            System.out.println("Cache tier: redis at " + redisHost + ":" + redisPort);
+        }
+    }
+
+    // Distributed regions use the remote tier when one is configured
+    public <V> CacheRegion<V> region(String name, Class<V> type, long maximumSize, long ttlMillis,
+            boolean distributed) {
+        CacheRegion<V> region = new CacheRegion<>(name, type, maximumSize, ttlMillis,
+                distributed ? remote : null, objectMapper, this);
+        if (regions.putIfAbsent(name, region) != null)
+            throw new IllegalStateException("Cache region already exists: " + name);
+        return region;
+    }
+
+    // Called with the key when another instance invalidates it, or with null
+    // when invalidations may have been missed and everything should be reloaded
+    public void onInvalidation(String regionName, Consumer<String> listener) {
+        listeners.computeIfAbsent(regionName, r -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void publishInvalidation(String regionName, String key) {
+        if (remote != null)
+            remote.publish(CHANNEL, regionName + "\t" + key + "\t" + instanceId);
+    }
+
+    // Caches kept outside regions (Hibernate's) report their stats here too
+    public void addStatsSource(Supplier<List<Map<String, Object>>> source) {
+        statsSources.add(source);
+    }
+
+    public List<Map<String, Object>> getStats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        regions.values().forEach(region -> stats.add(region.getStats()));
+        statsSources.forEach(source -> stats.addAll(source.get()));
+        stats.sort(Comparator.comparing(s -> (String) s.get("region")));
+        return stats;
+    }
+
+    private void onMessage(String message) {
+        if (message == null) {
+            // Resubscribed after an outage, or a publisher lost messages
+            regions.values().forEach(CacheRegion::clearLocal);
+            listeners.values().forEach(list -> list.forEach(listener -> listener.accept(null)));
+            return;
+        }
+        String[] parts = message.split("\t", 3);
+        if (parts.length < 3 || parts[2].equals(instanceId))
+            return;
+        CacheRegion<?> region = regions.get(parts[0]);
+        if (region != null)
+            region.evictLocal(parts[1]);
+        for (Consumer<String> listener : listeners.getOrDefault(parts[0], List.of())) {
+            try {
+                listener.accept(parts[1]);
+            } catch (Exception e) {
+                System.out.println("Cache invalidation listener failed for " + parts[0] + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (remote != null)
+            remote.close();
+        if (embeddedServer != null)
+            embeddedServer.close();
+    }
+}
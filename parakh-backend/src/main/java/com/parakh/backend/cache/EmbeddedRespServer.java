@@ -0,0 +1,204 @@
+package com.parakh.backend.cache;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Minimal in-process stand-in for a Redis server, for development and
+// multi-instance runs on one machine: PING, GET, SET (with PX), DEL, PUBLISH and
+// SUBSCRIBE. Not meant for production; point parakh.cache.redis.* at a real
+// server there.
+public class EmbeddedRespServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, StoredValue> values = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscriber>> channels = new ConcurrentHashMap<>();
+    private final ExecutorService connections = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "embedded-resp");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public EmbeddedRespServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port);
+        connections.execute(this::accept);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Subscriber subscriber = null;
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                if (!(RespConnection.readReply(in) instanceof List<?> command) || command.isEmpty())
+                    throw new IOException("Expected a command array");
+                String name = text(command.get(0)).toUpperCase();
+                if (name.equals("SUBSCRIBE")) {
+                    if (subscriber == null)
+                        subscriber = new Subscriber(out);
+                    for (int i = 1; i < command.size(); i++) {
+                        String channel = text(command.get(i));
+                        channels.computeIfAbsent(channel, c -> ConcurrentHashMap.newKeySet()).add(subscriber);
+                        subscriber.send("subscribe", channel, (long) i);
+                    }
+                    continue;
+                }
+                synchronized (out) {
+                    reply(out, execute(name, command));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // client went away
+        } finally {
+            if (subscriber != null) {
+                Subscriber gone = subscriber;
+                channels.values().forEach(subs -> subs.remove(gone));
+            }
+        }
+    }
+
+    private Object execute(String name, List<?> command) {
+        switch (name) {
+            case "PING":
+                return "PONG";
+            case "GET": {
+                String key = text(command.get(1));
+                StoredValue value = values.get(key);
+                if (value == null || value.isExpired()) {
+                    if (value != null)
+                        values.remove(key, value);
+                    return null;
+                }
+                return value.bytes;
+            }
+            case "SET": {
+                long expiresAt = 0;
+                boolean ifAbsent = false;
+                for (int i = 3; i < command.size(); i++) {
+                    String option = text(command.get(i));
+                    if (option.equalsIgnoreCase("PX") && i + 1 < command.size())
+                        expiresAt = System.currentTimeMillis() + Long.parseLong(text(command.get(++i)));
+                    else if (option.equalsIgnoreCase("NX"))
+                        ifAbsent = true;
+                }
+                StoredValue value = new StoredValue((byte[]) command.get(2), expiresAt);
+                if (!ifAbsent) {
+                    values.put(text(command.get(1)), value);
+                    return "OK";
+                }
+                // Nil reply when the key is already set
+                StoredValue current = values.compute(text(command.get(1)),
+                        (k, old) -> old == null || old.isExpired() ? value : old);
+                return current == value ? "OK" : null;
+            }
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (values.remove(text(command.get(i))) != null)
+                        removed++;
+                }
+                return removed;
+            }
+            case "PUBLISH": {
+                Set<Subscriber> subs = channels.getOrDefault(text(command.get(1)), Set.of());
+                for (Subscriber sub : subs) {
+                    sub.send("message", text(command.get(1)), command.get(2));
+                }
+                return (long) subs.size();
+            }
+            default:
+                return new IOException("ERR unknown command '" + name + "'");
+        }
+    }
+
+    private static void reply(OutputStream out, Object value) throws IOException {
+        if (value instanceof String s) {
+            out.write(('+' + s + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Long n) {
+            out.write((":" + n + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (value instanceof IOException e) {
+            out.write(('-' + e.getMessage() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else {
+            RespConnection.writeBulk(out, (byte[]) value);
+        }
+    }
+
+    private static String text(Object value) {
+        return value instanceof byte[] bytes ? new String(bytes, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static class StoredValue {
+        private final byte[] bytes;
+        private final long expiresAt;
+
+        StoredValue(byte[] bytes, long expiresAt) {
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt > 0 && System.currentTimeMillis() > expiresAt;
+        }
+    }
+
+    private static class Subscriber {
+        private final OutputStream out;
+
+        Subscriber(OutputStream out) {
+            this.out = out;
+        }
+
+        // Push messages share the stream with replies, hence the lock
+        void send(String kind, String channel, Object payload) {
+            synchronized (out) {
+                try {
+                    out.write("*3\r\n".getBytes(StandardCharsets.US_ASCII));
+                    RespConnection.writeBulk(out, kind.getBytes(StandardCharsets.UTF_8));
+                    RespConnection.writeBulk(out, channel.getBytes(StandardCharsets.UTF_8));
+                    if (payload instanceof Long n) {
+                        out.write((":" + n + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    } else {
+                        RespConnection.writeBulk(out, (byte[]) payload);
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    // removed when its connection loop ends
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.parakh.backend.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One Hibernate second-level cache region (entity data or query results) in a
+// W-TinyLFU cache on this instance. Entity regions are keyed by id. Hibernate
+// drops an entity's entry after every write (NONSTRICT_READ_WRITE), and the
+// other instances are told to drop theirs. Query results are only cleared as
+// a whole; single results go stale through the timestamps region instead.
+class HibernateCacheStorage implements DomainDataStorageAccess {
+
+    private static final String ALL = "*";
+
+    private final String name;
+    private final boolean entityRegion;
+    private final TinyLfuCache<Object, Object> cache;
+    private final CacheRegistry registry;
+
+    HibernateCacheStorage(String name, boolean entityRegion, long maximumSize, long ttlMillis,
+            CacheRegistry registry) {
+        this.name = name;
+        this.entityRegion = entityRegion;
+        this.cache = new TinyLfuCache<>(maximumSize, ttlMillis);
+        this.registry = registry;
+        registry.onInvalidation(name, this::onRemoteInvalidation);
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        cache.put(key, value);
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.getIfPresent(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        cache.invalidateAll();
+        registry.publishInvalidation(name, ALL);
+    }
+
+    @Override
+    public void evictData(Object key) {
+        cache.invalidate(key);
+        if (entityRegion)
+            registry.publishInvalidation(name, String.valueOf(key));
+    }
+
+    @Override
+    public void release() {
+        cache.invalidateAll();
+    }
+
+    Map<String, Object> getStats() {
+        long hits = cache.getHits();
+        long requests = hits + cache.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("region", name);
+        stats.put("distributed", false);
+        stats.put("size", cache.size());
+        stats.put("requests", requests);
+        stats.put("nearHits", hits);
+        stats.put("remoteHits", 0L);
+        stats.put("loads", requests - hits);
+        stats.put("evictions", cache.getEvictions());
+        stats.put("nearHitRatio", requests > 0 ? (double) hits / requests : 0);
+        stats.put("hitRatio", requests > 0 ? (double) hits / requests : 0);
+        return stats;
+    }
+
+    // Cached entities all have Long ids; anything else clears the region
+    private void onRemoteInvalidation(String key) {
+        if (key == null || key.equals(ALL) || !entityRegion) {
+            cache.invalidateAll();
+            return;
+        }
+        try {
+            cache.invalidate(Long.valueOf(key));
+        } catch (NumberFormatException e) {
+            cache.invalidateAll();
+        }
+    }
+}
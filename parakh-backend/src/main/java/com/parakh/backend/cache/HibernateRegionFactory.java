@@ -0,0 +1,83 @@
+package com.parakh.backend.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.internal.SimpleCacheKeysFactory;
+import org.hibernate.cache.spi.CacheKeysFactory;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.core.env.Environment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+// Hibernate's second-level and query caches on top of the cache package, so
+// they share its eviction, stats and cross-instance invalidation. Size and
+// TTL come from parakh.cache.l2.<region>.max-size / ttl-ms, falling back to
+// parakh.cache.l2.max-size / ttl-ms. Regions report as "l2:<region>" in
+// /api/admin/cache/stats.
+public class HibernateRegionFactory extends RegionFactoryTemplate {
+
+    private final CacheRegistry registry;
+    private final Environment environment;
+    private final List<HibernateCacheStorage> storages = new CopyOnWriteArrayList<>();
+
+    public HibernateRegionFactory(CacheRegistry registry, Environment environment) {
+        this.registry = registry;
+        this.environment = environment;
+        registry.addStatsSource(() -> storages.stream().map(HibernateCacheStorage::getStats).toList());
+    }
+
+    // Every cached entity has its own region, so the id alone is the key
+    @Override
+    protected CacheKeysFactory getImplicitCacheKeysFactory() {
+        return SimpleCacheKeysFactory.INSTANCE;
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+            DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName(), true);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        return storage(regionName, false);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+            SessionFactoryImplementor sessionFactory) {
+        Set<String> sharedSpaces = Arrays.stream(environment.getProperty("parakh.cache.l2.shared-spaces", "")
+                .split(",")).map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toSet());
+        return new HibernateTimestampsStorage("l2:" + regionName, sharedSpaces, this::nextTimestamp, registry);
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.forEach(HibernateCacheStorage::release);
+    }
+
+    private HibernateCacheStorage storage(String regionName, boolean entityRegion) {
+        long maximumSize = environment.getProperty("parakh.cache.l2." + regionName + ".max-size", Long.class,
+                environment.getProperty("parakh.cache.l2.max-size", Long.class, 10_000L));
+        long ttlMillis = environment.getProperty("parakh.cache.l2." + regionName + ".ttl-ms", Long.class,
+                environment.getProperty("parakh.cache.l2.ttl-ms", Long.class, 600_000L));
+        HibernateCacheStorage storage = new HibernateCacheStorage("l2:" + regionName, entityRegion, maximumSize,
+                ttlMillis, registry);
+        storages.add(storage);
+        return storage;
+    }
+}
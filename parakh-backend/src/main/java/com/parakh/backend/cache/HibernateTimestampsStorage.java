@@ -0,0 +1,70 @@
+package com.parakh.backend.cache;
+
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+// When each table was last written, which decides whether a cached query
+// result is still current. Never evicts: a missing timestamp counts as "not
+// written since startup". Writes to the shared tables are announced, and an
+// instance hearing one stamps the table itself, which invalidates the query
+// results it cached before then.
+class HibernateTimestampsStorage implements StorageAccess {
+
+    private final String name;
+    private final Set<String> sharedSpaces;
+    private final LongSupplier clock;
+    private final CacheRegistry registry;
+    private final ConcurrentHashMap<Object, Object> timestamps = new ConcurrentHashMap<>();
+
+    HibernateTimestampsStorage(String name, Set<String> sharedSpaces, LongSupplier clock, CacheRegistry registry) {
+        this.name = name;
+        this.sharedSpaces = sharedSpaces;
+        this.clock = clock;
+        this.registry = registry;
+        registry.onInvalidation(name, this::onRemoteWrite);
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        return timestamps.get(key);
+    }
+
+    // Called once before a write transaction (with a time in the future) and
+    // once after it, so other instances hear about both
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        timestamps.put(key, value);
+        if (sharedSpaces.contains(key.toString()))
+            registry.publishInvalidation(name, key.toString());
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return timestamps.containsKey(key);
+    }
+
+    @Override
+    public void evictData() {
+        timestamps.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        timestamps.remove(key);
+    }
+
+    @Override
+    public void release() {
+        timestamps.clear();
+    }
+
+    // After missed messages (null) the query result regions are cleared instead
+    private void onRemoteWrite(String space) {
+        if (space != null)
+            timestamps.put(space, clock.getAsLong());
+    }
+}
@@ -0,0 +1,27 @@
+package com.parakh.backend.cache;
+
+import java.util.function.Consumer;
+
+// Shared cache tier behind the per-instance near caches. Implementations must
+// not throw: an unreachable backend behaves like an empty cache so requests
+// fall through to the database.
+public interface RemoteCache {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, long ttlMillis);
+
+    // Leaves an existing value (or tombstone) in place
+    void putIfAbsent(String key, byte[] value, long ttlMillis);
+
+    void delete(String key);
+
+    void publish(String channel, String message);
+
+    // The listener is called from a background thread. After a reconnect, or
+    // when a publisher could not get a message out, it gets null, since
+    // messages may have been missed.
+    void subscribe(String channel, Consumer<String> listener);
+
+    void close();
+}
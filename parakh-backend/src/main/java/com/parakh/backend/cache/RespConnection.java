@@ -0,0 +1,125 @@
+package com.parakh.backend.cache;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// One connection speaking the Redis serialization protocol (RESP2). Commands are
+// sent as arrays of bulk strings; replies come back as String (simple string),
+// Long (integer), byte[] or null (bulk string) or List (array). Error replies
+// are thrown as IOException. Not thread-safe; callers pool connections.
+public class RespConnection implements Closeable {
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    public RespConnection(String host, int port, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+        socket.setSoTimeout(timeoutMillis);
+        socket.setTcpNoDelay(true);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    public Object command(Object... args) throws IOException {
+        send(args);
+        return read();
+    }
+
+    public void send(Object... args) throws IOException {
+        writeCommand(out, args);
+        out.flush();
+    }
+
+    public Object read() throws IOException {
+        return readReply(in);
+    }
+
+    // 0 blocks until a message arrives; used by subscriber connections
+    public void setReadTimeout(int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+    }
+
+    @Override
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing left to release
+        }
+    }
+
+    static void writeCommand(OutputStream out, Object... args) throws IOException {
+        out.write(('*' + Integer.toString(args.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (Object arg : args) {
+            byte[] bytes = arg instanceof byte[] b ? b : String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+            writeBulk(out, bytes);
+        }
+    }
+
+    static void writeBulk(OutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        out.write(('$' + Integer.toString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    static Object readReply(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1)
+            throw new EOFException("Connection closed");
+        String line = readLine(in);
+        switch (type) {
+            case '+':
+                return line;
+            case '-':
+                throw new IOException("Server error: " + line);
+            case ':':
+                return Long.parseLong(line);
+            case '$': {
+                int length = Integer.parseInt(line);
+                if (length < 0)
+                    return null;
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length)
+                    throw new EOFException("Connection closed");
+                readLine(in);
+                return bytes;
+            }
+            case '*': {
+                int count = Integer.parseInt(line);
+                if (count < 0)
+                    return null;
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(readReply(in));
+                }
+                return items;
+            }
+            default:
+                throw new IOException("Unexpected reply type: " + (char) type);
+        }
+    }
+
+    static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\r') {
+                in.read(); // '\n'
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        throw new EOFException("Connection closed");
+    }
+}
@@ -0,0 +1,177 @@
+package com.parakh.backend.cache;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// RemoteCache over a Redis-protocol server, with a small pool of command
+// connections and one dedicated connection per subscription. A failing
+// connection is dropped and replaced on next use. A message that could not be
+// published is not resent; instead, once the server takes publishes again,
+// the channel gets a marker that makes every subscriber treat it like a
+// reconnect (null: messages may have been missed).
+public class RespRemoteCache implements RemoteCache {
+
+    private static final long RECONNECT_DELAY_MS = 1000;
+    private static final String MISSED_MARKER = "\u0000missed";
+
+    private final String host;
+    private final int port;
+    private final int timeoutMillis;
+    private final BlockingQueue<RespConnection> idle;
+    // Channels with a lost publish whose marker has not gone out yet
+    private final Set<String> lostPublishes = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService retrier = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "cache-publish-retry");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean closed;
+
+    public RespRemoteCache(String host, int port, int poolSize, int timeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.timeoutMillis = timeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        retrier.scheduleWithFixedDelay(this::sendMissedMarkers, RECONNECT_DELAY_MS, RECONNECT_DELAY_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Object reply = execute("GET", key);
+        return reply instanceof byte[] bytes ? bytes : null;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis) {
+        if (ttlMillis > 0) {
+            execute("SET", key, value, "PX", ttlMillis);
+        } else {
+            execute("SET", key, value);
+        }
+    }
+
+    @Override
+    public void putIfAbsent(String key, byte[] value, long ttlMillis) {
+        if (ttlMillis > 0) {
+            execute("SET", key, value, "PX", ttlMillis, "NX");
+        } else {
+            execute("SET", key, value, "NX");
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        execute("DEL", key);
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        if (lostPublishes.contains(channel))
+            sendMissedMarker(channel);
+        try {
+            command("PUBLISH", channel, message);
+        } catch (IOException e) {
+            lostPublishes.add(channel);
+            System.out.println("Remote cache PUBLISH failed, subscribers will be told to reload: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        Thread thread = new Thread(() -> listen(channel, listener), "cache-subscriber-" + channel);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        retrier.shutdownNow();
+        RespConnection connection;
+        while ((connection = idle.poll()) != null) {
+            connection.close();
+        }
+    }
+
+    private Object execute(Object... command) {
+        try {
+            return command(command);
+        } catch (IOException e) {
+            System.out.println("Remote cache " + command[0] + " failed: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Object command(Object... command) throws IOException {
+        RespConnection connection = idle.poll();
+        try {
+            if (connection == null)
+                connection = new RespConnection(host, port, timeoutMillis);
+            Object reply = connection.command(command);
+            if (closed || !idle.offer(connection))
+                connection.close();
+            return reply;
+        } catch (IOException e) {
+            if (connection != null)
+                connection.close();
+            throw e;
+        }
+    }
+
+    private void sendMissedMarkers() {
+        for (String channel : lostPublishes) {
+            sendMissedMarker(channel);
+        }
+    }
+
+    // Cleared before the send, so a publish failing meanwhile marks the channel again
+    private void sendMissedMarker(String channel) {
+        if (!lostPublishes.remove(channel))
+            return;
+        try {
+            command("PUBLISH", channel, MISSED_MARKER);
+        } catch (IOException e) {
+            lostPublishes.add(channel);
+        }
+    }
+
+    private void listen(String channel, Consumer<String> listener) {
+        boolean reconnecting = false;
+        while (!closed) {
+            try (RespConnection connection = new RespConnection(host, port, timeoutMillis)) {
+                connection.command("SUBSCRIBE", channel);
+                connection.setReadTimeout(0);
+                if (reconnecting)
+                    listener.accept(null);
+                reconnecting = true;
+                while (!closed) {
+                    // ["message", channel, payload]
+                    if (connection.read() instanceof List<?> message && message.size() == 3
+                            && message.get(2) instanceof byte[] payload) {
+                        String text = new String(payload, StandardCharsets.UTF_8);
+                        listener.accept(text.equals(MISSED_MARKER) ? null : text);
+                    }
+                }
+            } catch (IOException e) {
+                if (closed)
+                    return;
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+}
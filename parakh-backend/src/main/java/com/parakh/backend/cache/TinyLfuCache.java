@@ -0,0 +1,282 @@
+package com.parakh.backend.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded in-process cache with W-TinyLFU eviction. New entries enter a small
+// LRU window (1% of capacity); entries leaving the window compete with the
+// main area's LRU victim and only the one the frequency sketch says is more
+// popular stays. The main area is a segmented LRU: probation, and protected
+// (80%) for entries hit again. Reads go straight to a concurrent map and only
+// record the access in a lossy ring buffer that is replayed under the
+// eviction lock, so hits never block on each other.
+public class TinyLfuCache<K, V> {
+
+    private static final int READ_BUFFER_SIZE = 128;
+    private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    private final long maximumSize;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final long expireAfterWriteNanos;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // Access order per segment; guarded by evictionLock
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+
+    private final AtomicReferenceArray<Node<K, V>> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    private final AtomicLong readBufferWrites = new AtomicLong();
+    private long readBufferReads;
+    private volatile long publishedReads;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TinyLfuCache(long maximumSize, long expireAfterWriteMillis) {
+        this.maximumSize = Math.max(1, maximumSize);
+        this.windowMaximum = Math.max(1, this.maximumSize / 100);
+        this.protectedMaximum = (long) ((this.maximumSize - windowMaximum) * 0.8);
+        this.expireAfterWriteNanos = expireAfterWriteMillis > 0 ? expireAfterWriteMillis * 1_000_000 : 0;
+        this.sketch = new FrequencySketch(this.maximumSize);
+    }
+
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node)) {
+            misses.increment();
+            invalidate(key, node);
+            return null;
+        }
+        hits.increment();
+        recordRead(node);
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            putLocked(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Keeps an entry another thread stored first; returns whichever is cached
+    public V putIfAbsent(K key, V value) {
+        evictionLock.lock();
+        try {
+            Node<K, V> existing = data.get(key);
+            if (existing != null && !isExpired(existing))
+                return existing.value;
+            putLocked(key, value);
+            return value;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        evictionLock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null)
+                unlink(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            data.values().forEach(node -> node.removed = true);
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public long size() {
+        return data.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private void invalidate(K key, Node<K, V> expected) {
+        evictionLock.lock();
+        try {
+            if (data.remove(key, expected))
+                unlink(expected);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void putLocked(K key, V value) {
+        drainReadBuffer();
+        Node<K, V> node = new Node<>(key, value, System.nanoTime());
+        Node<K, V> previous = data.put(key, node);
+        if (previous != null)
+            unlink(previous);
+        sketch.increment(key);
+        node.segment = Segment.WINDOW;
+        window.put(key, node);
+        evict();
+    }
+
+    private boolean isExpired(Node<K, V> node) {
+        return expireAfterWriteNanos > 0 && System.nanoTime() - node.writeTime > expireAfterWriteNanos;
+    }
+
+    private void recordRead(Node<K, V> node) {
+        long write = readBufferWrites.get();
+        // Lossy: when the buffer is full the access is simply not recorded
+        if (write - publishedReads < READ_BUFFER_SIZE
+                && readBufferWrites.compareAndSet(write, write + 1)) {
+            readBuffer.lazySet((int) (write & READ_BUFFER_MASK), node);
+        }
+        if (write - publishedReads >= DRAIN_THRESHOLD && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void drainReadBuffer() {
+        long writes = readBufferWrites.get();
+        while (readBufferReads < writes) {
+            int index = (int) (readBufferReads & READ_BUFFER_MASK);
+            Node<K, V> node = readBuffer.getAndSet(index, null);
+            if (node == null)
+                break; // claimed but not yet written; replay it next time
+            readBufferReads++;
+            onAccess(node);
+        }
+        publishedReads = readBufferReads;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.removed)
+            return;
+        sketch.increment(node.key);
+        switch (node.segment) {
+            case WINDOW -> {
+                window.remove(node.key);
+                window.put(node.key, node);
+            }
+            case PROBATION -> {
+                probation.remove(node.key);
+                node.segment = Segment.PROTECTED;
+                protectedSegment.put(node.key, node);
+                // Keep protected within its share by demoting its LRU entry
+                if (protectedSegment.size() > protectedMaximum) {
+                    Node<K, V> demoted = removeFirst(protectedSegment);
+                    demoted.segment = Segment.PROBATION;
+                    probation.put(demoted.key, demoted);
+                }
+            }
+            case PROTECTED -> {
+                protectedSegment.remove(node.key);
+                protectedSegment.put(node.key, node);
+            }
+        }
+    }
+
+    private void evict() {
+        while (window.size() > windowMaximum) {
+            Node<K, V> candidate = removeFirst(window);
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+        }
+        while (data.size() > maximumSize) {
+            // Newest probation entry (the window's candidate) against the LRU victim
+            Node<K, V> victim = firstOf(probation.isEmpty() ? protectedSegment : probation);
+            Node<K, V> candidate = lastOf(probation);
+            Node<K, V> evicted;
+            if (candidate == null || candidate == victim) {
+                evicted = victim;
+            } else {
+                evicted = sketch.frequency(candidate.key) > sketch.frequency(victim.key) ? victim : candidate;
+            }
+            if (data.remove(evicted.key, evicted))
+                evictions.increment();
+            unlink(evicted);
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.removed = true;
+        switch (node.segment) {
+            case WINDOW -> window.remove(node.key, node);
+            case PROBATION -> probation.remove(node.key, node);
+            case PROTECTED -> protectedSegment.remove(node.key, node);
+        }
+    }
+
+    private Node<K, V> removeFirst(LinkedHashMap<K, Node<K, V>> segment) {
+        Iterator<Map.Entry<K, Node<K, V>>> it = segment.entrySet().iterator();
+        Node<K, V> first = it.next().getValue();
+        it.remove();
+        return first;
+    }
+
+    private Node<K, V> firstOf(LinkedHashMap<K, Node<K, V>> segment) {
+        Map.Entry<K, Node<K, V>> first = segment.firstEntry();
+        return first != null ? first.getValue() : null;
+    }
+
+    private Node<K, V> lastOf(LinkedHashMap<K, Node<K, V>> segment) {
+        Map.Entry<K, Node<K, V>> last = segment.lastEntry();
+        return last != null ? last.getValue() : null;
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long writeTime;
+        private Segment segment;
+        private volatile boolean removed;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+}
@@ -31,43 +31,30 @@ public class DataSeeder {
                 System.out.println("✅ ========================================");
             }
 
-            // Seed Questions
+            // Seed Questions (the only question seeding; the startup warm-up indexes
+            // whatever is in the bank once this runner has finished)
             if (questionRepository.count() == 0) {
-                seedSubjectQuestions(questionRepository, "Science");
-                seedSubjectQuestions(questionRepository, "Mathematics");
+                seedDemoQuestions(questionRepository);
                 System.out.println("✅ Questions seeded!");
             }
         };
     }
 
-    private void seedSubjectQuestions(QuestionRepository repo, String subject) {
-        // Easy Questions
-        for (int i = 1; i <= 5; i++) {
-            repo.save(createQuestion(subject, "Easy", "Basic Concept " + i, "A"));
-        }
-        // Medium Questions
-        for (int i = 1; i <= 5; i++) {
-            repo.save(createQuestion(subject, "Medium", "Intermediate Concept " + i, "B"));
-        }
-        // Hard Questions
-        for (int i = 1; i <= 5; i++) {
-            repo.save(createQuestion(subject, "Hard", "Advanced Concept " + i, "C"));
-        }
-    }
+    private void seedDemoQuestions(QuestionRepository repo) {
+        // Mathematics Questions
+        repo.save(new Question("What is the value of pi (approx)?", "3.14", "2.14", "4.14", "3.41",
+                "A", "Mathematics", "Easy"));
+        repo.save(new Question("Solve for x: 2x + 5 = 15", "2", "5", "10", "7.5", "B",
+                "Mathematics", "Medium"));
+        repo.save(new Question("Square root of 144 is?", "10", "11", "12", "13", "C",
+                "Mathematics", "Easy"));
 
-    private Question createQuestion(String subject, String difficulty, String topic, String correctOpt) {
-        Question q = new Question();
-        q.setContent("This is a " + difficulty + " question about " + topic + " in " + subject + ".");
-        q.setOptionA("Option A Value");
-        q.setOptionB("Option B Value");
-        q.setOptionC("Option C Value");
-        q.setOptionD("Option D Value");
-        q.setCorrectOption(correctOpt);
-        q.setSubject(subject);
-        q.setDifficulty(difficulty);
-        q.setTopic(topic);
-        System.out.println("Seeding Q: " + topic);
-        q.setUsageCount(0);
-        return q;
+        // Science Questions
+        repo.save(new Question("Powerhouse of the cell is?", "Nucleus", "Mitochondria", "Ribosome",
+                "Golgi Body", "B", "Science", "Easy"));
+        repo.save(new Question("Chemical formula for Water?", "H2O", "CO2", "O2", "NaCl", "A",
+                "Science", "Easy"));
+        repo.save(new Question("Which planet is known as the Red Planet?", "Venus", "Mars", "Jupiter",
+                "Saturn", "B", "Science", "Easy"));
     }
 }
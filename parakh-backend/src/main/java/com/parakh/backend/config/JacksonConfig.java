@@ -0,0 +1,27 @@
+package com.parakh.backend.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+// Blackbird replaces Jackson's reflective getter, setter and constructor calls
+// with lambdas generated once per property, which cuts the per-request cost of
+// the DTOs on the hot exam endpoints. A native image cannot define classes at
+// run time, so there it stays on plain reflection.
+@Configuration
+public class JacksonConfig {
+
+    @Value("${parakh.jackson.blackbird:true}")
+    private boolean blackbird;
+
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer blackbirdCustomizer() {
+        return builder -> {
+            if (blackbird && !NativeDetector.inNativeImage())
+                builder.postConfigurer(mapper -> mapper.registerModule(new BlackbirdModule()));
+        };
+    }
+}
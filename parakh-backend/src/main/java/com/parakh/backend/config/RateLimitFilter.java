@@ -0,0 +1,161 @@
+package com.parakh.backend.config;
+
+import com.parakh.backend.util.AdmissionControl;
+import com.parakh.backend.util.RateLimiter;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Runs after JwtAuthenticationFilter. Token buckets per client IP and per
+// signed-in user answer 429 to a client that floods the API, and admission
+// control answers 503 once too many requests are in flight. Each endpoint class
+// may only fill part of the capacity, so under overload admin traffic is shed
+// first and exam submissions last.
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    enum EndpointClass {
+        EXAM, AUTH, OTHER, ADMIN
+    }
+
+    @Value("${parakh.ratelimit.ip.per-second:50}")
+    private double ipPerSecond;
+
+    @Value("${parakh.ratelimit.ip.burst:200}")
+    private int ipBurst;
+
+    @Value("${parakh.ratelimit.auth.per-second:5}")
+    private double authPerSecond;
+
+    @Value("${parakh.ratelimit.auth.burst:50}")
+    private int authBurst;
+
+    @Value("${parakh.ratelimit.user.per-second:10}")
+    private double userPerSecond;
+
+    @Value("${parakh.ratelimit.user.burst:30}")
+    private int userBurst;
+
+    @Value("${parakh.ratelimit.max-keys:100000}")
+    private long maxKeys;
+
+    @Value("${parakh.admission.max-concurrent:200}")
+    private int maxConcurrent;
+
+    // Share of max-concurrent each class may fill, highest priority first
+    @Value("${parakh.admission.share.exam:1.0}")
+    private double examShare;
+
+    @Value("${parakh.admission.share.auth:0.8}")
+    private double authShare;
+
+    @Value("${parakh.admission.share.other:0.6}")
+    private double otherShare;
+
+    @Value("${parakh.admission.share.admin:0.4}")
+    private double adminShare;
+
+    private RateLimiter ipLimiter;
+    private RateLimiter authLimiter;
+    private RateLimiter userLimiter;
+    private final AdmissionControl admission = new AdmissionControl();
+    private final Map<EndpointClass, Integer> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, LongAdder> shed = new EnumMap<>(EndpointClass.class);
+    private final LongAdder rateLimited = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        ipLimiter = new RateLimiter(ipPerSecond, ipBurst, maxKeys);
+        authLimiter = new RateLimiter(authPerSecond, authBurst, maxKeys);
+        userLimiter = new RateLimiter(userPerSecond, userBurst, maxKeys);
+        limits.put(EndpointClass.EXAM, (int) Math.ceil(maxConcurrent * examShare));
+        limits.put(EndpointClass.AUTH, (int) Math.ceil(maxConcurrent * authShare));
+        limits.put(EndpointClass.OTHER, (int) Math.ceil(maxConcurrent * otherShare));
+        limits.put(EndpointClass.ADMIN, (int) Math.ceil(maxConcurrent * adminShare));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            shed.put(endpointClass, new LongAdder());
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !path.startsWith("/api/") || path.startsWith("/api/health") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request.getRequestURI());
+
+        // Login and registration are limited per IP; everything else per IP and per user
+        String ip = request.getRemoteAddr();
+        long wait = endpointClass == EndpointClass.AUTH ? authLimiter.tryAcquire(ip) : ipLimiter.tryAcquire(ip);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (wait == 0 && authentication != null && authentication.isAuthenticated())
+            wait = userLimiter.tryAcquire(authentication.getName());
+        if (wait > 0) {
+            rateLimited.increment();
+            reject(response, 429, "Too many requests", TimeUnit.NANOSECONDS.toSeconds(wait) + 1);
+            return;
+        }
+
+        if (!admission.tryAcquire(limits.get(endpointClass))) {
+            shed.get(endpointClass).increment();
+            reject(response, 503, "Server busy", 1);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            admission.release();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("inFlight", admission.getInFlight());
+        stats.put("rateLimited", rateLimited.sum());
+        Map<String, Object> classes = new LinkedHashMap<>();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("limit", limits.get(endpointClass));
+            entry.put("shed", shed.get(endpointClass).sum());
+            classes.put(endpointClass.name().toLowerCase(), entry);
+        }
+        stats.put("classes", classes);
+        return stats;
+    }
+
+    private static EndpointClass classify(String path) {
+        if (path.startsWith("/api/exam/"))
+            return EndpointClass.EXAM;
+        if (path.startsWith("/api/auth/"))
+            return EndpointClass.AUTH;
+        if (path.startsWith("/api/admin/"))
+            return EndpointClass.ADMIN;
+        return EndpointClass.OTHER;
+    }
+
+    private static void reject(HttpServletResponse response, int status, String message, long retryAfterSeconds)
+            throws IOException {
+        response.setStatus(status);
+        response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        response.setContentType("text/plain");
+        response.getWriter().write(message);
+    }
+}
@@ -0,0 +1,81 @@
+package com.parakh.backend.config;
+
+import com.parakh.backend.cache.CacheRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Only active when parakh.datasource.replica.url is set; otherwise Spring Boot
+// builds the single primary pool as before.
+@Configuration
+@ConditionalOnExpression("!'${parakh.datasource.replica.url:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("${parakh.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${parakh.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${parakh.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${parakh.datasource.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    @Value("${parakh.datasource.replica.max-lag-ms:2000}")
+    private long maxLagMillis;
+
+    @Value("${parakh.datasource.replica.sticky-ms:5000}")
+    private long stickyMillis;
+
+    @Value("${parakh.datasource.replica.heartbeat-ms:500}")
+    private long heartbeatMillis;
+
+    @Value("${parakh.datasource.replica.max-writers:100000}")
+    private long maxWriters;
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicaRouter readReplicaRouter(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(replicaUrl);
+        replica.setUsername(replicaUsername);
+        replica.setPassword(replicaPassword);
+        replica.setDriverClassName(properties.determineDriverClassName());
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setReadOnly(true);
+        System.out.println("Read replica: " + replicaUrl + " (max lag " + maxLagMillis + " ms)");
+        return new ReadReplicaRouter(primary, replica, cacheRegistry, maxLagMillis, stickyMillis, heartbeatMillis,
+                maxWriters);
+    }
+
+    @Bean
+    public DataSource dataSource(ReadReplicaRouter router) {
+        // Transactions take their connection before they are marked read-only
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(router));
+    }
+
+    // Hibernate otherwise keeps a session's first connection until the request
+    // ends (open-in-view), so a write after a replica read would go to the replica
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandlingCustomizer() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
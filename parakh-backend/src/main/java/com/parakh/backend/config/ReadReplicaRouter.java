@@ -0,0 +1,163 @@
+package com.parakh.backend.config;
+
+import com.parakh.backend.cache.CacheRegion;
+import com.parakh.backend.cache.CacheRegistry;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Decides whether a read-only transaction may use the replica pool. Only
+// request threads that ReadYourWritesFilter lets through do: writes, background
+// jobs and users who wrote within the last sticky-ms read from the primary. So
+// does everyone while the replica is further behind than max-lag-ms, measured
+// with a heartbeat row the primary rewrites and the replica is read back for,
+// and any request that stamps an ETag from the version counters.
+public class ReadReplicaRouter {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final JdbcTemplate primaryJdbc;
+    private final JdbcTemplate replicaJdbc;
+    private final long maxLagMillis;
+    private final CacheRegion<Long> recentWriters;
+
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "replica-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Last primary heartbeat seen on the replica; 0 until the first one arrives
+    private volatile long replicaBeatAt;
+    private String lastHeartbeatError;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder stickyReads = new LongAdder();
+    private final LongAdder laggingReads = new LongAdder();
+
+    public ReadReplicaRouter(HikariDataSource primary, HikariDataSource replica, CacheRegistry cacheRegistry,
+            long maxLagMillis, long stickyMillis, long heartbeatMillis, long maxWriters) {
+        this.primary = primary;
+        this.replica = replica;
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicaJdbc = new JdbcTemplate(replica);
+        int timeoutSeconds = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxLagMillis));
+        primaryJdbc.setQueryTimeout(timeoutSeconds);
+        replicaJdbc.setQueryTimeout(timeoutSeconds);
+        this.maxLagMillis = maxLagMillis;
+        // Shared between instances, as the next request may land on another one
+        this.recentWriters = cacheRegistry.region("recent-writers", Long.class, maxWriters, stickyMillis, true);
+        primaryJdbc.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        heartbeat.scheduleWithFixedDelay(this::beat, 0, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public HikariDataSource getReplica() {
+        return replica;
+    }
+
+    // Set by ReadYourWritesFilter for the request on this thread: TRUE may use
+    // the replica, FALSE stays on the primary as the user wrote recently
+    public static void routeRequest(Boolean replicaAllowed) {
+        REPLICA_ALLOWED.set(replicaAllowed);
+    }
+
+    // For a request whose response carries an ETag from ContentVersions: the
+    // counters are the primary's, so a body read from a lagging replica would
+    // be cached by the client under a version it does not contain. Must run
+    // before the request's transaction takes its connection.
+    public static void requirePrimary() {
+        REPLICA_ALLOWED.remove();
+    }
+
+    public static void clearRequest() {
+        REPLICA_ALLOWED.remove();
+    }
+
+    public boolean wroteRecently(String user) {
+        return recentWriters.get(user, u -> null) != null;
+    }
+
+    public void recordWrite(String user) {
+        recentWriters.put(user, System.currentTimeMillis());
+    }
+
+    // Called by ReplicaRoutingDataSource as a read-only transaction takes its connection
+    boolean useReplica() {
+        Boolean allowed = REPLICA_ALLOWED.get();
+        if (allowed == null) {
+            primaryReads.increment();
+            return false;
+        }
+        if (!allowed) {
+            stickyReads.increment();
+            return false;
+        }
+        if (getLagMillis() > maxLagMillis) {
+            laggingReads.increment();
+            return false;
+        }
+        replicaReads.increment();
+        return true;
+    }
+
+    public long getLagMillis() {
+        long beatAt = replicaBeatAt;
+        return beatAt == 0 ? Long.MAX_VALUE : Math.max(0, System.currentTimeMillis() - beatAt);
+    }
+
+    private void beat() {
+        String error = null;
+        try {
+            long now = System.currentTimeMillis();
+            if (primaryJdbc.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0)
+                primaryJdbc.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+        } catch (RuntimeException e) {
+            // The replica's heartbeat falls behind and reads move to the primary
+            error = "write failed: " + e.getMessage();
+        }
+        try {
+            List<Long> beats = replicaJdbc.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1",
+                    Long.class);
+            if (!beats.isEmpty())
+                replicaBeatAt = beats.get(0);
+        } catch (RuntimeException e) {
+            error = "read failed: " + e.getMessage();
+        }
+        if (error != null && !error.equals(lastHeartbeatError))
+            System.out.println("Replica heartbeat " + error);
+        lastHeartbeatError = error;
+    }
+
+    public Map<String, Object> getStats() {
+        long lag = getLagMillis();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("replica", true);
+        stats.put("lagMs", lag == Long.MAX_VALUE ? null : lag);
+        stats.put("maxLagMs", maxLagMillis);
+        stats.put("replicaReads", replicaReads.sum());
+        stats.put("primaryReads", primaryReads.sum());
+        stats.put("stickyReads", stickyReads.sum());
+        stats.put("laggingReads", laggingReads.sum());
+        return stats;
+    }
+
+    public void close() {
+        heartbeat.shutdownNow();
+        replica.close();
+        primary.close();
+    }
+}
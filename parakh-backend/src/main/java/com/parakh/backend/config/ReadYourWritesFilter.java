@@ -0,0 +1,54 @@
+package com.parakh.backend.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Runs after JwtAuthenticationFilter when a read replica is configured. GET
+// requests may read from the replica, unless the signed-in user changed
+// something within the last sticky-ms and might not see it there yet. Every
+// other request reads from the primary and makes its user sticky.
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+
+    @Autowired(required = false)
+    private ReadReplicaRouter router;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return router == null || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String user = authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+        boolean read = READ_METHODS.contains(request.getMethod());
+        if (read)
+            ReadReplicaRouter.routeRequest(user == null || !router.wroteRecently(user));
+        // Sticky before the write runs: the client may see the response, and send
+        // its next read, before this thread gets back here
+        else if (user != null)
+            router.recordWrite(user);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadReplicaRouter.clearRequest();
+            // And again, so a slow write is counted from when it committed
+            if (!read && user != null)
+                router.recordWrite(user);
+        }
+    }
+}
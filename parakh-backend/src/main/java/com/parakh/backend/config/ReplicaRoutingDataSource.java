@@ -0,0 +1,58 @@
+package com.parakh.backend.config;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+// Sits behind LazyConnectionDataSourceProxy, so it is asked for a connection at
+// a transaction's first statement, once the transaction is marked read-only.
+// Read-only transactions go where ReadReplicaRouter says, the rest to the primary.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReadReplicaRouter router;
+
+    public ReplicaRoutingDataSource(ReadReplicaRouter router) {
+        this.router = router;
+        setTargetDataSources(Map.of(PRIMARY, router.getPrimary(), REPLICA, router.getReplica()));
+        setDefaultTargetDataSource(router.getPrimary());
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || !router.useReplica())
+            return PRIMARY;
+        holdSecondLevelCachePuts();
+        return REPLICA;
+    }
+
+    // Rows read from a lagging replica must not go into the shared second-level
+    // and query caches, where they would outlive the lag. Reads from the cache
+    // still happen; the session goes back to normal when the transaction ends.
+    private static void holdSecondLevelCachePuts() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder holder) {
+                Session session = holder.getEntityManager().unwrap(Session.class);
+                CacheMode previous = session.getCacheMode();
+                session.setCacheMode(CacheMode.GET);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (session.isOpen())
+                            session.setCacheMode(previous);
+                    }
+                });
+            }
+        }
+    }
+}
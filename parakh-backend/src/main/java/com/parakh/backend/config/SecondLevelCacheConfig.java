@@ -0,0 +1,28 @@
+package com.parakh.backend.config;
+
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.cache.HibernateRegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+// Hands Hibernate a region factory instance, as it needs the cache registry
+// that Hibernate could not look up itself
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> properties.put(AvailableSettings.CACHE_REGION_FACTORY,
+                new HibernateRegionFactory(cacheRegistry, environment));
+    }
+}
@@ -1,16 +1,43 @@
 package com.parakh.backend.controller;
 
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.config.RateLimitFilter;
+import com.parakh.backend.config.ReadReplicaRouter;
+import com.parakh.backend.dto.AggregateSummary;
+import com.parakh.backend.dto.FileStats;
+import com.parakh.backend.dto.QuestionRequest;
+import com.parakh.backend.dto.UserView;
+import com.parakh.backend.export.SheetFormat;
+import com.parakh.backend.export.SheetWriter;
 import com.parakh.backend.model.Question;
 import com.parakh.backend.model.User;
+import com.parakh.backend.repository.AssessmentRepository;
+import com.parakh.backend.storage.FileSender;
+import com.parakh.backend.service.AnswerJournal;
+import com.parakh.backend.service.ContentVersions;
+import com.parakh.backend.service.ContentVersions.Domain;
+import com.parakh.backend.service.FileStorageService;
+import com.parakh.backend.service.JpaStatistics;
 import com.parakh.backend.service.QuestionService;
+import com.parakh.backend.service.ResponseArchiveService;
+import com.parakh.backend.service.ResultAggregateService;
+import com.parakh.backend.service.ResultExportService;
 import com.parakh.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -23,17 +50,58 @@ public class AdminController {
     @Autowired
     private QuestionService questionService;
 
+    @Autowired
+    private ResultAggregateService resultAggregateService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private JpaStatistics jpaStatistics;
+
+    @Autowired
+    private ResponseArchiveService responseArchiveService;
+
+    @Autowired
+    private ResultExportService resultExportService;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private AnswerJournal answerJournal;
+
+    // Only there when parakh.datasource.replica.url is set
+    @Autowired(required = false)
+    private ReadReplicaRouter readReplicaRouter;
+
     // --- User Management ---
 
     @GetMapping("/users")
-    public List<User> getAllUsers(@RequestParam(required = false) String role,
+    @Transactional(readOnly = true)
+    public List<UserView> getAllUsers(@RequestParam(required = false) String role,
             @RequestParam(required = false) String status) {
+        List<User> users;
         if (role != null && status != null) {
-            return userService.getUsersByRoleAndStatus(role, status);
+            users = userService.getUsersByRoleAndStatus(role, status);
         } else if (status != null) {
-            return userService.getUsersByStatus(status);
+            users = userService.getUsersByStatus(status);
+        } else {
+            users = userService.getAllUsers();
         }
-        return userService.getAllUsers();
+        return users.stream().map(UserView::of).toList();
     }
 
     @PutMapping("/users/{id}/approve")
@@ -57,13 +125,35 @@ public class AdminController {
     // --- Question Management ---
 
     @GetMapping("/questions")
-    public List<Question> getAllQuestions() {
+    @Transactional(readOnly = true)
+    public List<Question> getAllQuestions(Authentication authentication, WebRequest request) {
+        if (contentVersions.checkNotModified(request, authentication.getName(), contentVersions.get(Domain.QUESTIONS))) {
+            return null;
+        }
         return questionService.getAllQuestions();
     }
 
     @PostMapping("/questions")
-    public Question createQuestion(@RequestBody Question question) {
-        return questionService.saveQuestion(question);
+    public ResponseEntity<Question> createQuestion(@RequestBody QuestionRequest payload) {
+        Question question = payload.toQuestion();
+        // Flag near-duplicates already in the bank; the question is still saved
+        List<Long> duplicates = questionService.findNearDuplicates(question);
+        Question saved = questionService.saveQuestion(question);
+        if (duplicates.isEmpty()) {
+            return ResponseEntity.ok(saved);
+        }
+        String ids = duplicates.stream().map(String::valueOf).collect(Collectors.joining(","));
+        return ResponseEntity.ok().header("X-Near-Duplicates", ids).body(saved);
+    }
+
+    @PostMapping("/questions/duplicates/check")
+    public List<Long> checkDuplicates(@RequestBody QuestionRequest payload) {
+        return questionService.findNearDuplicates(payload.toQuestion());
+    }
+
+    @GetMapping("/questions/duplicates")
+    public List<List<Long>> getDuplicateClusters() {
+        return questionService.findDuplicateClusters();
     }
 
     @DeleteMapping("/questions/{id}")
@@ -73,18 +163,29 @@ public class AdminController {
     }
 
     @GetMapping("/questions/{id}")
-    public ResponseEntity<Question> getQuestionById(@PathVariable Long id) {
+    public ResponseEntity<Question> getQuestionById(@PathVariable Long id, Authentication authentication,
+            WebRequest request) {
+        if (contentVersions.checkNotModified(request, authentication.getName(), contentVersions.get(Domain.QUESTIONS))) {
+            return null;
+        }
         return ResponseEntity.ok(questionService.getQuestionById(id));
     }
 
     @PutMapping("/questions/{id}")
-    public ResponseEntity<Question> updateQuestion(@PathVariable Long id, @RequestBody Question questionDetails) {
-        return ResponseEntity.ok(questionService.updateQuestion(id, questionDetails));
+    public ResponseEntity<?> updateQuestion(@PathVariable Long id, @RequestBody QuestionRequest payload) {
+        Question questionDetails = payload.toQuestion();
+        questionDetails.setVersion(payload.version());
+        try {
+            return ResponseEntity.ok(questionService.updateQuestion(id, questionDetails));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body("Question was modified by someone else. Reload and try again.");
+        }
     }
 
     // --- Stats ---
 
     @GetMapping("/stats")
+    @Transactional(readOnly = true)
     public Map<String, Object> getStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalUsers", userService.getAllUsers().size());
@@ -92,4 +193,96 @@ public class AdminController {
         // For MVP, simplistic stats
         return stats;
     }
+
+    // Hit ratios per cache region on this instance
+    @GetMapping("/cache/stats")
+    public List<Map<String, Object>> getCacheStats() {
+        return cacheRegistry.getStats();
+    }
+
+    // Requests rejected by rate limiting and shed by admission control
+    @GetMapping("/traffic/stats")
+    public Map<String, Object> getTrafficStats() {
+        return rateLimitFilter.getStats();
+    }
+
+    // Replica lag and where read-only transactions went
+    @GetMapping("/datasource/stats")
+    public Map<String, Object> getDataSourceStats() {
+        return readReplicaRouter != null ? readReplicaRouter.getStats() : Map.of("replica", false);
+    }
+
+    // Content-addressed file store and how downloads were sent
+    @GetMapping("/files/stats")
+    public FileStats getFileStats() {
+        return fileStorageService.getStats();
+    }
+
+    // Answer journal of this instance: unapplied answers and how appends shared flushes
+    @GetMapping("/journal/stats")
+    public Map<String, Object> getJournalStats() {
+        return answerJournal.getStats();
+    }
+
+    // Statements and entity loads since the last reset (parakh.jpa.statistics=true)
+    @GetMapping("/jpa/stats")
+    public Map<String, Object> getJpaStats() {
+        return jpaStatistics.snapshot();
+    }
+
+    @DeleteMapping("/jpa/stats")
+    public ResponseEntity<?> resetJpaStats() {
+        jpaStatistics.reset();
+        return ResponseEntity.ok().build();
+    }
+
+    // Archived assessment windows and the responses still in the table
+    @GetMapping("/archive")
+    public Map<String, Object> getArchiveStats() {
+        return responseArchiveService.getStats();
+    }
+
+    // Archives closed windows now rather than at the next scheduled run
+    @PostMapping("/archive/run")
+    public Map<String, Object> runArchive() {
+        long archived = responseArchiveService.archiveClosedWindows();
+        Map<String, Object> result = new HashMap<>(responseArchiveService.getStats());
+        result.put("archivedNow", archived);
+        return result;
+    }
+
+    // Result sheet of any assessment, for boards collating across schools
+    @GetMapping("/assessments/{id}/results")
+    public ResponseEntity<?> exportResults(@PathVariable Long id, @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        if (!assessmentRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Assessment not found");
+        }
+        SheetFormat sheetFormat = SheetFormat.of(format);
+        if (sheetFormat == null) {
+            return ResponseEntity.badRequest().body("format must be csv or xlsx");
+        }
+        response.setContentType(sheetFormat.getContentType());
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"assessment-" + id + "-results." + sheetFormat.getExtension() + "\"");
+        // The sheet is finished only once every row is written; on an exception
+        // closing it leaves the download incomplete
+        try (SheetWriter sheet = sheetFormat.open(response.getOutputStream(), "Results")) {
+            resultExportService.export(id, sheet);
+            sheet.finish();
+        }
+        // Already written to the response
+        return null;
+    }
+
+    @GetMapping("/aggregates/{dimension}")
+    public List<AggregateSummary> getAggregates(@PathVariable String dimension) {
+        return resultAggregateService.getAggregates(dimension);
+    }
+
+    @PostMapping("/aggregates/rebuild")
+    public ResponseEntity<?> rebuildAggregates() {
+        resultAggregateService.rebuild();
+        return ResponseEntity.ok().build();
+    }
 }
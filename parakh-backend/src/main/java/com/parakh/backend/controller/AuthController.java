@@ -1,5 +1,8 @@
 package com.parakh.backend.controller;
 
+import com.parakh.backend.dto.LoginRequest;
+import com.parakh.backend.dto.LoginResponse;
+import com.parakh.backend.dto.RegisterRequest;
 import com.parakh.backend.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -9,9 +12,6 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.Map;
-
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = { "http://localhost:5173", "http://localhost:5174" })
@@ -30,9 +30,9 @@ public class AuthController {
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
 
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> payload) {
-        String email = payload.get("email");
-        String password = payload.get("password");
+    public ResponseEntity<?> login(@RequestBody LoginRequest payload) {
+        String email = payload.email();
+        String password = payload.password();
 
         System.out.println("Login attempt for: " + email);
 
@@ -56,14 +56,7 @@ public class AuthController {
 
             String token = jwtUtil.generateToken(userDetails.getUsername(), role);
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("role", role);
-            response.put("name", user.getName());
-            response.put("email", email);
-            response.put("status", user.getStatus());
-
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(new LoginResponse(token, role, user.getName(), email, user.getStatus()));
         } catch (Exception e) {
             System.out.println("Login failed for " + email + ": " + e.getMessage());
             e.printStackTrace();
@@ -72,16 +65,19 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody Map<String, String> payload) {
-        String email = payload.get("email");
+    public ResponseEntity<?> register(@RequestBody RegisterRequest payload) {
+        String email = payload.email();
+        if (email == null || payload.password() == null) {
+            return ResponseEntity.badRequest().body("Email and password are required");
+        }
         if (userRepository.findByEmail(email).isPresent()) {
             return ResponseEntity.badRequest().body("Email already exists");
         }
 
-        String name = payload.get("name");
-        String password = payload.get("password");
-        String role = payload.get("role");
-        String institution = payload.get("institution");
+        String name = payload.name();
+        String password = payload.password();
+        String role = payload.role();
+        String institution = payload.institution();
 
         com.parakh.backend.model.User user = new com.parakh.backend.model.User(
                 email,
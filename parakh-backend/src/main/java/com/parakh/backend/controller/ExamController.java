@@ -1,13 +1,15 @@
 package com.parakh.backend.controller;
 
 import com.parakh.backend.dto.ExamStateDTO;
+import com.parakh.backend.dto.FollowUpsResponse;
+import com.parakh.backend.dto.StartExamRequest;
+import com.parakh.backend.dto.SubmitAnswerRequest;
 import com.parakh.backend.service.ExamService;
+import com.parakh.backend.service.QuestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
-
 @RestController
 @RequestMapping("/api/exam")
 @CrossOrigin(origins = { "http://localhost:5173", "http://localhost:5174" })
@@ -16,19 +18,43 @@ public class ExamController {
     @Autowired
     private ExamService examService;
 
+    @Autowired
+    private QuestionIndex questionIndex;
+
     @PostMapping("/start")
-    public ResponseEntity<ExamStateDTO> startExam(@RequestBody Map<String, Object> payload) {
-        Long userId = Long.valueOf(payload.get("userId").toString());
-        String subject = payload.get("subject").toString();
-        return ResponseEntity.ok(examService.startExam(userId, subject));
+    public ResponseEntity<?> startExam(@RequestBody StartExamRequest payload) {
+        if (payload.userId() == null || payload.subject() == null) {
+            return ResponseEntity.badRequest().body("userId and subject are required");
+        }
+        return ResponseEntity.ok(examService.startExam(payload.userId(), payload.subject()));
     }
 
     @PostMapping("/submit")
-    public ResponseEntity<ExamStateDTO> submitAnswer(@RequestBody Map<String, Object> payload) {
-        Long examId = Long.valueOf(payload.get("examId").toString());
-        Long questionId = Long.valueOf(payload.get("questionId").toString());
-        String selectedOption = payload.get("selectedOption").toString();
+    public ResponseEntity<?> submitAnswer(@RequestBody SubmitAnswerRequest payload) {
+        Long examId = payload.examId();
+        Long questionId = payload.questionId();
+        String selectedOption = payload.selectedOption();
+        if (examId == null || questionId == null || selectedOption == null) {
+            return ResponseEntity.badRequest().body("examId, questionId and selectedOption are required");
+        }
+        if (!questionIndex.isOption(questionId, selectedOption)) {
+            return ResponseEntity.badRequest().body("selectedOption is not one of the question's options");
+        }
+
+        ExamStateDTO state = examService.submitAnswer(examId, questionId, selectedOption);
+        if (state.isPending()) {
+            return ResponseEntity.accepted().body(state);
+        }
+        // Speculative clients already hold the sealed follow-ups and only need the key
+        if (payload.speculative() && state.getNextQuestion() != null) {
+            return ResponseEntity.ok(state.withNextQuestionKey(examService.nextQuestionKey(examId, questionId, state)));
+        }
+        return ResponseEntity.ok(state);
+    }
 
-        return ResponseEntity.ok(examService.submitAnswer(examId, questionId, selectedOption));
+    // Fetched in the background while the student reads the question
+    @GetMapping("/{examId}/questions/{questionId}/follow-ups")
+    public FollowUpsResponse getFollowUps(@PathVariable Long examId, @PathVariable Long questionId) {
+        return new FollowUpsResponse(questionId, examService.sealFollowUps(examId, questionId));
     }
 }
@@ -0,0 +1,173 @@
+package com.parakh.backend.controller;
+
+import com.parakh.backend.dto.StartUploadRequest;
+import com.parakh.backend.dto.UploadStatus;
+import com.parakh.backend.model.StoredFile;
+import com.parakh.backend.model.User;
+import com.parakh.backend.repository.AssessmentRepository;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.repository.UserRepository;
+import com.parakh.backend.service.FileStorageService;
+import com.parakh.backend.storage.ByteRange;
+import com.parakh.backend.storage.FileSender;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Uploads go in chunks: POST /uploads to get an id, then PUT each chunk at the
+// offset the previous response (or GET /uploads/{id}) reported. Files are
+// addressed by their SHA-256, which doubles as a strong ETag. A file can be read
+// by whoever uploaded it, by the teacher and students of an assessment whose
+// paper it is, and by the student and teacher of an exam whose answer sheet it
+// is; to anyone else it does not exist.
+@RestController
+@RequestMapping("/api/files")
+@CrossOrigin(origins = { "http://localhost:5173", "http://localhost:5174" })
+public class FileController {
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private FileSender fileSender;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @PostMapping("/uploads")
+    public ResponseEntity<?> startUpload(@RequestBody StartUploadRequest payload, Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        try {
+            return ResponseEntity.ok(fileStorageService.startUpload(user.getId(), payload));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<?> getUpload(@PathVariable String id, Authentication authentication) throws IOException {
+        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        UploadStatus status = fileStorageService.getUpload(id, user.getId());
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Upload not found");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    // The body is the raw chunk (application/octet-stream)
+    @PutMapping("/uploads/{id}")
+    public ResponseEntity<?> uploadChunk(@PathVariable String id, @RequestParam long offset,
+            Authentication authentication, HttpServletRequest request) throws IOException {
+        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        UploadStatus status;
+        try {
+            status = fileStorageService.appendChunk(id, user.getId(), offset, request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            // Wrong offset or a concurrent chunk: the client re-reads the offset
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (status == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Upload not found");
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<?> cancelUpload(@PathVariable String id, Authentication authentication) throws IOException {
+        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        if (!fileStorageService.cancelUpload(id, user.getId())) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Upload not found");
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    // Also answers HEAD. Single byte ranges are honoured, guarded by If-Range.
+    @GetMapping("/{id}")
+    public ResponseEntity<?> download(@PathVariable String id, Authentication authentication,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        User user = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        Optional<StoredFile> found = fileStorageService.getFile(id).filter(file -> canRead(file, user));
+        Path blob = found.map(file -> fileStorageService.blobPath(file.getId())).orElse(null);
+        if (blob == null || !Files.exists(blob)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
+        }
+        StoredFile file = found.get();
+        String etag = "\"" + file.getId() + "\"";
+        long size = file.getSize();
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Content never changes under an id
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=31536000, immutable");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        ByteRange range = ifRange == null || ifRange.equals(etag)
+                ? ByteRange.parse(request.getHeader(HttpHeaders.RANGE), size)
+                : null;
+        if (range == ByteRange.UNSATISFIABLE) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size).build();
+        }
+
+        long start = range == null ? 0 : range.getStart();
+        long length = range == null ? size : range.getLength();
+        response.setStatus(range == null ? HttpServletResponse.SC_OK : HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (range != null) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE,
+                    "bytes " + range.getStart() + "-" + range.getEnd() + "/" + size);
+        }
+        response.setContentType(file.getContentType());
+        response.setContentLengthLong(length);
+        if (file.getFileName() != null) {
+            ContentDisposition disposition = ContentDisposition.inline()
+                    .filename(file.getFileName(), StandardCharsets.UTF_8).build();
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.toString());
+        }
+        if (!"HEAD".equals(request.getMethod()) && length > 0) {
+            fileSender.send(blob, start, length, request, response);
+        }
+        // Already written to the response
+        return null;
+    }
+
+    private boolean canRead(StoredFile file, User user) {
+        return "ADMIN".equals(user.getRole())
+                || fileStorageService.isUploader(file.getId(), user.getId())
+                || assessmentRepository.isPaperReadableBy("/api/files/" + file.getId(), user.getId())
+                || examRepository.isAnswerSheetReadableBy(file.getId(), user.getId());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(etag) || t.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
+}
@@ -1,5 +1,9 @@
 package com.parakh.backend.controller;
 
+import com.parakh.backend.service.WarmupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -10,8 +14,20 @@ import java.util.Map;
 @RequestMapping("/api")
 public class HealthController {
 
+    @Autowired
+    private WarmupService warmupService;
+
     @GetMapping("/health")
     public Map<String, String> health() {
         return Map.of("status", "OK", "message", "Backend is running");
     }
+
+    // Readiness probe: 503 until the startup warm-up has finished
+    @GetMapping("/health/ready")
+    public ResponseEntity<Map<String, Object>> ready() {
+        if (!warmupService.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(warmupService.getStatus());
+        }
+        return ResponseEntity.ok(warmupService.getStatus());
+    }
 }
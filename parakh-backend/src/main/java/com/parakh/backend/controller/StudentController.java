@@ -1,13 +1,35 @@
 package com.parakh.backend.controller;
 
+import com.parakh.backend.config.ReadReplicaRouter;
+import com.parakh.backend.dto.AnswerSheetView;
+import com.parakh.backend.dto.AttachAnswerSheetRequest;
+import com.parakh.backend.dto.BatchAnswer;
+import com.parakh.backend.dto.BatchUploadRequest;
+import com.parakh.backend.dto.BundleKey;
+import com.parakh.backend.dto.ClassroomView;
+import com.parakh.backend.dto.ExamStartResponse;
+import com.parakh.backend.dto.PaperLink;
+import com.parakh.backend.dto.StudentAssessmentRow;
+import com.parakh.backend.dto.StudentAssessmentView;
+import com.parakh.backend.dto.SubmitExamRequest;
 import com.parakh.backend.model.*;
 import com.parakh.backend.repository.*;
+import com.parakh.backend.service.ClassroomService;
+import com.parakh.backend.service.ContentVersions;
+import com.parakh.backend.service.ExamBundleService;
+import com.parakh.backend.service.ContentVersions.Domain;
+import com.parakh.backend.service.ExamService;
+import com.parakh.backend.service.FileStorageService;
+import com.parakh.backend.service.QuestionIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -31,46 +53,49 @@ public class StudentController {
     @Autowired
     private QuestionRepository questionRepository;
 
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private ExamBundleService examBundleService;
+
+    @Autowired
+    private QuestionIndex questionIndex;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
     @GetMapping("/classes")
-    public List<Classroom> getMyClasses(Authentication authentication) {
+    @Transactional(readOnly = true)
+    public List<ClassroomView> getMyClasses(Authentication authentication, WebRequest request) {
+        if (contentVersions.checkNotModified(request, authentication.getName(), contentVersions.get(Domain.CLASSES))) {
+            return null;
+        }
         User student = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return classroomRepository.findByStudentsId(student.getId());
+        return classroomService.toViews(classroomRepository.findByStudentsId(student.getId()));
     }
 
     @GetMapping("/assessments")
-    public List<Map<String, Object>> getMyAssessments(Authentication authentication) {
+    @Transactional(readOnly = true)
+    public List<StudentAssessmentView> getMyAssessments(Authentication authentication, WebRequest request) {
+        // The ETag needs the student's id, and the lookup would take the replica
+        ReadReplicaRouter.requirePrimary();
         User student = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        List<Classroom> classes = classroomRepository.findByStudentsId(student.getId());
-
-        List<Map<String, Object>> result = new ArrayList<>();
-
-        for (Classroom cls : classes) {
-            List<Assessment> assessments = assessmentRepository.findByClassroomId(cls.getId());
-            for (Assessment assessment : assessments) {
-                if (!"PUBLISHED".equals(assessment.getStatus()))
-                    continue;
-
-                Map<String, Object> map = new HashMap<>();
-                map.put("id", assessment.getId());
-                map.put("title", assessment.getTitle());
-                map.put("subject", assessment.getSubject());
-                map.put("classroom", cls.getName());
-                map.put("type", assessment.getType());
-                map.put("durationMinutes", assessment.getDurationMinutes());
-
-                // Check exam status
-                Optional<Exam> attempt = examRepository.findByUserIdAndAssessmentId(student.getId(),
-                        assessment.getId());
-                if (attempt.isPresent()) {
-                    map.put("status", attempt.get().getStatus());
-                    map.put("score", attempt.get().getScore());
-                    map.put("examId", attempt.get().getId());
-                } else {
-                    map.put("status", "PENDING");
-                }
-
-                result.add(map);
-            }
+        if (contentVersions.checkNotModified(request, authentication.getName(), contentVersions.get(Domain.CLASSES),
+                contentVersions.get(Domain.ASSESSMENTS), contentVersions.getExams(student.getId()))) {
+            return null;
+        }
+        List<StudentAssessmentView> result = new ArrayList<>();
+        for (StudentAssessmentRow row : assessmentRepository.findDashboardRows(student.getId())) {
+            result.add(new StudentAssessmentView(row.getId(), row.getTitle(), row.getSubject(), row.getClassroom(),
+                    row.getType(), row.getDurationMinutes(),
+                    row.getExamId() != null ? row.getExamStatus() : "PENDING", row.getScore(), row.getExamId()));
         }
         return result;
     }
@@ -80,64 +105,137 @@ public class StudentController {
         User student = userRepository.findByEmail(authentication.getName()).orElseThrow();
         Assessment assessment = assessmentRepository.findById(id).orElseThrow();
 
-        // Check if already exists
-        if (examRepository.findByUserIdAndAssessmentId(student.getId(), id).isPresent()) {
-            return ResponseEntity.badRequest().body("Exam already started or completed");
+        // A student whose exam was interrupted (lost connection, server restart)
+        // picks it up again; a finished one cannot be retaken
+        Optional<Exam> existing = examRepository.findByUserIdAndAssessmentId(student.getId(), id);
+        if (existing.isPresent()) {
+            return resumeExam(existing.get());
         }
 
-        Exam exam = new Exam();
-        exam.setUser(student);
-        exam.setAssessment(assessment);
-        exam.setSubject(assessment.getSubject() != null ? assessment.getSubject() : "General");
-        exam.setStartTime(LocalDateTime.now());
-        exam.setStatus("IN_PROGRESS");
-        exam.setScore(0);
+        Exam exam;
+        try {
+            exam = examService.startAssessmentExam(student, assessment);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent start for the same student and assessment won
+            return resumeExam(examRepository.findByUserIdAndAssessmentId(student.getId(), id).orElseThrow());
+        }
 
-        examRepository.save(exam);
+        return ResponseEntity.ok(new ExamStartResponse(exam.getId(), "Exam started"));
+    }
 
-        return ResponseEntity.ok(Map.of("examId", exam.getId(), "message", "Exam started"));
+    private ResponseEntity<?> resumeExam(Exam exam) {
+        if (!exam.getStatus().equals("IN_PROGRESS")) {
+            return ResponseEntity.badRequest().body("Exam already completed");
+        }
+        return ResponseEntity.ok(new ExamStartResponse(exam.getId(), "Exam resumed"));
     }
 
     @GetMapping("/exam/{id}/questions")
-    public ResponseEntity<?> getExamQuestions(@PathVariable Long id, Authentication authentication) {
-        Exam exam = examRepository.findById(id).orElseThrow();
+    public ResponseEntity<?> getExamQuestions(@PathVariable Long id, Authentication authentication,
+            WebRequest request) {
+        if (contentVersions.checkNotModified(request, authentication.getName(), contentVersions.get(Domain.QUESTIONS))) {
+            return null;
+        }
+        Exam exam = examRepository.findWithAssessmentById(id).orElseThrow();
         Assessment assessment = exam.getAssessment();
 
-        // MVP: Fetch random questions matching criteria
         List<Question> questions;
         if ("TOPIC".equals(assessment.getType())) {
-            questions = questionRepository.findBySubjectAndDifficulty(
-                    assessment.getSubject(),
-                    assessment.getDifficulty());
-            // Simple shuffle and limit
-            Collections.shuffle(questions);
-            if (questions.size() > assessment.getQuestionCount()) {
-                questions = questions.subList(0, assessment.getQuestionCount());
-            }
+            questions = examService.paperQuestions(exam);
         } else {
-            return ResponseEntity.ok(Map.of("type", "PDF", "url", assessment.getPdfUrl()));
+            return ResponseEntity.ok(new PaperLink("PDF", assessment.getPdfUrl()));
         }
 
-        return ResponseEntity.ok(questions);
+        // Students get the paper without the answer key
+        return ResponseEntity.ok(questions.stream().map(QuestionIndex::mask).toList());
+    }
+
+    // --- Offline mode: one bundle down, one signed batch of answers up ---
+
+    @GetMapping("/exam/{id}/bundle")
+    public ResponseEntity<?> getExamBundle(@PathVariable Long id, Authentication authentication) {
+        Exam exam = examRepository.findWithUserAndAssessmentById(id).orElseThrow();
+        if (!exam.getUser().getEmail().equals(authentication.getName())) {
+            return ResponseEntity.status(403).body("Not your exam");
+        }
+        if (!"IN_PROGRESS".equals(exam.getStatus())) {
+            return ResponseEntity.badRequest().body("Exam is no longer in progress: " + exam.getStatus());
+        }
+        ExamBundleService.Bundle bundle = examBundleService.buildBundle(exam);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header("X-Bundle-Signature", bundle.getSignature())
+                .body(bundle.getGzipped());
+    }
+
+    // Ed25519 public key (X.509, base64) that bundle signatures verify against
+    @GetMapping("/bundle-key")
+    public BundleKey getBundleKey() {
+        return new BundleKey("Ed25519", examBundleService.getPublicKey());
+    }
+
+    @PostMapping("/exam/{id}/batch")
+    public ResponseEntity<?> submitExamBatch(@PathVariable Long id, @RequestBody BatchUploadRequest payload,
+            Authentication authentication) {
+        Exam exam = examRepository.findWithUserAndAssessmentById(id).orElseThrow();
+        if (!exam.getUser().getEmail().equals(authentication.getName())) {
+            return ResponseEntity.status(403).body("Not your exam");
+        }
+        List<BatchAnswer> answers = payload.answers() != null ? payload.answers() : List.of();
+        for (BatchAnswer answer : answers) {
+            if (answer == null || answer.questionId() == null)
+                return ResponseEntity.badRequest().body("Each answer needs a questionId");
+            if (answer.selectedOption() != null
+                    && !questionIndex.isOption(answer.questionId(), answer.selectedOption()))
+                return ResponseEntity.badRequest()
+                        .body("Answer to question " + answer.questionId() + " is not one of its options");
+        }
+        if (!examBundleService.verifyBatch(id, answers, payload.signature())) {
+            return ResponseEntity.status(400).body("Invalid batch signature");
+        }
+        return ResponseEntity.ok(examService.submitBatch(id, answers));
+    }
+
+    // PDF exams: the scanned answer sheet, uploaded to the file store first
+    @PutMapping("/exam/{id}/answer-sheet")
+    public ResponseEntity<?> attachAnswerSheet(@PathVariable Long id, @RequestBody AttachAnswerSheetRequest payload,
+            Authentication authentication) {
+        Exam exam = examRepository.findWithUserAndAssessmentById(id).orElseThrow();
+        if (!exam.getUser().getEmail().equals(authentication.getName())) {
+            return ResponseEntity.status(403).body("Not your exam");
+        }
+        if (!"PDF".equals(exam.getAssessment().getType())) {
+            return ResponseEntity.badRequest().body("Only PDF assessments take an answer sheet");
+        }
+        StoredFile sheet = fileStorageService.getFile(payload.fileId()).orElse(null);
+        if (sheet == null || !fileStorageService.isUploader(sheet.getId(), exam.getUser().getId())) {
+            return ResponseEntity.badRequest().body("fileId must name a file you uploaded");
+        }
+        if (!examService.attachAnswerSheet(id, sheet.getId())) {
+            return ResponseEntity.badRequest().body("Exam is no longer in progress");
+        }
+        return ResponseEntity.ok(new AnswerSheetView(id, "/api/files/" + sheet.getId()));
     }
 
     @PostMapping("/exam/{id}/submit")
-    public ResponseEntity<?> submitExam(@PathVariable Long id, @RequestBody Map<String, Object> answers) {
+    public ResponseEntity<?> submitExam(@PathVariable Long id, @RequestBody SubmitExamRequest payload) {
         Exam exam = examRepository.findById(id).orElseThrow();
-        exam.setEndTime(LocalDateTime.now());
-        exam.setStatus("COMPLETED");
+        if (!"IN_PROGRESS".equals(exam.getStatus())) {
+            return ResponseEntity.badRequest().body("Exam is no longer in progress: " + exam.getStatus());
+        }
 
         // MVP: Calculate Score (Expecting { "qId": "selectedOption" })
         int score = 0;
         // Logic to calculate score would go here (fetch questions, compare answers)
         // For now, we will trust the frontend or mocked logic
 
-        if (answers.containsKey("score")) {
-            score = Integer.parseInt(answers.get("score").toString());
+        if (payload.score() != null) {
+            score = payload.score();
         }
 
-        exam.setScore(score);
-        examRepository.save(exam);
+        if (!examService.completeExam(exam.getId(), score)) {
+            return ResponseEntity.badRequest().body("Exam is no longer in progress");
+        }
 
         return ResponseEntity.ok("Exam submitted");
     }
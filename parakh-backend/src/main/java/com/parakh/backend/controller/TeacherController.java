@@ -1,22 +1,50 @@
 package com.parakh.backend.controller;
 
+import com.parakh.backend.dto.AddStudentRequest;
+import com.parakh.backend.dto.AssessmentAnalyticsView;
+import com.parakh.backend.dto.AssessmentView;
+import com.parakh.backend.dto.BulkEnrollRequest;
+import com.parakh.backend.dto.ClassMemberView;
+import com.parakh.backend.dto.ClassroomView;
+import com.parakh.backend.dto.CreateAssessmentRequest;
+import com.parakh.backend.dto.CreateClassRequest;
+import com.parakh.backend.dto.PageView;
+import com.parakh.backend.export.SheetFormat;
+import com.parakh.backend.export.SheetWriter;
 import com.parakh.backend.model.*;
 import com.parakh.backend.repository.*;
+import com.parakh.backend.service.ClassroomService;
+import com.parakh.backend.service.ContentVersions;
+import com.parakh.backend.service.ContentVersions.Domain;
+import com.parakh.backend.service.FileStorageService;
+import com.parakh.backend.service.ProctorService;
+import com.parakh.backend.service.ResultAggregateService;
+import com.parakh.backend.service.ResultExportService;
+import com.parakh.backend.service.TeacherAnalyticsService;
 import com.parakh.backend.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/api/teacher")
 @CrossOrigin(origins = { "http://localhost:5173", "http://localhost:5174" })
 public class TeacherController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Autowired
     private ClassroomRepository classroomRepository;
 
@@ -29,31 +57,68 @@ public class TeacherController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ClassroomService classroomService;
+
+    @Autowired
+    private TeacherAnalyticsService teacherAnalyticsService;
+
+    @Autowired
+    private ResultAggregateService resultAggregateService;
+
+    @Autowired
+    private ProctorService proctorService;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private ResultExportService resultExportService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
     // --- Classroom Management ---
 
     @GetMapping("/classes")
-    public List<Classroom> getMyClasses(Authentication authentication) {
+    @Transactional(readOnly = true)
+    public List<ClassroomView> getMyClasses(Authentication authentication) {
         User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return classroomRepository.findByTeacherId(teacher.getId());
+        return classroomService.toViews(classroomRepository.findByTeacherId(teacher.getId()));
     }
 
     @PostMapping("/classes")
-    public Classroom createClass(@RequestBody Classroom classroom, Authentication authentication) {
+    public ResponseEntity<?> createClass(@RequestBody CreateClassRequest payload, Authentication authentication) {
+        if (payload.name() == null || payload.subject() == null || payload.description() == null) {
+            return ResponseEntity.badRequest().body("name, subject and description are required");
+        }
         User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        classroom.setTeacher(teacher);
-        return classroomRepository.save(classroom);
+        Classroom saved = classroomRepository.save(
+                new Classroom(payload.name(), payload.subject(), payload.description(), teacher));
+        contentVersions.bump(Domain.CLASSES);
+        return ResponseEntity.ok(ClassroomView.of(saved, 0));
     }
 
     @GetMapping("/classes/{id}/students")
-    public Set<User> getClassStudents(@PathVariable Long id) {
-        Classroom classroom = classroomRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Class not found"));
-        return classroom.getStudents();
+    public ResponseEntity<?> getClassStudents(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size, Authentication authentication) {
+        if (!ownsClass(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Class not found");
+        }
+        Page<ClassMemberView> members = classroomRepository.findMembers(id,
+                PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE)));
+
+        return ResponseEntity.ok(PageView.of(members));
     }
 
     @PostMapping("/classes/{id}/students")
-    public ResponseEntity<?> addStudentToClass(@PathVariable Long id, @RequestBody Map<String, String> payload) {
-        String studentEmail = payload.get("email");
+    public ResponseEntity<?> addStudentToClass(@PathVariable Long id, @RequestBody AddStudentRequest payload,
+            Authentication authentication) {
+        if (!ownsClass(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Class not found");
+        }
+        String studentEmail = payload.email();
         Classroom classroom = classroomRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Class not found"));
         User student = userRepository.findByEmail(studentEmail)
@@ -65,42 +130,168 @@ public class TeacherController {
 
         classroom.getStudents().add(student);
         classroomRepository.save(classroom);
+        contentVersions.bump(Domain.CLASSES);
         return ResponseEntity.ok("Student added to class");
     }
 
+    @PostMapping("/classes/{id}/students/bulk")
+    public ResponseEntity<?> addStudentsToClass(@PathVariable Long id, @RequestBody BulkEnrollRequest payload,
+            Authentication authentication) {
+        if (!ownsClass(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Class not found");
+        }
+        List<String> emails = payload.emails();
+        if (emails == null || emails.isEmpty()) {
+            return ResponseEntity.badRequest().body("No emails provided");
+        }
+        return ResponseEntity.ok(classroomService.enrollStudents(id, emails));
+    }
+
+    @PostMapping("/classes/{id}/students/csv")
+    public ResponseEntity<?> uploadClassRoster(@PathVariable Long id, @RequestParam("file") MultipartFile file,
+            Authentication authentication) throws IOException {
+        if (!ownsClass(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Class not found");
+        }
+        List<String> emails = classroomService.parseEmailsFromCsv(file.getInputStream());
+        if (emails.isEmpty()) {
+            return ResponseEntity.badRequest().body("No emails found in file");
+        }
+        return ResponseEntity.ok(classroomService.enrollStudents(id, emails));
+    }
+
     // --- Assessment Management ---
 
     @GetMapping("/assessments")
-    public List<Assessment> getMyAssessments(Authentication authentication) {
+    @Transactional(readOnly = true)
+    public List<AssessmentView> getMyAssessments(Authentication authentication, WebRequest request) {
+        if (contentVersions.checkNotModified(request, authentication.getName(),
+                contentVersions.get(Domain.CLASSES), contentVersions.get(Domain.ASSESSMENTS))) {
+            return null;
+        }
         User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
-        return assessmentRepository.findByTeacherId(teacher.getId());
+        return assessmentRepository.findByTeacherId(teacher.getId()).stream().map(AssessmentView::new).toList();
     }
 
     @PostMapping("/assessments")
-    public Assessment createAssessment(@RequestBody Map<String, Object> payload, Authentication authentication) {
+    public ResponseEntity<?> createAssessment(@RequestBody CreateAssessmentRequest payload,
+            Authentication authentication) {
+        if (payload.classroomId() == null || payload.title() == null || payload.durationMinutes() == null) {
+            return ResponseEntity.badRequest().body("classroomId, title and durationMinutes are required");
+        }
+        if ("TOPIC".equals(payload.type()) && payload.questionCount() == null) {
+            return ResponseEntity.badRequest().body("questionCount is required for topic assessments");
+        }
         User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
-
-        Long classroomId = Long.valueOf(payload.get("classroomId").toString());
-        Classroom classroom = classroomRepository.findById(classroomId).orElseThrow();
+        Classroom classroom = classroomRepository.findById(payload.classroomId()).orElseThrow();
 
         Assessment assessment = new Assessment();
-        assessment.setTitle((String) payload.get("title"));
+        assessment.setTitle(payload.title());
         assessment.setClassroom(classroom);
         assessment.setTeacher(teacher);
-        assessment.setType((String) payload.get("type")); // "TOPIC" or "PDF"
-        assessment.setDurationMinutes(Integer.valueOf(payload.get("durationMinutes").toString()));
+        assessment.setType(payload.type()); // "TOPIC" or "PDF"
+        assessment.setDurationMinutes(payload.durationMinutes());
         assessment.setStatus("PUBLISHED"); // For MVP, auto-publish
 
         if ("TOPIC".equals(assessment.getType())) {
-            assessment.setSubject((String) payload.get("subject"));
-            assessment.setTopic((String) payload.get("topic")); // Can be null if generic
-            assessment.setDifficulty((String) payload.get("difficulty"));
-            assessment.setQuestionCount(Integer.valueOf(payload.get("questionCount").toString()));
+            assessment.setSubject(payload.subject());
+            assessment.setTopic(payload.topic()); // Can be null if generic
+            assessment.setDifficulty(payload.difficulty());
+            assessment.setQuestionCount(payload.questionCount());
         } else {
-            // PDF Mode
-            assessment.setPdfUrl("placeholder.pdf");
+            // PDF Mode: the teacher uploaded the paper to the file store first
+            StoredFile paper = fileStorageService.getFile(payload.pdfFileId()).orElse(null);
+            if (paper == null || !"application/pdf".equals(paper.getContentType())
+                    || !fileStorageService.isUploader(paper.getId(), teacher.getId())) {
+                return ResponseEntity.badRequest().body("pdfFileId must name a PDF you uploaded");
+            }
+            assessment.setPdfUrl("/api/files/" + paper.getId());
         }
 
-        return assessmentRepository.save(assessment);
+        Assessment saved = assessmentRepository.save(assessment);
+        contentVersions.bump(Domain.ASSESSMENTS);
+        return ResponseEntity.ok(new AssessmentView(saved));
+    }
+
+    // --- Live Proctoring ---
+
+    @GetMapping(value = "/assessments/{id}/live", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> watchAssessment(@PathVariable Long id, Authentication authentication) {
+        if (!ownsAssessment(id, authentication)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(proctorService.subscribe(id));
+    }
+
+    // --- Analytics ---
+
+    @GetMapping("/analytics")
+    public List<AssessmentAnalyticsView> getMyAnalytics(Authentication authentication) {
+        User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        return teacherAnalyticsService.getTeacherAnalytics(teacher.getId());
+    }
+
+    @GetMapping("/assessments/{id}/analytics")
+    public ResponseEntity<?> getAssessmentAnalytics(@PathVariable Long id, Authentication authentication) {
+        if (!ownsAssessment(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Assessment not found");
+        }
+        return ResponseEntity.ok(teacherAnalyticsService.getAssessmentAnalytics(id));
+    }
+
+    // Result sheet of one of the teacher's assessments, streamed as it is read
+    @GetMapping("/assessments/{id}/results")
+    public ResponseEntity<?> exportResults(@PathVariable Long id, @RequestParam(defaultValue = "csv") String format,
+            Authentication authentication, HttpServletResponse response) throws IOException {
+        if (!ownsAssessment(id, authentication)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Assessment not found");
+        }
+        SheetFormat sheetFormat = SheetFormat.of(format);
+        if (sheetFormat == null) {
+            return ResponseEntity.badRequest().body("format must be csv or xlsx");
+        }
+        response.setContentType(sheetFormat.getContentType());
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"assessment-" + id + "-results." + sheetFormat.getExtension() + "\"");
+        // The sheet is finished only once every row is written; on an exception
+        // closing it leaves the download incomplete
+        try (SheetWriter sheet = sheetFormat.open(response.getOutputStream(), "Results")) {
+            resultExportService.export(id, sheet);
+            sheet.finish();
+        }
+        // Already written to the response
+        return null;
+    }
+
+    // Class and assessment aggregates are the owning teacher's; subject and
+    // topic ones pool every class
+    @GetMapping("/aggregates/{dimension}/{key}")
+    public ResponseEntity<?> getAggregate(@PathVariable String dimension, @PathVariable String key,
+            Authentication authentication) {
+        String d = dimension.toUpperCase();
+        if (d.equals(ResultAggregateService.CLASSROOM) || d.equals(ResultAggregateService.ASSESSMENT)) {
+            Long id;
+            try {
+                id = Long.valueOf(key);
+            } catch (NumberFormatException e) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aggregate not found");
+            }
+            boolean owned = d.equals(ResultAggregateService.CLASSROOM) ? ownsClass(id, authentication)
+                    : ownsAssessment(id, authentication);
+            if (!owned) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Aggregate not found");
+            }
+        }
+        return ResponseEntity.ok(resultAggregateService.getAggregate(dimension, key));
+    }
+
+    private boolean ownsClass(Long classroomId, Authentication authentication) {
+        User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        return classroomRepository.existsByIdAndTeacherId(classroomId, teacher.getId());
+    }
+
+    private boolean ownsAssessment(Long assessmentId, Authentication authentication) {
+        User teacher = userRepository.findByEmail(authentication.getName()).orElseThrow();
+        return assessmentRepository.findIdsByTeacherId(teacher.getId()).contains(assessmentId);
     }
 }
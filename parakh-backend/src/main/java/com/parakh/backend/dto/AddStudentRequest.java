@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/teacher/classes/{id}/students
+public record AddStudentRequest(String email) {
+}
@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Score and time statistics of one aggregate (class, assessment, subject or topic)
+public record AggregateSummary(String dimension, String key, long count, double scoreMean, double scoreStdDev,
+        double timeMeanSeconds, double timeStdDevSeconds) {
+}
@@ -0,0 +1,4 @@
+package com.parakh.backend.dto;
+
+public record AnswerSheetView(Long examId, String answerSheetUrl) {
+}
@@ -0,0 +1,14 @@
+package com.parakh.backend.dto;
+
+import java.time.LocalDateTime;
+
+// A completed exam with what analytics needs to read its archived responses
+public interface ArchivedExamRow {
+    Long getExamId();
+
+    Long getStudentId();
+
+    String getStudentName();
+
+    LocalDateTime getStartTime();
+}
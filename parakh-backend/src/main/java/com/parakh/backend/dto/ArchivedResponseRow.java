@@ -0,0 +1,51 @@
+package com.parakh.backend.dto;
+
+// ResponseAnalyticsRow for a response read back from the archive
+public class ArchivedResponseRow implements ResponseAnalyticsRow {
+    private final Long examId;
+    private final Long studentId;
+    private final String studentName;
+    private final Long questionId;
+    private final String topic;
+    private final Boolean isCorrect;
+    private final Long timeTakenSeconds;
+
+    public ArchivedResponseRow(Long examId, Long studentId, String studentName, Long questionId, String topic,
+            Boolean isCorrect, Long timeTakenSeconds) {
+        this.examId = examId;
+        this.studentId = studentId;
+        this.studentName = studentName;
+        this.questionId = questionId;
+        this.topic = topic;
+        this.isCorrect = isCorrect;
+        this.timeTakenSeconds = timeTakenSeconds;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public String getStudentName() {
+        return studentName;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Boolean getIsCorrect() {
+        return isCorrect;
+    }
+
+    public Long getTimeTakenSeconds() {
+        return timeTakenSeconds;
+    }
+}
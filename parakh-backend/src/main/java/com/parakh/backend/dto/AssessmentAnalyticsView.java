@@ -0,0 +1,24 @@
+package com.parakh.backend.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Analytics of one assessment's completed exams. Score min and max are null
+// until an exam completes; a question's avgTimeSeconds until one is timed.
+public record AssessmentAnalyticsView(Long assessmentId, long completedExams, Scores scores,
+        List<QuestionStats> questions, List<StudentMastery> topicMastery) {
+
+    // histogram has ten buckets over the percentage of the maximum score
+    public record Scores(double mean, double stdDev, Integer min, Integer max, Map<Integer, Long> distribution,
+            long[] histogram) {
+    }
+
+    public record QuestionStats(Long questionId, long attempts, double correctRate, Double avgTimeSeconds) {
+    }
+
+    public record StudentMastery(Long studentId, String name, Map<String, TopicMastery> topics) {
+    }
+
+    public record TopicMastery(long attempts, double mastery) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.parakh.backend.dto;
+
+import com.parakh.backend.model.Assessment;
+
+import java.time.LocalDateTime;
+
+// An assessment as its teacher sees it, with the class reduced to id and name
+public class AssessmentView {
+    private final Long id;
+    private final String title;
+    private final ClassRef classroom;
+    private final String type;
+    private final String subject;
+    private final String topic;
+    private final String difficulty;
+    private final Integer questionCount;
+    private final String pdfUrl;
+    private final Integer durationMinutes;
+    private final LocalDateTime createdAt;
+    private final String status;
+
+    public AssessmentView(Assessment assessment) {
+        this.id = assessment.getId();
+        this.title = assessment.getTitle();
+        this.classroom = new ClassRef(assessment.getClassroom().getId(), assessment.getClassroom().getName());
+        this.type = assessment.getType();
+        this.subject = assessment.getSubject();
+        this.topic = assessment.getTopic();
+        this.difficulty = assessment.getDifficulty();
+        this.questionCount = assessment.getQuestionCount();
+        this.pdfUrl = assessment.getPdfUrl();
+        this.durationMinutes = assessment.getDurationMinutes();
+        this.createdAt = assessment.getCreatedAt();
+        this.status = assessment.getStatus();
+    }
+
+    public static class ClassRef {
+        private final Long id;
+        private final String name;
+
+        public ClassRef(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public ClassRef getClassroom() {
+        return classroom;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public String getDifficulty() {
+        return difficulty;
+    }
+
+    public Integer getQuestionCount() {
+        return questionCount;
+    }
+
+    public String getPdfUrl() {
+        return pdfUrl;
+    }
+
+    public Integer getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
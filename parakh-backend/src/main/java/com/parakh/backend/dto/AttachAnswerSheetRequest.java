@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of PUT /api/student/exam/{id}/answer-sheet
+public record AttachAnswerSheetRequest(String fileId) {
+}
@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// One answer in an offline batch upload
+public record BatchAnswer(Long questionId, String selectedOption, Long timeTakenSeconds) {
+}
@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Outcome of an offline batch upload; a repeated upload gets the same summary
+public record BatchSummary(Long examId, String status, Integer currentScore, int totalQuestionsAnswered,
+        int gradedNow) {
+}
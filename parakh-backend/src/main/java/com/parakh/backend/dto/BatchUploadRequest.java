@@ -0,0 +1,7 @@
+package com.parakh.backend.dto;
+
+import java.util.List;
+
+// Answers recorded offline, signed with the key from the exam bundle
+public record BatchUploadRequest(List<BatchAnswer> answers, String signature) {
+}
@@ -0,0 +1,7 @@
+package com.parakh.backend.dto;
+
+import java.util.List;
+
+// Body of POST /api/teacher/classes/{id}/students/bulk
+public record BulkEnrollRequest(List<String> emails) {
+}
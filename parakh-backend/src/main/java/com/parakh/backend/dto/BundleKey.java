@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Public key that verifies the signature on exam bundles
+public record BundleKey(String algorithm, String publicKey) {
+}
@@ -0,0 +1,32 @@
+package com.parakh.backend.dto;
+
+// What the JWT filter needs to know about a user, cached per email. Never
+// carries the password hash.
+public class CachedPrincipal {
+    private String email;
+    private String role;
+
+    public CachedPrincipal() {
+    }
+
+    public CachedPrincipal(String email, String role) {
+        this.email = email;
+        this.role = role;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
@@ -0,0 +1,12 @@
+package com.parakh.backend.dto;
+
+// Projection over class_students joined to users; never exposes password hashes
+public interface ClassMemberView {
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+
+    Integer getLatestScore();
+}
@@ -0,0 +1,52 @@
+package com.parakh.backend.dto;
+
+import com.parakh.backend.model.Classroom;
+
+// A class without its roster; members are paged from /classes/{id}/students
+public class ClassroomView {
+    private final Long id;
+    private final String name;
+    private final String subject;
+    private final String description;
+    private final UserView teacher;
+    private final long studentCount;
+
+    public ClassroomView(Long id, String name, String subject, String description, UserView teacher,
+            long studentCount) {
+        this.id = id;
+        this.name = name;
+        this.subject = subject;
+        this.description = description;
+        this.teacher = teacher;
+        this.studentCount = studentCount;
+    }
+
+    public static ClassroomView of(Classroom classroom, long studentCount) {
+        return new ClassroomView(classroom.getId(), classroom.getName(), classroom.getSubject(),
+                classroom.getDescription(), UserView.of(classroom.getTeacher()), studentCount);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public UserView getTeacher() {
+        return teacher;
+    }
+
+    public long getStudentCount() {
+        return studentCount;
+    }
+}
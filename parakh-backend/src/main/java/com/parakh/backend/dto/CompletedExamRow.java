@@ -0,0 +1,19 @@
+package com.parakh.backend.dto;
+
+import java.time.LocalDateTime;
+
+public interface CompletedExamRow {
+    Long getExamId();
+
+    Long getAssessmentId();
+
+    Long getClassroomId();
+
+    String getSubject();
+
+    Integer getScore();
+
+    LocalDateTime getStartTime();
+
+    LocalDateTime getEndTime();
+}
@@ -0,0 +1,8 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/teacher/assessments. Subject, topic, difficulty and
+// questionCount only apply to TOPIC assessments; pdfFileId, the uploaded
+// paper in the file store, only to PDF ones.
+public record CreateAssessmentRequest(Long classroomId, String title, String type, Integer durationMinutes,
+        String subject, String topic, String difficulty, Integer questionCount, String pdfFileId) {
+}
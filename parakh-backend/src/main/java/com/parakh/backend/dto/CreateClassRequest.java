@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/teacher/classes; the teacher is the caller
+public record CreateClassRequest(String name, String subject, String description) {
+}
@@ -0,0 +1,8 @@
+package com.parakh.backend.dto;
+
+import java.util.List;
+
+// Outcome of a bulk enrolment, one list of emails per outcome
+public record EnrollmentResult(List<String> enrolled, List<String> alreadyEnrolled, List<String> notFound,
+        List<String> notStudents) {
+}
@@ -0,0 +1,17 @@
+package com.parakh.backend.dto;
+
+import java.time.LocalDateTime;
+
+public interface ExamDeadlineRow {
+    Long getExamId();
+
+    Long getAssessmentId();
+
+    Long getUserId();
+
+    Integer getScore();
+
+    LocalDateTime getStartTime();
+
+    Integer getDurationMinutes();
+}
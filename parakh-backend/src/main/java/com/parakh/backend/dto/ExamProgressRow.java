@@ -0,0 +1,13 @@
+package com.parakh.backend.dto;
+
+public interface ExamProgressRow {
+    Long getExamId();
+
+    Long getStudentId();
+
+    String getStudentName();
+
+    String getStatus();
+
+    Integer getScore();
+}
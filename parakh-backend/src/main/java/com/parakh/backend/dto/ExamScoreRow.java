@@ -0,0 +1,7 @@
+package com.parakh.backend.dto;
+
+public interface ExamScoreRow {
+    Long getExamId();
+
+    Integer getScore();
+}
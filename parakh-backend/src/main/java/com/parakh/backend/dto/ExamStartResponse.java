@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Answer to starting or resuming an assessment
+public record ExamStartResponse(Long examId, String message) {
+}
@@ -1,5 +1,6 @@
 package com.parakh.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.parakh.backend.model.Question;
 
 public class ExamStateDTO {
@@ -8,6 +9,13 @@ public class ExamStateDTO {
     private boolean examCompleted;
     private Integer currentScore;
     private Integer totalQuestionsAnswered;
+    // Speculative mode: opens the sealed follow-up in place of nextQuestion
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextQuestionKey;
+    // The answer is journaled but not graded yet (the database is unreachable);
+    // the client submits it again to get the graded state
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean pending;
 
     public ExamStateDTO(Long examId, Question nextQuestion, boolean examCompleted, Integer currentScore,
             Integer totalQuestionsAnswered) {
@@ -18,6 +26,19 @@ public class ExamStateDTO {
         this.totalQuestionsAnswered = totalQuestionsAnswered;
     }
 
+    // The same state with the key to a sealed follow-up instead of the question
+    public ExamStateDTO withNextQuestionKey(String nextQuestionKey) {
+        ExamStateDTO state = new ExamStateDTO(examId, null, examCompleted, currentScore, totalQuestionsAnswered);
+        state.nextQuestionKey = nextQuestionKey;
+        return state;
+    }
+
+    public static ExamStateDTO pending(Long examId) {
+        ExamStateDTO state = new ExamStateDTO(examId, null, false, null, null);
+        state.pending = true;
+        return state;
+    }
+
     // Getters
     public Long getExamId() {
         return examId;
@@ -38,4 +59,12 @@ public class ExamStateDTO {
     public Integer getTotalQuestionsAnswered() {
         return totalQuestionsAnswered;
     }
+
+    public String getNextQuestionKey() {
+        return nextQuestionKey;
+    }
+
+    public boolean isPending() {
+        return pending;
+    }
 }
@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Topic totals of one exam's responses
+public interface ExamTopicTotalsRow extends TopicTotalsRow {
+    Long getExamId();
+}
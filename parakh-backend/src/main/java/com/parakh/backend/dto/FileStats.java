@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Content-addressed file store and how this instance sent downloads
+public record FileStats(long files, long bytes, long uploadsInProgress, long sendfileResponses, long sendfileBytes,
+        long copiedResponses, long copiedBytes) {
+}
@@ -0,0 +1,22 @@
+package com.parakh.backend.dto;
+
+import java.util.List;
+
+// Both possible next questions after questionId, sealed under keys handed out on submit
+public class FollowUpsResponse {
+    private final Long questionId;
+    private final List<String> sealed;
+
+    public FollowUpsResponse(Long questionId, List<String> sealed) {
+        this.questionId = questionId;
+        this.sealed = sealed;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public List<String> getSealed() {
+        return sealed;
+    }
+}
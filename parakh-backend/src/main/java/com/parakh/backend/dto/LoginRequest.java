@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/auth/login
+public record LoginRequest(String email, String password) {
+}
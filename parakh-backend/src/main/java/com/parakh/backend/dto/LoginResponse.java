@@ -0,0 +1,37 @@
+package com.parakh.backend.dto;
+
+public class LoginResponse {
+    private final String token;
+    private final String role;
+    private final String name;
+    private final String email;
+    private final String status;
+
+    public LoginResponse(String token, String role, String name, String email, String status) {
+        this.token = token;
+        this.role = role;
+        this.name = name;
+        this.email = email;
+        this.status = status;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,14 @@
+package com.parakh.backend.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+// One page of a list, with what the client needs to page through the rest
+public record PageView<T>(List<T> content, int page, int size, long totalElements, int totalPages) {
+
+    public static <T> PageView<T> of(Page<T> page) {
+        return new PageView<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements(),
+                page.getTotalPages());
+    }
+}
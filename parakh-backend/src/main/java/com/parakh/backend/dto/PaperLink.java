@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Questions of a PDF exam: the paper in the file store
+public record PaperLink(String type, String url) {
+}
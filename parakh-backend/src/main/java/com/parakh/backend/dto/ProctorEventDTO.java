@@ -0,0 +1,50 @@
+package com.parakh.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class ProctorEventDTO {
+    private final String type; // "STARTED", "ANSWERED", "COMPLETED", "TIMED_OUT"
+    private final Long examId;
+    private final Long studentId;
+    private final Integer score;
+    private final Integer answered;
+    private final long timestamp;
+
+    public ProctorEventDTO(String type, Long examId, Long studentId, Integer score, Integer answered) {
+        this.type = type;
+        this.examId = examId;
+        this.studentId = studentId;
+        this.score = score;
+        this.answered = answered;
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getStudentId() {
+        return studentId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Integer getAnswered() {
+        return answered;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return "COMPLETED".equals(type) || "TIMED_OUT".equals(type);
+    }
+}
@@ -0,0 +1,23 @@
+package com.parakh.backend.dto;
+
+import com.parakh.backend.model.Question;
+
+// Body of the admin question endpoints. Ids and usage counts are never taken
+// from the client; version is only used by updates to detect conflicting edits.
+public record QuestionRequest(String content, String optionA, String optionB, String optionC, String optionD,
+        String correctOption, String subject, String difficulty, String topic, Long version) {
+
+    public Question toQuestion() {
+        Question question = new Question();
+        question.setContent(content);
+        question.setOptionA(optionA);
+        question.setOptionB(optionB);
+        question.setOptionC(optionC);
+        question.setOptionD(optionD);
+        question.setCorrectOption(correctOption);
+        question.setSubject(subject);
+        question.setDifficulty(difficulty);
+        question.setTopic(topic);
+        return question;
+    }
+}
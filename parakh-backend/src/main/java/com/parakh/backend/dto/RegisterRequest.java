@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/auth/register
+public record RegisterRequest(String email, String password, String name, String role, String institution) {
+}
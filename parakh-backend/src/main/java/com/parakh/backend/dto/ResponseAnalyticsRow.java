@@ -0,0 +1,18 @@
+package com.parakh.backend.dto;
+
+// Flat row of one student response with the fields analytics needs
+public interface ResponseAnalyticsRow {
+    Long getExamId();
+
+    Long getStudentId();
+
+    String getStudentName();
+
+    Long getQuestionId();
+
+    String getTopic();
+
+    Boolean getIsCorrect();
+
+    Long getTimeTakenSeconds();
+}
@@ -0,0 +1,9 @@
+package com.parakh.backend.dto;
+
+public interface SessionResponseRow {
+    Long getQuestionId();
+
+    Boolean getIsCorrect();
+
+    Long getNextQuestionId();
+}
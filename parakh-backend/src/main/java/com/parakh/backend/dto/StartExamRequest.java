@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/exam/start
+public record StartExamRequest(Long userId, String subject) {
+}
@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/files/uploads. sha256 (hex) is optional; when given, the
+// upload is checked against it, and bytes this user already stored are not sent.
+public record StartUploadRequest(String fileName, String contentType, Long size, String sha256) {
+}
@@ -0,0 +1,40 @@
+package com.parakh.backend.dto;
+
+import com.parakh.backend.model.StoredFile;
+
+// A stored file and where to download it
+public class StoredFileView {
+    private final String id;
+    private final Long size;
+    private final String contentType;
+    private final String fileName;
+    private final String url;
+
+    public StoredFileView(StoredFile file) {
+        this.id = file.getId();
+        this.size = file.getSize();
+        this.contentType = file.getContentType();
+        this.fileName = file.getFileName();
+        this.url = "/api/files/" + file.getId();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
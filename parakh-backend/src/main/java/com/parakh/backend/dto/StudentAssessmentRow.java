@@ -0,0 +1,23 @@
+package com.parakh.backend.dto;
+
+// A published assessment in one of the student's classes with their attempt,
+// if any; exam columns are null before the student starts
+public interface StudentAssessmentRow {
+    Long getId();
+
+    String getTitle();
+
+    String getSubject();
+
+    String getClassroom();
+
+    String getType();
+
+    Integer getDurationMinutes();
+
+    Long getExamId();
+
+    String getExamStatus();
+
+    Integer getScore();
+}
@@ -0,0 +1,68 @@
+package com.parakh.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// A published assessment on the student dashboard with the student's attempt.
+// score and examId are left out until the student has started.
+public class StudentAssessmentView {
+    private final Long id;
+    private final String title;
+    private final String subject;
+    private final String classroom;
+    private final String type;
+    private final Integer durationMinutes;
+    private final String status;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Integer score;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private final Long examId;
+
+    public StudentAssessmentView(Long id, String title, String subject, String classroom, String type,
+            Integer durationMinutes, String status, Integer score, Long examId) {
+        this.id = id;
+        this.title = title;
+        this.subject = subject;
+        this.classroom = classroom;
+        this.type = type;
+        this.durationMinutes = durationMinutes;
+        this.status = status;
+        this.score = score;
+        this.examId = examId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getClassroom() {
+        return classroom;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+}
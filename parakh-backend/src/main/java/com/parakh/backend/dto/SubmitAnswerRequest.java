@@ -0,0 +1,6 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/exam/submit. With speculative set the client answers with
+// the key to a sealed follow-up instead of the next question.
+public record SubmitAnswerRequest(Long examId, Long questionId, String selectedOption, boolean speculative) {
+}
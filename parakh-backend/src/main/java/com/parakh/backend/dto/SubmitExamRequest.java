@@ -0,0 +1,5 @@
+package com.parakh.backend.dto;
+
+// Body of POST /api/student/exam/{id}/submit
+public record SubmitExamRequest(Integer score) {
+}
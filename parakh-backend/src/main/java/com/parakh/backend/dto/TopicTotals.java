@@ -0,0 +1,50 @@
+package com.parakh.backend.dto;
+
+// TopicTotalsRow summed outside the database, e.g. over archived responses
+public class TopicTotals implements TopicTotalsRow {
+    private final String topic;
+    private long responses;
+    private long correct;
+    private long timeCount;
+    private long timeSum;
+    private long timeSumOfSquares;
+
+    public TopicTotals(String topic) {
+        this.topic = topic;
+    }
+
+    public void add(boolean isCorrect, Long timeTakenSeconds) {
+        responses++;
+        if (isCorrect)
+            correct++;
+        if (timeTakenSeconds != null) {
+            timeCount++;
+            timeSum += timeTakenSeconds;
+            timeSumOfSquares += timeTakenSeconds * timeTakenSeconds;
+        }
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public Long getResponses() {
+        return responses;
+    }
+
+    public Long getCorrect() {
+        return correct;
+    }
+
+    public Long getTimeCount() {
+        return timeCount;
+    }
+
+    public Long getTimeSum() {
+        return timeSum;
+    }
+
+    public Long getTimeSumOfSquares() {
+        return timeSumOfSquares;
+    }
+}
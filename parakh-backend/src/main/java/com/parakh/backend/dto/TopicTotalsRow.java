@@ -0,0 +1,15 @@
+package com.parakh.backend.dto;
+
+public interface TopicTotalsRow {
+    String getTopic();
+
+    Long getResponses();
+
+    Long getCorrect();
+
+    Long getTimeCount();
+
+    Long getTimeSum();
+
+    Long getTimeSumOfSquares();
+}
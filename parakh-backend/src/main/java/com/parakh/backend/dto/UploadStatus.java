@@ -0,0 +1,37 @@
+package com.parakh.backend.dto;
+
+// Where a resumable upload stands: send the next chunk at offset. Once every
+// byte is in, file is the stored result and the upload id is gone.
+public class UploadStatus {
+    private final String uploadId;
+    private final long offset;
+    private final long size;
+    private final StoredFileView file;
+
+    public UploadStatus(String uploadId, long offset, long size, StoredFileView file) {
+        this.uploadId = uploadId;
+        this.offset = offset;
+        this.size = size;
+        this.file = file;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public boolean isComplete() {
+        return file != null;
+    }
+
+    public StoredFileView getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,51 @@
+package com.parakh.backend.dto;
+
+import com.parakh.backend.model.User;
+
+// A user as other users see it; never carries the password hash
+public class UserView {
+    private final Long id;
+    private final String email;
+    private final String name;
+    private final String role;
+    private final String status;
+    private final String institution;
+
+    public UserView(Long id, String email, String name, String role, String status, String institution) {
+        this.id = id;
+        this.email = email;
+        this.name = name;
+        this.role = role;
+        this.status = status;
+        this.institution = institution;
+    }
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getEmail(), user.getName(), user.getRole(), user.getStatus(),
+                user.getInstitution());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getInstitution() {
+        return institution;
+    }
+}
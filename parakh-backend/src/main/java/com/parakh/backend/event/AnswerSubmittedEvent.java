@@ -0,0 +1,50 @@
+package com.parakh.backend.event;
+
+public class AnswerSubmittedEvent {
+    private final Long examId;
+    private final Long assessmentId;
+    private final Long userId;
+    private final Long questionId;
+    private final boolean correct;
+    private final Integer score;
+    private final Integer answered;
+
+    public AnswerSubmittedEvent(Long examId, Long assessmentId, Long userId, Long questionId, boolean correct,
+            Integer score, Integer answered) {
+        this.examId = examId;
+        this.assessmentId = assessmentId;
+        this.userId = userId;
+        this.questionId = questionId;
+        this.correct = correct;
+        this.score = score;
+        this.answered = answered;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getAssessmentId() {
+        return assessmentId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public boolean isCorrect() {
+        return correct;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Integer getAnswered() {
+        return answered;
+    }
+}
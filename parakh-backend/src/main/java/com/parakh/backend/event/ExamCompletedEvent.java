@@ -0,0 +1,51 @@
+package com.parakh.backend.event;
+
+// Published once an exam has been persisted as COMPLETED
+public class ExamCompletedEvent {
+    private final Long examId;
+    private final Long assessmentId;
+    private final Long classroomId;
+    private final Long userId;
+    private final String subject;
+    private final Integer score;
+    private final Long durationSeconds;
+
+    public ExamCompletedEvent(Long examId, Long assessmentId, Long classroomId, Long userId, String subject,
+            Integer score, Long durationSeconds) {
+        this.examId = examId;
+        this.assessmentId = assessmentId;
+        this.classroomId = classroomId;
+        this.userId = userId;
+        this.subject = subject;
+        this.score = score;
+        this.durationSeconds = durationSeconds;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getAssessmentId() {
+        return assessmentId;
+    }
+
+    public Long getClassroomId() {
+        return classroomId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public Long getDurationSeconds() {
+        return durationSeconds;
+    }
+}
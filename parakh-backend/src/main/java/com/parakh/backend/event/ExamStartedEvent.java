@@ -0,0 +1,40 @@
+package com.parakh.backend.event;
+
+import java.time.LocalDateTime;
+
+public class ExamStartedEvent {
+    private final Long examId;
+    private final Long assessmentId;
+    private final Long userId;
+    private final LocalDateTime startTime;
+    private final Integer durationMinutes; // null when the exam has no assessment
+
+    public ExamStartedEvent(Long examId, Long assessmentId, Long userId, LocalDateTime startTime,
+            Integer durationMinutes) {
+        this.examId = examId;
+        this.assessmentId = assessmentId;
+        this.userId = userId;
+        this.startTime = startTime;
+        this.durationMinutes = durationMinutes;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getAssessmentId() {
+        return assessmentId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public Integer getDurationMinutes() {
+        return durationMinutes;
+    }
+}
@@ -0,0 +1,32 @@
+package com.parakh.backend.event;
+
+// Published when the expiry scheduler terminates an exam that ran past its deadline
+public class ExamTimedOutEvent {
+    private final Long examId;
+    private final Long assessmentId;
+    private final Long userId;
+    private final Integer score;
+
+    public ExamTimedOutEvent(Long examId, Long assessmentId, Long userId, Integer score) {
+        this.examId = examId;
+        this.assessmentId = assessmentId;
+        this.userId = userId;
+        this.score = score;
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public Long getAssessmentId() {
+        return assessmentId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+}
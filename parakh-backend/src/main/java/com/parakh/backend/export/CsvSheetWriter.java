@@ -0,0 +1,66 @@
+package com.parakh.backend.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// RFC 4180 CSV with a UTF-8 byte order mark, so Excel picks the right encoding
+// for names in Indian scripts
+public class CsvSheetWriter implements SheetWriter {
+
+    private final Writer out;
+    private boolean finished;
+
+    public CsvSheetWriter(OutputStream stream) throws IOException {
+        out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+        out.write('\uFEFF');
+    }
+
+    @Override
+    public void writeRow(Object[] cells) throws IOException {
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0)
+                out.write(',');
+            Object cell = cells[i];
+            if (cell instanceof Number) {
+                out.write(cell.toString());
+            } else if (cell != null) {
+                writeText(cell.toString());
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeText(String text) throws IOException {
+        // A leading = + - @ would be run as a formula when the sheet is opened
+        boolean formula = !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0;
+        boolean quote = formula || text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                || text.indexOf('\r') >= 0;
+        if (!quote) {
+            out.write(text);
+            return;
+        }
+        out.write('"');
+        if (formula)
+            out.write('\'');
+        out.write(text.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (finished)
+            return;
+        finished = true;
+        out.flush();
+    }
+
+    // Rows still buffered are dropped rather than flushed
+    @Override
+    public void close() {
+        finished = true;
+    }
+}
@@ -0,0 +1,38 @@
+package com.parakh.backend.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Formats a result sheet can be downloaded in, by ?format= value
+public enum SheetFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    SheetFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static SheetFormat of(String name) {
+        for (SheetFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name))
+                return format;
+        }
+        return null;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public SheetWriter open(OutputStream out, String sheetName) throws IOException {
+        return this == CSV ? new CsvSheetWriter(out) : new XlsxSheetWriter(out, sheetName);
+    }
+}
@@ -0,0 +1,22 @@
+package com.parakh.backend.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// A spreadsheet written row by row straight to a stream; nothing is kept once
+// a row is written. Cells are Numbers, Strings or null for an empty cell.
+public interface SheetWriter extends Closeable {
+
+    void writeRow(Object[] cells) throws IOException;
+
+    // Completes the sheet once every row is written, without closing the
+    // underlying stream
+    void finish() throws IOException;
+
+    // Without finish() first, abandons the sheet as it is: an .xlsx is left
+    // without its zip directory and will not open, and the caller's exception
+    // makes the container cut the response short, so a download that failed
+    // halfway never looks complete. Never closes the underlying stream.
+    @Override
+    void close() throws IOException;
+}
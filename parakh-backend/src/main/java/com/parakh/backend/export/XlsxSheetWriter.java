@@ -0,0 +1,144 @@
+package com.parakh.backend.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Single-sheet .xlsx streamed as it is written, in the spirit of POI's SXSSF but
+// without its temp files: the package parts are tiny and fixed, and the sheet
+// XML goes through the zip deflater row by row. Text uses inline strings, so no
+// shared string table has to be held until the end.
+public class XlsxSheetWriter implements SheetWriter {
+
+    private static final String SHEET_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String DOC_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer out;
+    private final List<String> columns = new ArrayList<>();
+    private int row;
+    private boolean finished;
+
+    public XlsxSheetWriter(OutputStream stream, String sheetName) throws IOException {
+        zip = new ZipOutputStream(stream, StandardCharsets.UTF_8);
+        out = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+
+        part("[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/worksheets/sheet1.xml\" "
+                + "ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "</Types>");
+        part("_rels/.rels", "<Relationships xmlns=\"" + REL_NS + "\"><Relationship Id=\"rId1\" Type=\"" + DOC_REL
+                + "/officeDocument\" Target=\"xl/workbook.xml\"/></Relationships>");
+        part("xl/workbook.xml", "<workbook xmlns=\"" + SHEET_NS + "\" xmlns:r=\"" + DOC_REL + "\"><sheets>"
+                + "<sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>");
+        part("xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"" + REL_NS + "\"><Relationship Id=\"rId1\" Type=\""
+                + DOC_REL + "/worksheet\" Target=\"worksheets/sheet1.xml\"/></Relationships>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\"" + SHEET_NS
+                + "\"><sheetData>");
+    }
+
+    private void part(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n" + xml)
+                .getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    @Override
+    public void writeRow(Object[] cells) throws IOException {
+        row++;
+        out.write("<row r=\"");
+        out.write(Integer.toString(row));
+        out.write("\">");
+        for (int i = 0; i < cells.length; i++) {
+            Object cell = cells[i];
+            if (cell == null)
+                continue;
+            out.write("<c r=\"");
+            out.write(column(i));
+            out.write(Integer.toString(row));
+            if (cell instanceof Number) {
+                out.write("\"><v>");
+                out.write(cell.toString());
+                out.write("</v></c>");
+            } else {
+                out.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                out.write(escape(cell.toString()));
+                out.write("</t></is></c>");
+            }
+        }
+        out.write("</row>");
+    }
+
+    // Column letters: A..Z, AA..ZZ, AAA..
+    private String column(int index) {
+        while (columns.size() <= index) {
+            int n = columns.size() + 1;
+            StringBuilder name = new StringBuilder();
+            while (n > 0) {
+                name.insert(0, (char) ('A' + (n - 1) % 26));
+                n = (n - 1) / 26;
+            }
+            columns.add(name.toString());
+        }
+        return columns.get(index);
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = switch (c) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                // Control characters other than tab and newlines are not allowed in XML
+                default -> c < 0x20 && c != '\t' && c != '\n' && c != '\r' ? "" : null;
+            };
+            if (replacement != null && escaped == null)
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            if (escaped != null) {
+                if (replacement != null)
+                    escaped.append(replacement);
+                else
+                    escaped.append(c);
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (finished)
+            return;
+        finished = true;
+        out.write("</sheetData></worksheet>");
+        out.flush();
+        zip.closeEntry();
+        // Writes the central directory; the servlet stream itself stays open
+        zip.finish();
+        zip.flush();
+    }
+
+    // Closing the zip stream would write the central directory (and close the
+    // servlet stream), so it is left as is; its deflater is freed once unreachable
+    @Override
+    public void close() {
+        finished = true;
+    }
+}
@@ -0,0 +1,40 @@
+package com.parakh.backend.journal;
+
+// An accepted answer as journaled: enough to grade it again after a crash
+public class JournalEntry {
+
+    private final long sequence;
+    private final long examId;
+    private final long questionId;
+    private final String selectedOption;
+    private final long acceptedAt;
+
+    public JournalEntry(long sequence, long examId, long questionId, String selectedOption, long acceptedAt) {
+        this.sequence = sequence;
+        this.examId = examId;
+        this.questionId = questionId;
+        this.selectedOption = selectedOption;
+        this.acceptedAt = acceptedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getExamId() {
+        return examId;
+    }
+
+    public long getQuestionId() {
+        return questionId;
+    }
+
+    public String getSelectedOption() {
+        return selectedOption;
+    }
+
+    // Epoch milliseconds
+    public long getAcceptedAt() {
+        return acceptedAt;
+    }
+}
@@ -0,0 +1,146 @@
+package com.parakh.backend.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+// One journal file, created at its full size and memory-mapped, so an append
+// is a copy into the page cache. After an 8 byte header (magic, version) come
+// records:
+//   int length of type and payload, int CRC32C of type and payload, byte type,
+//   payload
+// The file starts out zeroed, so a zero length ends the written part. So does
+// a record running past the end or failing its checksum: a write torn by a
+// crash, which is never acknowledged and is dropped.
+public class JournalSegment {
+
+    static final int MAGIC = 0x50414A31; // "PAJ1"
+    static final int VERSION = 1;
+    static final int HEADER = 8;
+    static final int RECORD_HEADER = 8;
+
+    private final long number;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // Answers in this segment not yet applied to the database
+    private final AtomicInteger pending = new AtomicInteger();
+    private int position;
+
+    private JournalSegment(long number, Path path, MappedByteBuffer buffer, int position) {
+        this.number = number;
+        this.path = path;
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    public static JournalSegment create(Path path, long number, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // Mapping past the end extends the file with zeros; the mapping stays
+            // valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.force(0, HEADER);
+            return new JournalSegment(number, path, buffer, HEADER);
+        }
+    }
+
+    // Maps an existing segment and finds the end of its valid records
+    public static JournalSegment open(Path path, long number) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Only ever read: appends go to a new segment
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC)
+                throw new IOException("Not a journal segment: " + path);
+            if (buffer.getInt(4) != VERSION)
+                throw new IOException("Unsupported journal version " + buffer.getInt(4) + " in " + path);
+            JournalSegment segment = new JournalSegment(number, path, buffer, HEADER);
+            segment.position = segment.read(null);
+            return segment;
+        }
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    public AtomicInteger getPending() {
+        return pending;
+    }
+
+    // False, writing nothing, if the record does not fit. Not thread-safe: the
+    // journal appends under its lock.
+    public boolean append(byte type, ByteBuffer payload) {
+        int length = 1 + payload.remaining();
+        if (position + RECORD_HEADER + length > buffer.capacity())
+            return false;
+        CRC32C crc = new CRC32C();
+        crc.update(type);
+        crc.update(payload.duplicate());
+        // Length last, so a reader never sees a length before its record
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + 8, type);
+        buffer.put(position + 9, payload, payload.position(), payload.remaining());
+        buffer.putInt(position, length);
+        position += RECORD_HEADER + length;
+        return true;
+    }
+
+    // Writes the given range of the mapping through to the disk
+    public void force(int from, int to) {
+        if (to > from)
+            buffer.force(from, to - from);
+    }
+
+    public void forceAll() {
+        force(0, position);
+    }
+
+    // Passes each valid record to the visitor (if any) and returns where the
+    // valid records end
+    public int read(RecordVisitor visitor) {
+        int at = HEADER;
+        CRC32C crc = new CRC32C();
+        while (at + RECORD_HEADER < buffer.capacity()) {
+            int length = buffer.getInt(at);
+            if (length <= 0 || length > buffer.capacity() - at - RECORD_HEADER)
+                break;
+            ByteBuffer record = buffer.slice(at + RECORD_HEADER, length);
+            crc.reset();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(at + 4))
+                break;
+            if (visitor != null)
+                visitor.visit(record.get(0), record.slice(1, length - 1));
+            at += RECORD_HEADER + length;
+        }
+        return at;
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    public interface RecordVisitor {
+        void visit(byte type, ByteBuffer payload);
+    }
+}
@@ -1,10 +1,15 @@
 package com.parakh.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "assessments")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "assessments")
+@NamedEntityGraph(name = "Assessment.withClassroom", attributeNodes = @NamedAttributeNode("classroom"))
+@Table(name = "assessments", indexes = @Index(columnList = "pdf_url")) // File access checks
 public class Assessment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,10 +1,15 @@
 package com.parakh.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "classrooms")
+@NamedEntityGraph(name = "Classroom.withTeacher", attributeNodes = @NamedAttributeNode("teacher"))
 @Table(name = "classrooms")
 public class Classroom {
     @Id
@@ -20,7 +25,7 @@ public class Classroom {
     @Column(nullable = false)
     private String description;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "teacher_id", nullable = false)
     private User teacher;
 
@@ -4,17 +4,25 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "exams")
+// Fetch plans: grading only needs the exam row; the paper, the offline bundle
+// and completion also need the assessment, and ownership checks the student
+@NamedEntityGraph(name = "Exam.withAssessment", attributeNodes = @NamedAttributeNode("assessment"))
+@NamedEntityGraph(name = "Exam.withUserAndAssessment", attributeNodes = { @NamedAttributeNode("user"),
+        @NamedAttributeNode("assessment") })
+@Table(name = "exams", uniqueConstraints = @UniqueConstraint(columnNames = { "user_id", "assessment_id" }),
+        indexes = { @Index(columnList = "start_time"), // Archive windows
+                @Index(columnList = "aggregated, status"), // Aggregate outbox
+                @Index(columnList = "answer_sheet_file_id") }) // File access checks
 public class Exam {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "assessment_id")
     private Assessment assessment;
 
@@ -35,6 +43,22 @@ public class Exam {
     @Column(nullable = false)
     private String currentDifficulty = "Medium"; // Adaptive state
 
+    @Column(length = 64)
+    private String answerSheetFileId; // Scanned answer sheet of a PDF assessment, in the file store
+
+    // Question ids of the paper in order, comma separated, fixed when the offline
+    // bundle is first issued so later changes to the bank cannot alter it
+    @Lob
+    private String paperQuestionIds;
+
+    // Counted in result_aggregates. Only ever set by a bulk update in the
+    // transaction that counts the exam, so saving a stale copy cannot clear it.
+    @Column(nullable = false, updatable = false)
+    private Boolean aggregated = false;
+
+    @Version
+    private Long version;
+
     public Exam() {
     }
 
@@ -109,4 +133,32 @@ public class Exam {
     public void setCurrentDifficulty(String currentDifficulty) {
         this.currentDifficulty = currentDifficulty;
     }
+
+    public Boolean getAggregated() {
+        return aggregated;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getAnswerSheetFileId() {
+        return answerSheetFileId;
+    }
+
+    public void setAnswerSheetFileId(String answerSheetFileId) {
+        this.answerSheetFileId = answerSheetFileId;
+    }
+
+    public String getPaperQuestionIds() {
+        return paperQuestionIds;
+    }
+
+    public void setPaperQuestionIds(String paperQuestionIds) {
+        this.paperQuestionIds = paperQuestionIds;
+    }
 }
@@ -0,0 +1,90 @@
+package com.parakh.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A resumable upload in progress. The bytes received so far are the part file
+// under parakh.storage.dir, so its length is the offset to resume from.
+@Entity
+@Table(name = "file_uploads", indexes = @Index(columnList = "created_at")) // Expiry
+public class FileUpload {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    private String fileName;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(length = 64)
+    private String sha256; // Expected hash, checked on completion when given
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public FileUpload() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
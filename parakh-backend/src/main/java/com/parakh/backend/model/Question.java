@@ -1,8 +1,12 @@
 package com.parakh.backend.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "questions")
 @Table(name = "questions")
 public class Question {
     @Id
@@ -39,6 +43,9 @@ public class Question {
     @Column(nullable = false)
     private Integer usageCount = 0; // tracking how often this Q is used
 
+    @Version
+    private Long version;
+
     public Question() {
     }
 
@@ -142,4 +149,12 @@ public class Question {
     public void setUsageCount(Integer usageCount) {
         this.usageCount = usageCount;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
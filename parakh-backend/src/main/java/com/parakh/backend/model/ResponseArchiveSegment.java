@@ -0,0 +1,137 @@
+package com.parakh.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One archived part of an assessment window: the responses of exams that
+// started in [windowStart, windowEnd), moved out of student_responses into a
+// columnar file under parakh.archive.dir.
+@Entity
+@Table(name = "response_archive_segments",
+        uniqueConstraints = @UniqueConstraint(columnNames = { "window_start", "part" }))
+public class ResponseArchiveSegment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDateTime windowStart;
+
+    @Column(nullable = false)
+    private LocalDateTime windowEnd;
+
+    @Column(nullable = false)
+    private Integer part;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Column(nullable = false)
+    private Long firstExamId;
+
+    @Column(nullable = false)
+    private Long lastExamId;
+
+    @Column(nullable = false)
+    private Integer examCount;
+
+    @Column(nullable = false)
+    private Integer responseCount;
+
+    @Column(nullable = false)
+    private Long sizeBytes;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public ResponseArchiveSegment() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getWindowStart() {
+        return windowStart;
+    }
+
+    public void setWindowStart(LocalDateTime windowStart) {
+        this.windowStart = windowStart;
+    }
+
+    public LocalDateTime getWindowEnd() {
+        return windowEnd;
+    }
+
+    public void setWindowEnd(LocalDateTime windowEnd) {
+        this.windowEnd = windowEnd;
+    }
+
+    public Integer getPart() {
+        return part;
+    }
+
+    public void setPart(Integer part) {
+        this.part = part;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getFirstExamId() {
+        return firstExamId;
+    }
+
+    public void setFirstExamId(Long firstExamId) {
+        this.firstExamId = firstExamId;
+    }
+
+    public Long getLastExamId() {
+        return lastExamId;
+    }
+
+    public void setLastExamId(Long lastExamId) {
+        this.lastExamId = lastExamId;
+    }
+
+    public Integer getExamCount() {
+        return examCount;
+    }
+
+    public void setExamCount(Integer examCount) {
+        this.examCount = examCount;
+    }
+
+    public Integer getResponseCount() {
+        return responseCount;
+    }
+
+    public void setResponseCount(Integer responseCount) {
+        this.responseCount = responseCount;
+    }
+
+    public Long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(Long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
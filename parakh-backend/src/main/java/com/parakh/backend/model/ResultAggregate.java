@@ -0,0 +1,117 @@
+package com.parakh.backend.model;
+
+import jakarta.persistence.*;
+
+// Running totals for one reporting dimension, maintained as exams complete.
+// Mean and variance are derived from count, sum and sum of squares.
+@Entity
+@Table(name = "result_aggregates", uniqueConstraints = @UniqueConstraint(columnNames = { "dimension", "dimensionKey" }))
+public class ResultAggregate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String dimension; // "ASSESSMENT", "CLASSROOM", "SUBJECT", "TOPIC"
+
+    @Column(nullable = false)
+    private String dimensionKey;
+
+    @Column(nullable = false)
+    private Long scoreCount = 0L;
+
+    @Column(nullable = false)
+    private Long scoreSum = 0L;
+
+    @Column(nullable = false)
+    private Long scoreSumOfSquares = 0L;
+
+    @Column(nullable = false)
+    private Long timeCount = 0L;
+
+    @Column(nullable = false)
+    private Long timeSum = 0L;
+
+    @Column(nullable = false)
+    private Long timeSumOfSquares = 0L;
+
+    public ResultAggregate() {
+    }
+
+    public ResultAggregate(String dimension, String dimensionKey) {
+        this.dimension = dimension;
+        this.dimensionKey = dimensionKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getDimension() {
+        return dimension;
+    }
+
+    public void setDimension(String dimension) {
+        this.dimension = dimension;
+    }
+
+    public String getDimensionKey() {
+        return dimensionKey;
+    }
+
+    public void setDimensionKey(String dimensionKey) {
+        this.dimensionKey = dimensionKey;
+    }
+
+    public Long getScoreCount() {
+        return scoreCount;
+    }
+
+    public void setScoreCount(Long scoreCount) {
+        this.scoreCount = scoreCount;
+    }
+
+    public Long getScoreSum() {
+        return scoreSum;
+    }
+
+    public void setScoreSum(Long scoreSum) {
+        this.scoreSum = scoreSum;
+    }
+
+    public Long getScoreSumOfSquares() {
+        return scoreSumOfSquares;
+    }
+
+    public void setScoreSumOfSquares(Long scoreSumOfSquares) {
+        this.scoreSumOfSquares = scoreSumOfSquares;
+    }
+
+    public Long getTimeCount() {
+        return timeCount;
+    }
+
+    public void setTimeCount(Long timeCount) {
+        this.timeCount = timeCount;
+    }
+
+    public Long getTimeSum() {
+        return timeSum;
+    }
+
+    public void setTimeSum(Long timeSum) {
+        this.timeSum = timeSum;
+    }
+
+    public Long getTimeSumOfSquares() {
+        return timeSumOfSquares;
+    }
+
+    public void setTimeSumOfSquares(Long timeSumOfSquares) {
+        this.timeSumOfSquares = timeSumOfSquares;
+    }
+}
@@ -0,0 +1,96 @@
+package com.parakh.backend.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+
+// A file in the content-addressed store, keyed by the SHA-256 of its bytes.
+// Uploading the same bytes again finds this row instead of storing a copy;
+// name and type are those of the first upload. Only those who actually sent
+// the bytes may attach the file to anything.
+@Entity
+@Table(name = "stored_files")
+public class StoredFile {
+    @Id
+    @Column(length = 64)
+    private String id;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    private String fileName;
+
+    private Long createdBy; // User id
+
+    // Later users who sent the same bytes, besides createdBy
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "stored_file_uploaders", joinColumns = @JoinColumn(name = "file_id"))
+    @Column(name = "user_id")
+    private Set<Long> uploaderIds = new HashSet<>();
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public StoredFile() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public Long getCreatedBy() {
+        return createdBy;
+    }
+
+    public void setCreatedBy(Long createdBy) {
+        this.createdBy = createdBy;
+    }
+
+    public Set<Long> getUploaderIds() {
+        return uploaderIds;
+    }
+
+    public void setUploaderIds(Set<Long> uploaderIds) {
+        this.uploaderIds = uploaderIds;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -3,23 +3,25 @@ package com.parakh.backend.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "student_responses")
+@NamedEntityGraph(name = "StudentResponse.withQuestion", attributeNodes = @NamedAttributeNode("question"))
+@Table(name = "student_responses", uniqueConstraints = @UniqueConstraint(columnNames = { "exam_id", "question_id" }))
 public class StudentResponse {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "exam_id", nullable = false)
     private Exam exam;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "question_id", nullable = false)
     private Question question;
 
     private String selectedOption;
     private Boolean isCorrect;
     private Long timeTakenSeconds; // Time taken to answer this specific question
+    private Long nextQuestionId; // Question served after this answer, null if the exam ended
 
     public StudentResponse() {
     }
@@ -71,4 +73,12 @@ public class StudentResponse {
     public void setTimeTakenSeconds(Long timeTakenSeconds) {
         this.timeTakenSeconds = timeTakenSeconds;
     }
+
+    public Long getNextQuestionId() {
+        return nextQuestionId;
+    }
+
+    public void setNextQuestionId(Long nextQuestionId) {
+        this.nextQuestionId = nextQuestionId;
+    }
 }
@@ -1,11 +1,32 @@
 package com.parakh.backend.repository;
 
+import com.parakh.backend.dto.StudentAssessmentRow;
 import com.parakh.backend.model.Assessment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface AssessmentRepository extends JpaRepository<Assessment, Long> {
+    @EntityGraph("Assessment.withClassroom")
     List<Assessment> findByTeacherId(Long teacherId);
 
     List<Assessment> findByClassroomId(Long classroomId);
+
+    @Query("SELECT a.id FROM Assessment a WHERE a.teacher.id = :teacherId")
+    List<Long> findIdsByTeacherId(@Param("teacherId") Long teacherId);
+
+    // Student dashboard in one statement instead of one per class and per assessment
+    @Query("SELECT a.id AS id, a.title AS title, a.subject AS subject, c.name AS classroom, a.type AS type, "
+            + "a.durationMinutes AS durationMinutes, e.id AS examId, e.status AS examStatus, e.score AS score "
+            + "FROM Assessment a JOIN a.classroom c JOIN c.students s "
+            + "LEFT JOIN Exam e ON e.assessment = a AND e.user = s "
+            + "WHERE s.id = :studentId AND a.status = 'PUBLISHED' ORDER BY c.id, a.id")
+    List<StudentAssessmentRow> findDashboardRows(@Param("studentId") Long studentId);
+
+    // Whether the paper at this url belongs to an assessment the user set or sits in
+    @Query("SELECT COUNT(a) > 0 FROM Assessment a WHERE a.pdfUrl = :pdfUrl AND (a.teacher.id = :userId "
+            + "OR EXISTS (SELECT s.id FROM Classroom c JOIN c.students s WHERE c = a.classroom AND s.id = :userId))")
+    boolean isPaperReadableBy(@Param("pdfUrl") String pdfUrl, @Param("userId") Long userId);
 }
@@ -1,11 +1,47 @@
 package com.parakh.backend.repository;
 
+import com.parakh.backend.dto.ClassMemberView;
+import com.parakh.backend.dto.ClassSizeRow;
 import com.parakh.backend.model.Classroom;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface ClassroomRepository extends JpaRepository<Classroom, Long> {
+    @EntityGraph("Classroom.withTeacher")
     List<Classroom> findByTeacherId(Long teacherId);
 
+    boolean existsByIdAndTeacherId(Long id, Long teacherId);
+
+    // Enrolment through ClassroomService bypasses Hibernate and clears this region itself
+    @EntityGraph("Classroom.withTeacher")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "classrooms-by-student") })
     List<Classroom> findByStudentsId(Long studentId);
+
+    @Query(value = "SELECT student_id FROM class_students WHERE classroom_id = :classroomId AND student_id IN (:studentIds)", nativeQuery = true)
+    List<Long> findEnrolledStudentIds(@Param("classroomId") Long classroomId,
+            @Param("studentIds") Collection<Long> studentIds);
+
+    @Query(value = "SELECT u.id AS id, u.name AS name, u.email AS email, "
+            + "(SELECT e.score FROM exams e JOIN assessments a ON a.id = e.assessment_id "
+            + " WHERE e.user_id = u.id AND a.classroom_id = cs.classroom_id AND e.status = 'COMPLETED' "
+            + " ORDER BY e.end_time DESC LIMIT 1) AS latestScore "
+            + "FROM class_students cs JOIN users u ON u.id = cs.student_id "
+            + "WHERE cs.classroom_id = :classroomId ORDER BY u.name, u.id",
+            countQuery = "SELECT COUNT(*) FROM class_students WHERE classroom_id = :classroomId",
+            nativeQuery = true)
+    Page<ClassMemberView> findMembers(@Param("classroomId") Long classroomId, Pageable pageable);
+
+    @Query(value = "SELECT classroom_id AS classroomId, COUNT(*) AS studentCount FROM class_students "
+            + "WHERE classroom_id IN (:classroomIds) GROUP BY classroom_id", nativeQuery = true)
+    List<ClassSizeRow> countStudents(@Param("classroomIds") Collection<Long> classroomIds);
 }
@@ -1,12 +1,94 @@
 package com.parakh.backend.repository;
 
+import com.parakh.backend.dto.ArchivedExamRow;
+import com.parakh.backend.dto.CompletedExamRow;
+import com.parakh.backend.dto.ExamDeadlineRow;
+import com.parakh.backend.dto.ExamProgressRow;
+import com.parakh.backend.dto.ExamScoreRow;
 import com.parakh.backend.model.Exam;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ExamRepository extends JpaRepository<Exam, Long> {
     List<Exam> findByUserId(Long userId);
 
+    @EntityGraph("Exam.withAssessment")
+    Optional<Exam> findWithAssessmentById(Long id);
+
+    @EntityGraph("Exam.withUserAndAssessment")
+    Optional<Exam> findWithUserAndAssessmentById(Long id);
+
     Optional<Exam> findByUserIdAndAssessmentId(Long userId, Long assessmentId);
+
+    @Query("SELECT e.id AS examId, e.score AS score FROM Exam e "
+            + "WHERE e.assessment.id = :assessmentId AND e.status = 'COMPLETED'")
+    Stream<ExamScoreRow> streamCompletedScoresByAssessmentId(@Param("assessmentId") Long assessmentId);
+
+    @Query("SELECT e.id AS examId, u.id AS studentId, u.name AS studentName, e.startTime AS startTime "
+            + "FROM Exam e JOIN e.user u WHERE e.assessment.id = :assessmentId AND e.status = 'COMPLETED' "
+            + "AND e.startTime < :before ORDER BY e.id")
+    List<ArchivedExamRow> findCompletedStartedBefore(@Param("assessmentId") Long assessmentId,
+            @Param("before") LocalDateTime before);
+
+    @Query("SELECT e.id AS examId, a.id AS assessmentId, a.classroom.id AS classroomId, e.subject AS subject, "
+            + "e.score AS score, e.startTime AS startTime, e.endTime AS endTime "
+            + "FROM Exam e LEFT JOIN e.assessment a WHERE e.status = 'COMPLETED' AND e.aggregated = true")
+    Stream<CompletedExamRow> streamAggregatedExams();
+
+    @Modifying
+    @Query("UPDATE Exam e SET e.aggregated = true WHERE e.id = :id AND e.aggregated = false")
+    int markAggregated(@Param("id") Long id);
+
+    @Query("SELECT e.id AS examId, a.id AS assessmentId, a.classroom.id AS classroomId, e.subject AS subject, "
+            + "e.score AS score, e.startTime AS startTime, e.endTime AS endTime "
+            + "FROM Exam e LEFT JOIN e.assessment a WHERE e.id = :id")
+    Optional<CompletedExamRow> findCompletedExamRow(@Param("id") Long id);
+
+    // The aggregate outbox: completed exams not counted yet, oldest first
+    @Query("SELECT e.id FROM Exam e WHERE e.aggregated = false AND e.status = 'COMPLETED' ORDER BY e.id")
+    List<Long> findUnaggregatedIds(Pageable page);
+
+    @Query("SELECT e.id FROM Exam e WHERE e.aggregated = true")
+    Stream<Long> streamAggregatedIds();
+
+    @Query("SELECT e.id AS examId, u.id AS studentId, u.name AS studentName, e.status AS status, e.score AS score "
+            + "FROM Exam e JOIN e.user u WHERE e.assessment.id = :assessmentId")
+    List<ExamProgressRow> findProgressByAssessmentId(@Param("assessmentId") Long assessmentId);
+
+    @Query("SELECT e.id AS examId, a.id AS assessmentId, e.user.id AS userId, e.score AS score, "
+            + "e.startTime AS startTime, a.durationMinutes AS durationMinutes "
+            + "FROM Exam e LEFT JOIN e.assessment a WHERE e.status = 'IN_PROGRESS'")
+    Stream<ExamDeadlineRow> streamInProgressDeadlines();
+
+    @Query("SELECT e.id AS examId, a.id AS assessmentId, e.user.id AS userId, e.score AS score, "
+            + "e.startTime AS startTime, a.durationMinutes AS durationMinutes "
+            + "FROM Exam e LEFT JOIN e.assessment a WHERE e.startTime > :after AND e.status = 'IN_PROGRESS'")
+    Stream<ExamDeadlineRow> streamInProgressDeadlinesStartedAfter(@Param("after") LocalDateTime after);
+
+    @Query("SELECT e.id AS examId, a.id AS assessmentId, e.user.id AS userId, e.score AS score, "
+            + "e.startTime AS startTime, a.durationMinutes AS durationMinutes "
+            + "FROM Exam e LEFT JOIN e.assessment a WHERE e.id IN :ids AND e.status = 'IN_PROGRESS'")
+    List<ExamDeadlineRow> findInProgressDeadlines(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Exam e SET e.status = 'TERMINATED', e.endTime = :endTime, e.version = e.version + 1 "
+            + "WHERE e.id IN :ids AND e.status = 'IN_PROGRESS'")
+    int terminate(@Param("ids") Collection<Long> ids, @Param("endTime") LocalDateTime endTime);
+
+    @Query("SELECT e.id FROM Exam e WHERE e.id IN :ids AND e.status = 'TERMINATED' AND e.endTime = :endTime")
+    List<Long> findTerminatedIds(@Param("ids") Collection<Long> ids, @Param("endTime") LocalDateTime endTime);
+
+    // Whether the answer sheet is the user's own or from an assessment they set
+    @Query("SELECT COUNT(e) > 0 FROM Exam e JOIN e.assessment a WHERE e.answerSheetFileId = :fileId "
+            + "AND (e.user.id = :userId OR a.teacher.id = :userId)")
+    boolean isAnswerSheetReadableBy(@Param("fileId") String fileId, @Param("userId") Long userId);
 }
@@ -0,0 +1,11 @@
+package com.parakh.backend.repository;
+
+import com.parakh.backend.model.FileUpload;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FileUploadRepository extends JpaRepository<FileUpload, String> {
+    List<FileUpload> findByCreatedAtBefore(LocalDateTime before);
+}
@@ -1,11 +1,18 @@
 package com.parakh.backend.repository;
 
 import com.parakh.backend.model.Question;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import java.util.List;
 
 public interface QuestionRepository extends JpaRepository<Question, Long> {
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "questions-by-subject") })
     List<Question> findBySubject(String subject);
 
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "questions-by-subject") })
     List<Question> findBySubjectAndDifficulty(String subject, String difficulty);
 }
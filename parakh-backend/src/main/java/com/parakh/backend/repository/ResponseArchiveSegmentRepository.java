@@ -0,0 +1,13 @@
+package com.parakh.backend.repository;
+
+import com.parakh.backend.model.ResponseArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ResponseArchiveSegmentRepository extends JpaRepository<ResponseArchiveSegment, Long> {
+    List<ResponseArchiveSegment> findAllByOrderByWindowStartAscPartAsc();
+
+    int countByWindowStart(LocalDateTime windowStart);
+}
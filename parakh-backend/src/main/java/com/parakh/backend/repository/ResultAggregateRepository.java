@@ -0,0 +1,26 @@
+package com.parakh.backend.repository;
+
+import com.parakh.backend.model.ResultAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import java.util.List;
+import java.util.Optional;
+
+public interface ResultAggregateRepository extends JpaRepository<ResultAggregate, Long> {
+    Optional<ResultAggregate> findByDimensionAndDimensionKey(String dimension, String dimensionKey);
+
+    List<ResultAggregate> findByDimension(String dimension);
+
+    @Modifying
+    @Query("UPDATE ResultAggregate a SET a.scoreCount = a.scoreCount + :scoreCount, "
+            + "a.scoreSum = a.scoreSum + :scoreSum, a.scoreSumOfSquares = a.scoreSumOfSquares + :scoreSumOfSquares, "
+            + "a.timeCount = a.timeCount + :timeCount, a.timeSum = a.timeSum + :timeSum, "
+            + "a.timeSumOfSquares = a.timeSumOfSquares + :timeSumOfSquares "
+            + "WHERE a.dimension = :dimension AND a.dimensionKey = :dimensionKey")
+    int increment(@Param("dimension") String dimension, @Param("dimensionKey") String dimensionKey,
+            @Param("scoreCount") long scoreCount, @Param("scoreSum") long scoreSum,
+            @Param("scoreSumOfSquares") long scoreSumOfSquares, @Param("timeCount") long timeCount,
+            @Param("timeSum") long timeSum, @Param("timeSumOfSquares") long timeSumOfSquares);
+}
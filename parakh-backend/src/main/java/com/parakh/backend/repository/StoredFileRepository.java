@@ -0,0 +1,25 @@
+package com.parakh.backend.repository;
+
+import com.parakh.backend.model.StoredFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface StoredFileRepository extends JpaRepository<StoredFile, String> {
+    @Query("SELECT COALESCE(SUM(f.size), 0) FROM StoredFile f")
+    long sumSize();
+
+    @Query("SELECT COUNT(f) > 0 FROM StoredFile f WHERE f.id = :id "
+            + "AND (f.createdBy = :userId OR :userId MEMBER OF f.uploaderIds)")
+    boolean isUploader(@Param("id") String id, @Param("userId") Long userId);
+
+    // Idempotent, and safe against another instance adding the same pair
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO stored_file_uploaders (file_id, user_id) SELECT :id, :userId "
+            + "WHERE NOT EXISTS (SELECT 1 FROM stored_file_uploaders WHERE file_id = :id AND user_id = :userId)",
+            nativeQuery = true)
+    int addUploader(@Param("id") String id, @Param("userId") Long userId);
+}
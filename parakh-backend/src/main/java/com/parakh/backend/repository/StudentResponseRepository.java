@@ -1,12 +1,54 @@
 package com.parakh.backend.repository;
 
+import com.parakh.backend.dto.ExamTopicTotalsRow;
+import com.parakh.backend.dto.ResponseAnalyticsRow;
+import com.parakh.backend.dto.SessionResponseRow;
+import com.parakh.backend.dto.TopicTotalsRow;
 import com.parakh.backend.model.StudentResponse;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface StudentResponseRepository extends JpaRepository<StudentResponse, Long> {
+    @EntityGraph("StudentResponse.withQuestion")
     List<StudentResponse> findByExamId(Long examId);
+
+    @Query("SELECT r.question.id FROM StudentResponse r WHERE r.exam.id = :examId")
+    List<Long> findAnsweredQuestionIds(@Param("examId") Long examId);
+
+    @Query("SELECT r.question.id AS questionId, r.isCorrect AS isCorrect, r.nextQuestionId AS nextQuestionId "
+            + "FROM StudentResponse r WHERE r.exam.id = :examId ORDER BY r.id")
+    List<SessionResponseRow> findSessionRows(@Param("examId") Long examId);
+
+    @Query("SELECT r.exam.id AS examId, u.id AS studentId, u.name AS studentName, q.id AS questionId, "
+            + "q.topic AS topic, r.isCorrect AS isCorrect, r.timeTakenSeconds AS timeTakenSeconds "
+            + "FROM StudentResponse r JOIN r.exam e JOIN e.user u JOIN r.question q "
+            + "WHERE e.assessment.id = :assessmentId AND e.status = 'COMPLETED'")
+    Stream<ResponseAnalyticsRow> streamAnalyticsRowsByAssessmentId(@Param("assessmentId") Long assessmentId);
+
+    @Query("SELECT r.exam.id AS examId, u.id AS studentId, u.name AS studentName, q.id AS questionId, "
+            + "q.topic AS topic, r.isCorrect AS isCorrect, r.timeTakenSeconds AS timeTakenSeconds "
+            + "FROM StudentResponse r JOIN r.exam e JOIN e.user u JOIN r.question q "
+            + "WHERE e.id = :examId")
+    List<ResponseAnalyticsRow> findAnalyticsRowsByExamId(@Param("examId") Long examId);
+
+    @Query("SELECT q.topic AS topic, COUNT(r) AS responses, "
+            + "SUM(CASE WHEN r.isCorrect = true THEN 1 ELSE 0 END) AS correct, "
+            + "COUNT(r.timeTakenSeconds) AS timeCount, COALESCE(SUM(r.timeTakenSeconds), 0) AS timeSum, "
+            + "COALESCE(SUM(r.timeTakenSeconds * r.timeTakenSeconds), 0) AS timeSumOfSquares "
+            + "FROM StudentResponse r JOIN r.question q WHERE r.exam.id = :examId GROUP BY q.topic")
+    List<TopicTotalsRow> sumByTopicForExam(@Param("examId") Long examId);
+
+    @Query("SELECT r.exam.id AS examId, q.topic AS topic, COUNT(r) AS responses, "
+            + "SUM(CASE WHEN r.isCorrect = true THEN 1 ELSE 0 END) AS correct, "
+            + "COUNT(r.timeTakenSeconds) AS timeCount, COALESCE(SUM(r.timeTakenSeconds), 0) AS timeSum, "
+            + "COALESCE(SUM(r.timeTakenSeconds * r.timeTakenSeconds), 0) AS timeSumOfSquares "
+            + "FROM StudentResponse r JOIN r.question q WHERE r.exam.aggregated = true GROUP BY r.exam.id, q.topic")
+    Stream<ExamTopicTotalsRow> streamTopicTotalsByExamForAggregatedExams();
 }
@@ -1,14 +1,23 @@
 package com.parakh.backend.repository;
 
 import com.parakh.backend.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Every authenticated request looks up its user by email
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "users-by-email") })
     Optional<User> findByEmail(String email);
 
     List<User> findByRoleAndStatus(String role, String status);
 
     List<User> findByStatus(String status);
+
+    List<User> findByEmailIn(Collection<String> emails);
 }
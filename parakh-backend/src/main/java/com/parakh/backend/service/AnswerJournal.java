@@ -0,0 +1,414 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.journal.JournalEntry;
+import com.parakh.backend.journal.JournalSegment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Write-ahead journal of accepted answers. An answer is appended here before
+// its database transaction, and once the append is on disk a crash can no
+// longer lose it: whatever is still unapplied at startup is graded again
+// (AnswerRecoveryService). Appends copy into a memory-mapped segment under a
+// lock; one flusher thread forces everything written since its last pass in
+// a single msync, so answers arriving together share a disk flush (group
+// commit). Segments rotate at segment-size and are deleted once every answer
+// in them is applied. Each instance needs a directory of its own.
+@Service
+public class AnswerJournal {
+
+    private static final byte ANSWER = 1;
+    private static final byte APPLIED = 2;
+    private static final int MAX_OPTION_BYTES = 1024;
+
+    @Value("${parakh.journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${parakh.journal.dir:data/journal/${server.port:8081}}")
+    private Path dir;
+
+    @Value("${parakh.journal.segment-size:64MB}")
+    private DataSize segmentSize;
+
+    // Off, an append survives a JVM crash (the page cache has it) but not the
+    // machine going down
+    @Value("${parakh.journal.fsync:true}")
+    private boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition written = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    // Guarded by lock. Offsets count bytes across segments: a segment starts
+    // at the offset where the previous one's capacity ends.
+    private JournalSegment current;
+    private long currentBase;
+    private long writeOffset;
+    private long durableOffset;
+    // Applied markers need not be on disk; only answers wait for a flush
+    private long flushWanted;
+    private long nextSequence = 1;
+    private RuntimeException failure;
+    private final Map<Long, PendingAnswer> pending = new HashMap<>();
+
+    private final List<JournalEntry> recovered = new ArrayList<>();
+    private final Set<Long> recoveredExamIds = new HashSet<>();
+
+    private FileChannel lockChannel;
+    private FileLock dirLock;
+    private Thread flusher;
+    private volatile boolean running;
+
+    private final AtomicLong appends = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+
+    // Reads what the last run left, then starts a fresh segment for appends
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled)
+            return;
+        Files.createDirectories(dir);
+        lockChannel = FileChannel.open(dir.resolve("journal.lock"), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        try {
+            dirLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            dirLock = null;
+        }
+        if (dirLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("Answer journal " + dir.toAbsolutePath()
+                    + " is in use by another instance; give each instance its own parakh.journal.dir");
+        }
+
+        List<JournalSegment> segments = new ArrayList<>();
+        for (Path path : segmentPaths()) {
+            JournalSegment segment = JournalSegment.open(path, segmentNumber(path));
+            segment.read((type, payload) -> replay(segment, type, payload));
+            segments.add(segment);
+        }
+        lock.lock();
+        try {
+            for (PendingAnswer answer : pending.values())
+                recovered.add(answer.entry);
+            recovered.sort(Comparator.comparingLong(JournalEntry::getSequence));
+            long number = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).getNumber() + 1;
+            current = JournalSegment.create(segmentPath(number), number, (int) segmentSize.toBytes());
+            writeOffset = durableOffset = flushWanted = current.getPosition();
+        } finally {
+            lock.unlock();
+        }
+        for (JournalSegment segment : segments) {
+            if (segment.getPending().get() == 0)
+                segment.delete();
+        }
+        System.out.println("Answer journal: " + recovered.size() + " unapplied answers in " + segments.size()
+                + " segments left by the last run");
+
+        running = true;
+        if (fsync) {
+            flusher = new Thread(this::flushLoop, "journal-flush");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    private void replay(JournalSegment segment, byte type, ByteBuffer payload) {
+        long sequence = payload.getLong(0);
+        nextSequence = Math.max(nextSequence, sequence + 1);
+        if (type == ANSWER) {
+            byte[] option = new byte[payload.getShort(32)];
+            payload.get(34, option);
+            JournalEntry entry = new JournalEntry(sequence, payload.getLong(8), payload.getLong(16),
+                    new String(option, StandardCharsets.UTF_8), payload.getLong(24));
+            pending.put(sequence, new PendingAnswer(entry, segment));
+            segment.getPending().incrementAndGet();
+            recoveredExamIds.add(entry.getExamId());
+        } else if (type == APPLIED) {
+            PendingAnswer answer = pending.remove(sequence);
+            if (answer != null)
+                answer.segment.getPending().decrementAndGet();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Journals an answer and, with fsync on, returns once it is on disk. The
+    // sequence returned is passed to markApplied after the database commit;
+    // 0 when the journal is off.
+    public long append(Long examId, Long questionId, String selectedOption) {
+        if (!enabled)
+            return 0;
+        byte[] option = selectedOption.getBytes(StandardCharsets.UTF_8);
+        if (option.length > MAX_OPTION_BYTES)
+            throw new IllegalArgumentException("selectedOption is too long");
+        long acceptedAt = System.currentTimeMillis();
+        ByteBuffer payload = ByteBuffer.allocate(34 + option.length);
+        payload.putLong(8, examId).putLong(16, questionId).putLong(24, acceptedAt)
+                .putShort(32, (short) option.length).put(34, option);
+        lock.lock();
+        try {
+            checkFailure();
+            long sequence = nextSequence++;
+            payload.putLong(0, sequence);
+            long end = write(ANSWER, payload);
+            if (fsync && end > flushWanted) {
+                flushWanted = end;
+                written.signal();
+            }
+            pending.put(sequence, new PendingAnswer(
+                    new JournalEntry(sequence, examId, questionId, selectedOption, acceptedAt), current));
+            current.getPending().incrementAndGet();
+            appends.incrementAndGet();
+            while (fsync && durableOffset < end) {
+                checkFailure();
+                flushed.awaitUninterruptibly();
+            }
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The answer is in the database (or was rejected for good). The marker is
+    // not waited for: lost in a crash, the answer is replayed and matched to
+    // the response already recorded.
+    public void markApplied(long sequence) {
+        if (!enabled || sequence == 0)
+            return;
+        JournalSegment emptied = null;
+        lock.lock();
+        try {
+            PendingAnswer answer = pending.remove(sequence);
+            if (answer == null)
+                return;
+            if (failure == null)
+                write(APPLIED, ByteBuffer.allocate(8).putLong(0, sequence));
+            if (answer.segment.getPending().decrementAndGet() == 0 && answer.segment != current)
+                emptied = answer.segment;
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(emptied);
+    }
+
+    // Answers unapplied at startup, in the order they were accepted
+    public List<JournalEntry> getRecovered() {
+        return Collections.unmodifiableList(recovered);
+    }
+
+    // Every exam answered in the segments the last run left
+    public Set<Long> getRecoveredExamIds() {
+        return Collections.unmodifiableSet(recoveredExamIds);
+    }
+
+    // Answers still unapplied that were accepted before the given time
+    public List<JournalEntry> getPending(long acceptedBefore) {
+        List<JournalEntry> entries = new ArrayList<>();
+        lock.lock();
+        try {
+            for (PendingAnswer answer : pending.values()) {
+                if (answer.entry.getAcceptedAt() < acceptedBefore)
+                    entries.add(answer.entry);
+            }
+        } finally {
+            lock.unlock();
+        }
+        entries.sort(Comparator.comparingLong(JournalEntry::getSequence));
+        return entries;
+    }
+
+    // Failures that say nothing about the answer itself: the database could not
+    // be reached, so the journaled answer is kept and applied later
+    public static boolean isDatabaseUnavailable(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DataAccessResourceFailureException || t instanceof CannotCreateTransactionException
+                    || t instanceof QueryTimeoutException || t instanceof TransientDataAccessResourceException)
+                return true;
+        }
+        return false;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled)
+            return stats;
+        long appended = appends.get();
+        long forced = flushes.get();
+        lock.lock();
+        try {
+            stats.put("segment", current.getNumber());
+            stats.put("segmentBytesUsed", current.getPosition());
+            stats.put("pendingAnswers", pending.size());
+            stats.put("failed", failure != null);
+        } finally {
+            lock.unlock();
+        }
+        stats.put("recoveredAtStartup", recovered.size());
+        stats.put("appends", appended);
+        stats.put("fsync", fsync);
+        stats.put("flushes", forced);
+        stats.put("answersPerFlush", forced == 0 ? 0 : Math.round(appended * 100.0 / forced) / 100.0);
+        stats.put("rotations", rotations.get());
+        return stats;
+    }
+
+    // Under lock. Returns the journal offset just past the record.
+    private long write(byte type, ByteBuffer payload) {
+        if (!current.append(type, payload)) {
+            rotate();
+            if (!current.append(type, payload))
+                throw new IllegalArgumentException("Journal record does not fit in a segment");
+        }
+        writeOffset = currentBase + current.getPosition();
+        return writeOffset;
+    }
+
+    // Under lock. The full segment is forced first, so the flusher only ever
+    // deals with the current one.
+    private void rotate() {
+        JournalSegment old = current;
+        try {
+            if (fsync) {
+                old.forceAll();
+                durableOffset = Math.max(durableOffset, currentBase + old.getPosition());
+                flushed.signalAll();
+            }
+            long number = old.getNumber() + 1;
+            current = JournalSegment.create(segmentPath(number), number, (int) segmentSize.toBytes());
+        } catch (IOException | UncheckedIOException e) {
+            failure = new RuntimeException("Answer journal unavailable", e);
+            flushed.signalAll();
+            throw failure;
+        }
+        currentBase += old.getCapacity();
+        rotations.incrementAndGet();
+        if (old.getPending().get() == 0)
+            deleteQuietly(old);
+    }
+
+    private void flushLoop() {
+        while (running) {
+            JournalSegment segment;
+            long base;
+            long from;
+            long to;
+            lock.lock();
+            try {
+                while (running && durableOffset >= flushWanted)
+                    written.awaitUninterruptibly();
+                if (!running)
+                    return;
+                segment = current;
+                base = currentBase;
+                from = Math.max(durableOffset, base);
+                to = writeOffset;
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException error = null;
+            try {
+                segment.force((int) (from - base), (int) (to - base));
+                flushes.incrementAndGet();
+            } catch (UncheckedIOException e) {
+                error = new RuntimeException("Answer journal unavailable", e);
+                System.out.println("Answer journal flush failed: " + e.getMessage());
+            }
+            lock.lock();
+            try {
+                if (error != null)
+                    failure = error;
+                else
+                    durableOffset = Math.max(durableOffset, to);
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null)
+                return;
+        }
+    }
+
+    private void checkFailure() {
+        if (failure != null)
+            throw failure;
+    }
+
+    private void deleteQuietly(JournalSegment segment) {
+        if (segment == null)
+            return;
+        try {
+            segment.delete();
+        } catch (IOException e) {
+            System.out.println("Could not delete journal segment " + segment.getPath() + ": " + e.getMessage());
+        }
+    }
+
+    private List<Path> segmentPaths() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("journal-\\d{20}\\.log"))
+                    .sorted().toList();
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return dir.resolve(String.format("journal-%020d.log", number));
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (!enabled || current == null)
+            return;
+        lock.lock();
+        try {
+            running = false;
+            written.signalAll();
+            current.forceAll();
+        } finally {
+            lock.unlock();
+        }
+        dirLock.release();
+        lockChannel.close();
+    }
+
+    private static class PendingAnswer {
+        private final JournalEntry entry;
+        private final JournalSegment segment;
+
+        PendingAnswer(JournalEntry entry, JournalSegment segment) {
+            this.entry = entry;
+            this.segment = segment;
+        }
+    }
+}
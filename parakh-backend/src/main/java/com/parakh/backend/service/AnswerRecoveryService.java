@@ -0,0 +1,109 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.journal.JournalEntry;
+import com.parakh.backend.model.Exam;
+import com.parakh.backend.repository.ExamRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Applies journaled answers that never reached the database: at startup the
+// ones a crash cut off, and every retry-ms the ones a database outage left
+// behind. Each goes through the normal submit path, so an answer the database
+// did record (the crash came after the commit) is matched to its response and
+// never graded twice. Startup recovery runs before exam expiry first looks at
+// deadlines, and then rebuilds the sessions of exams answered just before the
+// crash, so students coming back do not all miss the cache at once.
+@Service
+public class AnswerRecoveryService {
+
+    @Autowired
+    private AnswerJournal answerJournal;
+
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private ExamSessionStore examSessionStore;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Value("${parakh.journal.retry-ms:30000}")
+    private long retryMillis;
+
+    private final ScheduledExecutorService retrier = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "journal-retry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void recover() {
+        if (!answerJournal.isEnabled())
+            return;
+        long began = System.currentTimeMillis();
+        List<JournalEntry> recovered = answerJournal.getRecovered();
+        int applied = apply(recovered);
+
+        int sessions = 0;
+        for (Exam exam : examRepository.findAllById(answerJournal.getRecoveredExamIds())) {
+            if (exam.getStatus().equals("IN_PROGRESS")) {
+                examSessionStore.get(exam.getId());
+                sessions++;
+            }
+        }
+        System.out.println("Recovered " + applied + " of " + recovered.size() + " journaled answers and "
+                + sessions + " exam sessions in " + (System.currentTimeMillis() - began) + " ms");
+
+        retrier.scheduleWithFixedDelay(this::retry, retryMillis, retryMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void retry() {
+        try {
+            List<JournalEntry> entries = answerJournal.getPending(System.currentTimeMillis() - retryMillis);
+            if (!entries.isEmpty())
+                System.out.println("Applied " + apply(entries) + " of " + entries.size() + " journaled answers");
+        } catch (RuntimeException e) {
+            System.out.println("Journal retry failed: " + e.getMessage());
+        }
+    }
+
+    // Returns how many were applied. An answer the exam no longer takes (it
+    // ended, or the question is gone) is dropped; while the database is
+    // unreachable the rest wait for the next run.
+    private int apply(List<JournalEntry> entries) {
+        int applied = 0;
+        for (JournalEntry entry : entries) {
+            try {
+                examService.replayAnswer(entry);
+                applied++;
+            } catch (RuntimeException e) {
+                if (AnswerJournal.isDatabaseUnavailable(e)) {
+                    System.out.println("Database unavailable, journaled answers kept for later: " + e.getMessage());
+                    break;
+                }
+                System.out.println("Dropped journaled answer to question " + entry.getQuestionId() + " of exam "
+                        + entry.getExamId() + ": " + e.getMessage());
+            }
+            answerJournal.markApplied(entry.getSequence());
+        }
+        return applied;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retrier.shutdownNow();
+    }
+}
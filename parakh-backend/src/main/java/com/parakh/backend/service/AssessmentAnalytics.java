@@ -0,0 +1,120 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.dto.AssessmentAnalyticsView;
+import com.parakh.backend.dto.ResponseAnalyticsRow;
+
+import java.util.*;
+
+// Running aggregates for one assessment. Every exam and response is folded in
+// exactly once, so the same instance serves a full single-pass build and the
+// incremental updates that follow as exams complete.
+public class AssessmentAnalytics {
+
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    private final Long assessmentId;
+    private final Integer maxScore;
+
+    private final Set<Long> examIds = new HashSet<>();
+    private final TreeMap<Integer, Long> scoreDistribution = new TreeMap<>();
+    private long scoreCount;
+    private long scoreSum;
+    private long scoreSumOfSquares;
+    private int minScore = Integer.MAX_VALUE;
+    private int maxObservedScore = Integer.MIN_VALUE;
+
+    // questionId -> [attempts, correct, timeSum, timedAttempts]
+    private final Map<Long, long[]> questionStats = new HashMap<>();
+    // studentId -> topic -> [attempts, correct]
+    private final Map<Long, Map<String, long[]>> studentTopics = new HashMap<>();
+    private final Map<Long, String> studentNames = new HashMap<>();
+
+    public AssessmentAnalytics(Long assessmentId, Integer maxScore) {
+        this.assessmentId = assessmentId;
+        this.maxScore = maxScore;
+    }
+
+    public synchronized boolean containsExam(Long examId) {
+        return examIds.contains(examId);
+    }
+
+    public synchronized void addScore(Long examId, Integer score) {
+        if (!examIds.add(examId))
+            return;
+        int value = score != null ? score : 0;
+        scoreDistribution.merge(value, 1L, Long::sum);
+        scoreCount++;
+        scoreSum += value;
+        scoreSumOfSquares += (long) value * value;
+        minScore = Math.min(minScore, value);
+        maxObservedScore = Math.max(maxObservedScore, value);
+    }
+
+    public synchronized void addResponse(ResponseAnalyticsRow row) {
+        long[] q = questionStats.computeIfAbsent(row.getQuestionId(), k -> new long[4]);
+        boolean correct = Boolean.TRUE.equals(row.getIsCorrect());
+        q[0]++;
+        if (correct)
+            q[1]++;
+        if (row.getTimeTakenSeconds() != null) {
+            q[2] += row.getTimeTakenSeconds();
+            q[3]++;
+        }
+
+        String topic = row.getTopic() != null ? row.getTopic() : "General";
+        long[] t = studentTopics.computeIfAbsent(row.getStudentId(), k -> new HashMap<>())
+                .computeIfAbsent(topic, k -> new long[2]);
+        t[0]++;
+        if (correct)
+            t[1]++;
+        studentNames.putIfAbsent(row.getStudentId(), row.getStudentName());
+    }
+
+    // Folds a newly completed exam; a no-op if the exam was already counted
+    public synchronized void addExam(Long examId, Integer score, List<ResponseAnalyticsRow> rows) {
+        if (examIds.contains(examId))
+            return;
+        addScore(examId, score);
+        rows.forEach(this::addResponse);
+    }
+
+    public synchronized AssessmentAnalyticsView snapshot() {
+        double mean = scoreCount > 0 ? (double) scoreSum / scoreCount : 0;
+        double variance = scoreCount > 0 ? Math.max(0, (double) scoreSumOfSquares / scoreCount - mean * mean) : 0;
+        AssessmentAnalyticsView.Scores scores = new AssessmentAnalyticsView.Scores(mean, Math.sqrt(variance),
+                scoreCount > 0 ? minScore : null, scoreCount > 0 ? maxObservedScore : null,
+                new TreeMap<>(scoreDistribution), histogram());
+
+        List<AssessmentAnalyticsView.QuestionStats> questions = new ArrayList<>();
+        questionStats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    long[] q = e.getValue();
+                    questions.add(new AssessmentAnalyticsView.QuestionStats(e.getKey(), q[0],
+                            q[0] > 0 ? (double) q[1] / q[0] : 0, q[3] > 0 ? (double) q[2] / q[3] : null));
+                });
+
+        List<AssessmentAnalyticsView.StudentMastery> students = new ArrayList<>();
+        studentTopics.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    Map<String, AssessmentAnalyticsView.TopicMastery> topics = new TreeMap<>();
+                    e.getValue().forEach((topic, t) -> topics.put(topic,
+                            new AssessmentAnalyticsView.TopicMastery(t[0], t[0] > 0 ? (double) t[1] / t[0] : 0)));
+                    students.add(new AssessmentAnalyticsView.StudentMastery(e.getKey(),
+                            studentNames.get(e.getKey()), topics));
+                });
+        return new AssessmentAnalyticsView(assessmentId, scoreCount, scores, questions, students);
+    }
+
+    // Ten equal-width buckets over the percentage of the maximum score
+    private long[] histogram() {
+        long[] buckets = new long[HISTOGRAM_BUCKETS];
+        int max = maxScore != null && maxScore > 0 ? maxScore : Math.max(maxObservedScore, 1);
+        scoreDistribution.forEach((score, count) -> {
+            int bucket = (int) Math.floor((double) score * HISTOGRAM_BUCKETS / max);
+            buckets[Math.max(0, Math.min(HISTOGRAM_BUCKETS - 1, bucket))] += count;
+        });
+        return buckets;
+    }
+}
@@ -0,0 +1,181 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.dto.ClassSizeRow;
+import com.parakh.backend.dto.ClassroomView;
+import com.parakh.backend.dto.EnrollmentResult;
+import com.parakh.backend.model.Classroom;
+import com.parakh.backend.model.User;
+import com.parakh.backend.repository.ClassroomRepository;
+import com.parakh.backend.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+@Service
+public class ClassroomService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_ENROLL_ATTEMPTS = 3;
+
+    @Autowired
+    private ClassroomRepository classroomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContentVersions contentVersions;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate tx;
+
+    public ClassroomService(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    // Counts every roster in one query instead of loading each students collection
+    public List<ClassroomView> toViews(List<Classroom> classrooms) {
+        if (classrooms.isEmpty())
+            return List.of();
+        Map<Long, Long> counts = new HashMap<>();
+        for (ClassSizeRow row : classroomRepository.countStudents(classrooms.stream().map(Classroom::getId).toList())) {
+            counts.put(row.getClassroomId(), row.getStudentCount());
+        }
+        List<ClassroomView> views = new ArrayList<>(classrooms.size());
+        for (Classroom classroom : classrooms) {
+            views.add(ClassroomView.of(classroom, counts.getOrDefault(classroom.getId(), 0L)));
+        }
+        return views;
+    }
+
+    // Enrolls many students with one IN lookup and batched inserts into
+    // class_students, without loading the classroom's students collection.
+    // A row already there is skipped by the insert itself; if a concurrent
+    // enrolment of the same student commits while this one waits on the key,
+    // the whole enrolment runs again and finds it enrolled.
+    public EnrollmentResult enrollStudents(Long classroomId, Collection<String> emails) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return tx.execute(status -> enroll(classroomId, emails));
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_ENROLL_ATTEMPTS) {
+                    throw new RuntimeException("Concurrent enrolment conflict, please retry", e);
+                }
+            }
+        }
+    }
+
+    private EnrollmentResult enroll(Long classroomId, Collection<String> emails) {
+        if (!classroomRepository.existsById(classroomId)) {
+            throw new RuntimeException("Class not found");
+        }
+
+        Set<String> requested = new LinkedHashSet<>();
+        for (String email : emails) {
+            if (email != null && !email.isBlank()) {
+                requested.add(email.trim());
+            }
+        }
+
+        List<String> notFound = new ArrayList<>();
+        List<String> notStudents = new ArrayList<>();
+        List<String> alreadyEnrolled = new ArrayList<>();
+        List<String> enrolled = new ArrayList<>();
+
+        Map<String, User> usersByEmail = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (User user : userRepository.findByEmailIn(requested)) {
+                usersByEmail.put(user.getEmail(), user);
+            }
+        }
+
+        Map<Long, String> candidates = new LinkedHashMap<>();
+        for (String email : requested) {
+            User user = usersByEmail.get(email);
+            if (user == null) {
+                notFound.add(email);
+            } else if (!"STUDENT".equals(user.getRole())) {
+                notStudents.add(email);
+            } else {
+                candidates.put(user.getId(), email);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            for (Long id : classroomRepository.findEnrolledStudentIds(classroomId, candidates.keySet())) {
+                alreadyEnrolled.add(candidates.remove(id));
+            }
+        }
+
+        List<Long> toInsert = new ArrayList<>(candidates.keySet());
+        int[][] counts = jdbcTemplate.batchUpdate("INSERT INTO class_students (classroom_id, student_id) "
+                + "SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM class_students WHERE classroom_id = ? AND student_id = ?)",
+                toInsert, BATCH_SIZE, (ps, studentId) -> {
+                    ps.setLong(1, classroomId);
+                    ps.setLong(2, studentId);
+                    ps.setLong(3, classroomId);
+                    ps.setLong(4, studentId);
+                });
+        int inserted = 0;
+        for (int i = 0; i < toInsert.size(); i++) {
+            String email = candidates.get(toInsert.get(i));
+            // Enrolled by someone else since the lookup above
+            if (counts[i / BATCH_SIZE][i % BATCH_SIZE] == 0) {
+                alreadyEnrolled.add(email);
+            } else {
+                enrolled.add(email);
+                inserted++;
+            }
+        }
+        if (inserted > 0) {
+            contentVersions.bump(ContentVersions.Domain.CLASSES);
+            // Hibernate did not see these inserts, so its cached class lists would not go stale
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                            .evictQueryRegion("classrooms-by-student");
+                }
+            });
+        }
+
+        return new EnrollmentResult(enrolled, alreadyEnrolled, notFound, notStudents);
+    }
+
+    // Accepts one email per line or comma separated values; any cell that looks
+    // like an email address is taken, so a header row is skipped naturally.
+    public List<String> parseEmailsFromCsv(InputStream input) throws IOException {
+        List<String> emails = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                for (String cell : line.split("[,;\\t]")) {
+                    String value = cell.trim().replace("\"", "");
+                    if (value.contains("@")) {
+                        emails.add(value);
+                    }
+                }
+            }
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,149 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.config.ReadReplicaRouter;
+import com.parakh.backend.event.AnswerSubmittedEvent;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.event.ExamStartedEvent;
+import com.parakh.backend.event.ExamTimedOutEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counters that change whenever the data behind a read-mostly endpoint may have
+// changed, so ETags come from a few longs instead of hashing response bodies.
+// Writers bump after their transaction commits and tell the other instances.
+// Exams are counted per student in a fixed number of stripes, so one student's
+// exam only revalidates the lists of students sharing that stripe. Counters
+// only move together on instances that are up at the same time, so the same
+// value means different data on different instances (or before a restart):
+// ETags carry a random id of the instance that issued them, and a client
+// moved to another instance revalidates once.
+@Service
+public class ContentVersions {
+
+    public enum Domain {
+        CLASSES, ASSESSMENTS, QUESTIONS
+    }
+
+    private static final int EXAM_STRIPES = 4096;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private final String instanceId = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong[] counters = new AtomicLong[Domain.values().length];
+    private final AtomicLongArray examCounters = new AtomicLongArray(EXAM_STRIPES);
+
+    public ContentVersions() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new AtomicLong();
+        }
+    }
+
+    @PostConstruct
+    public void listenForChanges() {
+        cacheRegistry.onInvalidation("content-versions", key -> {
+            if (key == null) {
+                for (AtomicLong counter : counters) {
+                    counter.incrementAndGet();
+                }
+                for (int i = 0; i < EXAM_STRIPES; i++) {
+                    examCounters.incrementAndGet(i);
+                }
+            } else if (key.startsWith("exams:")) {
+                examCounters.incrementAndGet(stripe(Long.valueOf(key.substring(6))));
+            } else {
+                counters[Domain.valueOf(key).ordinal()].incrementAndGet();
+            }
+        });
+    }
+
+    public void bump(Domain domain) {
+        afterCommit(() -> {
+            counters[domain.ordinal()].incrementAndGet();
+            cacheRegistry.publishInvalidation("content-versions", domain.name());
+        });
+    }
+
+    public void bumpExams(Long userId) {
+        afterCommit(() -> {
+            examCounters.incrementAndGet(stripe(userId));
+            cacheRegistry.publishInvalidation("content-versions", "exams:" + userId);
+        });
+    }
+
+    public long get(Domain domain) {
+        return counters[domain.ordinal()].get();
+    }
+
+    public long getExams(Long userId) {
+        return examCounters.get(stripe(userId));
+    }
+
+    // Call before reading the data, which then comes from the primary. Sets the
+    // ETag and returns true when the client's copy is current, in which case
+    // the handler returns null (304). The ETag is weak as the body may be
+    // compressed, and names the user since these responses are per user.
+    public boolean checkNotModified(WebRequest request, String user, long... versions) {
+        ReadReplicaRouter.requirePrimary();
+        StringBuilder etag = new StringBuilder("W/\"").append(instanceId).append('.');
+        for (long version : versions) {
+            etag.append(Long.toString(version, 36)).append('.');
+        }
+        etag.append(Integer.toHexString(user.hashCode())).append('"');
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null)
+            servletRequest.getResponse().setHeader("Cache-Control", "private, no-cache");
+        return request.checkNotModified(etag.toString());
+    }
+
+    @EventListener
+    public void onExamStarted(ExamStartedEvent event) {
+        if (event.getAssessmentId() != null)
+            bumpExams(event.getUserId());
+    }
+
+    @EventListener
+    public void onAnswerSubmitted(AnswerSubmittedEvent event) {
+        if (event.getAssessmentId() != null)
+            bumpExams(event.getUserId());
+    }
+
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        if (event.getAssessmentId() != null)
+            bumpExams(event.getUserId());
+    }
+
+    @EventListener
+    public void onExamTimedOut(ExamTimedOutEvent event) {
+        if (event.getAssessmentId() != null)
+            bumpExams(event.getUserId());
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (EXAM_STRIPES - 1);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,221 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.model.Question;
+import com.parakh.backend.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+// Near-duplicate detection over the question bank using MinHash signatures and
+// an LSH band index, so a new question is checked against a handful of bucket
+// neighbours instead of every question in the bank.
+@Service
+public class DuplicateQuestionDetector {
+
+    private static final int NUM_HASHES = 128;
+    private static final int BANDS = 32;
+    private static final int ROWS_PER_BAND = NUM_HASHES / BANDS;
+    private static final int SHINGLE_SIZE = 5;
+    private static final long MERSENNE_PRIME = (1L << 31) - 1;
+    private static final double SIMILARITY_THRESHOLD = 0.8;
+
+    // Fixed seed keeps signatures comparable across restarts and nodes
+    private static final long[] HASH_A = new long[NUM_HASHES];
+    private static final long[] HASH_B = new long[NUM_HASHES];
+
+    static {
+        Random random = new Random(0x5041524B48L);
+        for (int i = 0; i < NUM_HASHES; i++) {
+            HASH_A[i] = 1 + random.nextInt(Integer.MAX_VALUE - 1);
+            HASH_B[i] = random.nextInt(Integer.MAX_VALUE);
+        }
+    }
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private final Map<Long, int[]> signatures = new ConcurrentHashMap<>();
+    private final List<Map<Integer, Set<Long>>> bandBuckets = new ArrayList<>(BANDS);
+
+    public DuplicateQuestionDetector() {
+        for (int b = 0; b < BANDS; b++) {
+            bandBuckets.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    public void rebuildIndex(Collection<Question> questions) {
+        signatures.clear();
+        bandBuckets.forEach(Map::clear);
+        questions.parallelStream()
+                .filter(q -> q.getId() != null)
+                .forEach(q -> addSignature(q.getId(), signature(q)));
+        System.out.println("Duplicate index built for " + signatures.size() + " questions");
+    }
+
+    // Returns ids of indexed questions whose estimated Jaccard similarity with the
+    // given question is above the threshold. Expected O(1) in the bank size.
+    public List<Long> findCandidates(Question question) {
+        int[] sig = signature(question);
+        Set<Long> seen = new HashSet<>();
+        List<Long> matches = new ArrayList<>();
+        for (int b = 0; b < BANDS; b++) {
+            Set<Long> bucket = bandBuckets.get(b).get(bandKey(sig, b));
+            if (bucket == null)
+                continue;
+            for (Long id : bucket) {
+                if (id.equals(question.getId()) || !seen.add(id))
+                    continue;
+                int[] other = signatures.get(id);
+                if (other != null && estimateSimilarity(sig, other) >= SIMILARITY_THRESHOLD) {
+                    matches.add(id);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public void index(Question question) {
+        if (question.getId() == null)
+            return;
+        remove(question.getId());
+        addSignature(question.getId(), signature(question));
+    }
+
+    public void remove(Long questionId) {
+        int[] old = signatures.remove(questionId);
+        if (old == null)
+            return;
+        for (int b = 0; b < BANDS; b++) {
+            int key = bandKey(old, b);
+            bandBuckets.get(b).computeIfPresent(key, (k, ids) -> {
+                ids.remove(questionId);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Batch mode: clusters the whole bank. Signatures are computed in parallel and
+    // only pairs sharing an LSH bucket are compared.
+    public List<List<Long>> findClusters() {
+        List<Question> questions = questionRepository.findAll();
+        Map<Long, int[]> sigs = questions.parallelStream()
+                .filter(q -> q.getId() != null)
+                .collect(Collectors.toConcurrentMap(Question::getId, this::signature));
+
+        List<Map<Integer, List<Long>>> buckets = new ArrayList<>(BANDS);
+        for (int b = 0; b < BANDS; b++) {
+            final int band = b;
+            buckets.add(sigs.entrySet().parallelStream()
+                    .collect(Collectors.groupingByConcurrent(e -> bandKey(e.getValue(), band),
+                            Collectors.mapping(Map.Entry::getKey, Collectors.toList()))));
+        }
+
+        Map<Long, Long> parent = new HashMap<>();
+        for (Map<Integer, List<Long>> bandMap : buckets) {
+            for (List<Long> bucket : bandMap.values()) {
+                if (bucket.size() < 2)
+                    continue;
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        Long a = bucket.get(i);
+                        Long b = bucket.get(j);
+                        if (find(parent, a).equals(find(parent, b)))
+                            continue;
+                        if (estimateSimilarity(sigs.get(a), sigs.get(b)) >= SIMILARITY_THRESHOLD) {
+                            parent.put(find(parent, a), find(parent, b));
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<Long, List<Long>> clusters = new TreeMap<>();
+        for (Long id : parent.keySet()) {
+            clusters.computeIfAbsent(find(parent, id), k -> new ArrayList<>()).add(id);
+        }
+        return clusters.values().stream()
+                .filter(c -> c.size() > 1)
+                .peek(Collections::sort)
+                .collect(Collectors.toList());
+    }
+
+    private Long find(Map<Long, Long> parent, Long id) {
+        parent.putIfAbsent(id, id);
+        Long root = id;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+        // Path compression
+        while (!id.equals(root)) {
+            Long next = parent.get(id);
+            parent.put(id, root);
+            id = next;
+        }
+        return root;
+    }
+
+    private void addSignature(Long id, int[] sig) {
+        signatures.put(id, sig);
+        for (int b = 0; b < BANDS; b++) {
+            bandBuckets.get(b).computeIfAbsent(bandKey(sig, b), k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private int[] signature(Question question) {
+        int[] sig = new int[NUM_HASHES];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (int shingle : shingles(question)) {
+            // Reduced first: with a, b and x below 2^31 the product fits in 62 bits
+            long x = (shingle & 0xFFFFFFFFL) % MERSENNE_PRIME;
+            for (int i = 0; i < NUM_HASHES; i++) {
+                int h = (int) ((HASH_A[i] * x + HASH_B[i]) % MERSENNE_PRIME);
+                if (h < sig[i])
+                    sig[i] = h;
+            }
+        }
+        return sig;
+    }
+
+    private Set<Integer> shingles(Question question) {
+        String text = normalize(question.getContent()) + " | "
+                + normalize(question.getOptionA()) + " | "
+                + normalize(question.getOptionB()) + " | "
+                + normalize(question.getOptionC()) + " | "
+                + normalize(question.getOptionD());
+        Set<Integer> shingles = new HashSet<>();
+        if (text.length() < SHINGLE_SIZE) {
+            shingles.add(text.hashCode());
+            return shingles;
+        }
+        for (int i = 0; i + SHINGLE_SIZE <= text.length(); i++) {
+            shingles.add(text.substring(i, i + SHINGLE_SIZE).hashCode());
+        }
+        return shingles;
+    }
+
+    private String normalize(String value) {
+        if (value == null)
+            return "";
+        return value.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private int bandKey(int[] sig, int band) {
+        int hash = band;
+        for (int i = band * ROWS_PER_BAND; i < (band + 1) * ROWS_PER_BAND; i++) {
+            hash = 31 * hash + sig[i];
+        }
+        return hash;
+    }
+
+    private double estimateSimilarity(int[] a, int[] b) {
+        int same = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i])
+                same++;
+        }
+        return (double) same / NUM_HASHES;
+    }
+}
@@ -0,0 +1,120 @@
+package com.parakh.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.dto.BatchAnswer;
+import com.parakh.backend.model.Assessment;
+import com.parakh.backend.model.Exam;
+import com.parakh.backend.util.BundleSigner;
+import com.parakh.backend.util.PayloadSealer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Offline exams: the whole paper is delivered once as a gzipped JSON bundle,
+// signed so the client can check it, without answer keys. The bundle carries a
+// per-exam batch key; the client signs its answers with it and uploads them in
+// one request, which is graded by ExamService.submitBatch against the paper
+// pinned on the exam when the first bundle was built.
+@Service
+public class ExamBundleService {
+
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private BundleSigner bundleSigner;
+
+    @Autowired
+    private PayloadSealer payloadSealer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public static class Bundle {
+        private final byte[] gzipped;
+        private final String signature;
+
+        Bundle(byte[] gzipped, String signature) {
+            this.gzipped = gzipped;
+            this.signature = signature;
+        }
+
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        public String getSignature() {
+            return signature;
+        }
+    }
+
+    public Bundle buildBundle(Exam exam) {
+        Assessment assessment = exam.getAssessment();
+        if (assessment == null || !"TOPIC".equals(assessment.getType())) {
+            throw new RuntimeException("Only TOPIC assessment exams can be taken offline");
+        }
+        Map<String, Object> bundle = new LinkedHashMap<>();
+        bundle.put("examId", exam.getId());
+        bundle.put("assessmentId", assessment.getId());
+        bundle.put("title", assessment.getTitle());
+        bundle.put("subject", assessment.getSubject());
+        bundle.put("startTime", exam.getStartTime().toString());
+        if (assessment.getDurationMinutes() != null)
+            bundle.put("deadline", exam.getStartTime().plusMinutes(assessment.getDurationMinutes()).toString());
+        bundle.put("issuedAt", LocalDateTime.now().toString());
+        bundle.put("questions", examService.pinPaper(exam).stream().map(QuestionIndex::mask).toList());
+        bundle.put("batchKey", Base64.getEncoder().encodeToString(batchKey(exam.getId())));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            objectMapper.writeValue(gzip, bundle);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not build bundle", e);
+        }
+        byte[] gzipped = bytes.toByteArray();
+        return new Bundle(gzipped, bundleSigner.sign(gzipped));
+    }
+
+    // HMAC-SHA256 with the batch key over the exam id and each answer in order,
+    // one "questionId:selectedOption:timeTakenSeconds" line per answer
+    public boolean verifyBatch(Long examId, List<BatchAnswer> answers, String signature) {
+        if (signature == null)
+            return false;
+        StringBuilder canonical = new StringBuilder().append(examId).append('\n');
+        for (BatchAnswer answer : answers) {
+            canonical.append(answer.questionId()).append(':')
+                    .append(answer.selectedOption()).append(':')
+                    .append(answer.timeTakenSeconds() != null ? answer.timeTakenSeconds() : 0)
+                    .append('\n');
+        }
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(batchKey(examId), "HmacSHA256"));
+            byte[] expected = mac.doFinal(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, Base64.getDecoder().decode(signature));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public String getPublicKey() {
+        return bundleSigner.getPublicKey();
+    }
+
+    private byte[] batchKey(Long examId) {
+        return payloadSealer.keyFor("batch:" + examId);
+    }
+}
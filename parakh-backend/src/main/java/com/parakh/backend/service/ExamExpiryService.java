@@ -0,0 +1,216 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.dto.ExamDeadlineRow;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.event.ExamStartedEvent;
+import com.parakh.backend.event.ExamTimedOutEvent;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Enforces exam time limits. Every IN_PROGRESS exam has one entry in a timing
+// wheel; a single ticker thread collects expired exams and terminates them in
+// batches with one guarded UPDATE per chunk. Starts on other instances arrive
+// over the invalidation channel; a periodic scan of recently started exams, on
+// its own thread, catches any broadcast that was lost.
+@Service
+public class ExamExpiryService {
+
+    private static final int BATCH_SIZE = 500;
+    private static final String STARTS_CHANNEL = "exam-starts";
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("${parakh.exam.default-duration-minutes:60}")
+    private int defaultDurationMinutes;
+
+    @Value("${parakh.exam.expiry-tick-ms:1000}")
+    private long tickMillis;
+
+    // How often the safety scan looks for exams started since the last one
+    @Value("${parakh.exam.expiry-resync-ms:60000}")
+    private long resyncMillis;
+
+    private final TransactionTemplate tx;
+    private volatile TimingWheel<Long> wheel;
+    // Start time the next safety scan begins from; only the scanner touches it
+    private LocalDateTime scannedUpTo;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "exam-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ScheduledExecutorService scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "exam-expiry-scan");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ExamExpiryService(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void listenForStarts() {
+        cacheRegistry.onInvalidation(STARTS_CHANNEL, key -> {
+            // Before start() the startup scan will find the exam
+            TimingWheel<Long> current = wheel;
+            if (current == null)
+                return;
+            if (key == null) {
+                // Starts may have been missed while the channel was down
+                scanner.execute(() -> scanQuietly(null));
+                return;
+            }
+            String[] parts = key.split(":");
+            if (!current.isScheduled(Long.valueOf(parts[0])))
+                current.schedule(Long.valueOf(parts[0]), Long.parseLong(parts[1]));
+        });
+    }
+
+    // Rebuilds the wheel from IN_PROGRESS exams; already overdue exams fire on the first tick
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        scan(null);
+        System.out.println("Exam expiry scheduler tracking " + wheel.size() + " in-progress exams");
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        scanner.scheduleWithFixedDelay(() -> scanQuietly(scannedUpTo), resyncMillis, resyncMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Tells the other instances, once the exam row is committed, so they time
+    // it out too if this one goes away
+    @EventListener
+    public void onExamStarted(ExamStartedEvent event) {
+        Long deadline = schedule(event.getExamId(), event.getStartTime(), event.getDurationMinutes());
+        if (deadline != null)
+            afterCommit(() -> cacheRegistry.publishInvalidation(STARTS_CHANNEL, event.getExamId() + ":" + deadline));
+    }
+
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        if (wheel != null)
+            wheel.cancel(event.getExamId());
+    }
+
+    public int getPendingCount() {
+        return wheel != null ? wheel.size() : 0;
+    }
+
+    // Returns the deadline, or null if the wheel is not running yet
+    private Long schedule(Long examId, LocalDateTime startTime, Integer durationMinutes) {
+        TimingWheel<Long> current = wheel;
+        if (current == null || startTime == null)
+            return null;
+        int minutes = durationMinutes != null ? durationMinutes : defaultDurationMinutes;
+        long deadline = startTime.plusMinutes(minutes).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        current.schedule(examId, deadline);
+        return deadline;
+    }
+
+    // Every instance tracks every exam; the guarded UPDATE in terminate() lets only
+    // one of them time an exam out. With a start time only exams started after it
+    // are read (the start_time index), less one interval: a start time is set
+    // before its row commits, and instance clocks drift a little.
+    private void scan(LocalDateTime startedAfter) {
+        LocalDateTime began = LocalDateTime.now();
+        tx.executeWithoutResult(status -> {
+            try (Stream<ExamDeadlineRow> rows = startedAfter == null ? examRepository.streamInProgressDeadlines()
+                    : examRepository.streamInProgressDeadlinesStartedAfter(
+                            startedAfter.minus(resyncMillis, ChronoUnit.MILLIS))) {
+                rows.filter(row -> !wheel.isScheduled(row.getExamId()))
+                        .forEach(row -> schedule(row.getExamId(), row.getStartTime(), row.getDurationMinutes()));
+            }
+        });
+        scannedUpTo = began;
+    }
+
+    private void scanQuietly(LocalDateTime startedAfter) {
+        try {
+            scan(startedAfter);
+        } catch (Exception e) {
+            System.out.println("Exam expiry scan failed: " + e.getMessage());
+        }
+    }
+
+    private void tick() {
+        try {
+            List<Long> expired = wheel.advance(System.currentTimeMillis());
+            for (int i = 0; i < expired.size(); i += BATCH_SIZE) {
+                terminate(expired.subList(i, Math.min(i + BATCH_SIZE, expired.size())));
+            }
+        } catch (Exception e) {
+            System.out.println("Exam expiry tick failed: " + e.getMessage());
+        }
+    }
+
+    private void terminate(List<Long> examIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ExamDeadlineRow> terminated = tx.execute(status -> {
+            List<ExamDeadlineRow> rows = examRepository.findInProgressDeadlines(examIds);
+            if (rows.isEmpty())
+                return rows;
+            List<Long> ids = rows.stream().map(ExamDeadlineRow::getExamId).toList();
+            int updated = examRepository.terminate(ids, now);
+            if (updated == rows.size())
+                return rows;
+            // Some exams completed between the read and the update
+            Set<Long> actual = new HashSet<>(examRepository.findTerminatedIds(ids, now));
+            return rows.stream().filter(r -> actual.contains(r.getExamId())).toList();
+        });
+        for (ExamDeadlineRow row : terminated) {
+            eventPublisher.publishEvent(new ExamTimedOutEvent(row.getExamId(), row.getAssessmentId(),
+                    row.getUserId(), row.getScore()));
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        scanner.shutdownNow();
+    }
+}
@@ -1,16 +1,38 @@
 package com.parakh.backend.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.dto.BatchAnswer;
+import com.parakh.backend.dto.BatchSummary;
 import com.parakh.backend.dto.ExamStateDTO;
+import com.parakh.backend.event.AnswerSubmittedEvent;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.event.ExamStartedEvent;
+import com.parakh.backend.journal.JournalEntry;
 import com.parakh.backend.model.*;
 import com.parakh.backend.repository.*;
+import com.parakh.backend.util.PayloadSealer;
+import com.parakh.backend.util.StripedLocks;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Service
 public class ExamService {
@@ -27,6 +49,32 @@ public class ExamService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ExamSessionStore examSessionStore;
+
+    @Autowired
+    private OptimisticRetry optimisticRetry;
+
+    @Autowired
+    private QuestionIndex questionIndex;
+
+    @Autowired
+    private PayloadSealer payloadSealer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AnswerJournal answerJournal;
+
+    private static final int MAX_QUESTIONS = 10;
+
+    // Serializes submits for the same exam
+    private final StripedLocks examLocks = new StripedLocks(256);
+
     public ExamStateDTO startExam(Long userId, String subject) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -37,20 +85,154 @@ public class ExamService {
         exam.setStatus("IN_PROGRESS");
         exam.setCurrentDifficulty("Medium"); // Start at Medium
         examRepository.save(exam);
+        eventPublisher.publishEvent(new ExamStartedEvent(exam.getId(), null, userId, exam.getStartTime(), null));
+
+        return firstQuestionState(exam);
+    }
+
+    public Exam startAssessmentExam(User student, Assessment assessment) {
+        Exam exam = new Exam();
+        exam.setUser(student);
+        exam.setAssessment(assessment);
+        exam.setSubject(assessment.getSubject() != null ? assessment.getSubject() : "General");
+        exam.setStartTime(LocalDateTime.now());
+        exam.setStatus("IN_PROGRESS");
+        exam.setScore(0);
+        examRepository.save(exam);
 
-        return getNextQuestionState(exam);
+        eventPublisher.publishEvent(new ExamStartedEvent(exam.getId(), assessment.getId(), student.getId(),
+                exam.getStartTime(), assessment.getDurationMinutes()));
+        return exam;
     }
 
     public ExamStateDTO submitAnswer(Long examId, Long questionId, String selectedOption) {
+        ReentrantLock lock = examLocks.get(examId);
+        lock.lock();
+        try {
+            return submitAnswerLocked(examId, questionId, selectedOption, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies an answer recovered from the journal, which it is already in
+    public ExamStateDTO replayAnswer(JournalEntry entry) {
+        ReentrantLock lock = examLocks.get(entry.getExamId());
+        lock.lock();
+        try {
+            return submitAnswerLocked(entry.getExamId(), entry.getQuestionId(), entry.getSelectedOption(), false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A retried submit for an already answered question is not graded again: it
+    // gets the original response, rebuilt from the database if this instance has
+    // not seen the exam before. A new answer is journaled before anything else.
+    // If the database cannot be reached it stays in the journal and the student
+    // is told it is pending; a retry grades that journaled answer, not the
+    // retried one, as soon as the database is back, and until then is pending too.
+    private ExamStateDTO submitAnswerLocked(Long examId, Long questionId, String selectedOption, boolean journal) {
+        ExamSessionStore.ExamSession session = examSessionStore.get(examId);
+        ExamStateDTO previous = session.getResponse(questionId);
+        if (previous != null)
+            return previous;
+        if (!journal)
+            return applyAnswer(session, examId, questionId, selectedOption);
+
+        JournalEntry entry = session.getPending(questionId);
+        if (entry == null) {
+            long sequence = answerJournal.append(examId, questionId, selectedOption);
+            entry = new JournalEntry(sequence, examId, questionId, selectedOption, System.currentTimeMillis());
+        }
+        ExamStateDTO state;
+        try {
+            state = applyAnswer(session, examId, questionId, entry.getSelectedOption());
+        } catch (RuntimeException e) {
+            // Without the journal nothing holds the answer, so it fails as before
+            if (AnswerJournal.isDatabaseUnavailable(e) && entry.getSequence() != 0) {
+                session.recordPending(questionId, entry);
+                return ExamStateDTO.pending(examId);
+            }
+            session.clearPending(questionId);
+            answerJournal.markApplied(entry.getSequence());
+            throw e;
+        }
+        answerJournal.markApplied(entry.getSequence());
+        return state;
+    }
+
+    private ExamStateDTO applyAnswer(ExamSessionStore.ExamSession session, Long examId, Long questionId,
+            String selectedOption) {
         Exam exam = examRepository.findById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
-        Question question = questionRepository.findById(questionId)
-                .orElseThrow(() -> new RuntimeException("Question not found"));
+        if (!exam.getStatus().equals("IN_PROGRESS")) {
+            examSessionStore.remove(examId);
+            throw new RuntimeException("Exam is already completed");
+        }
+
+        GradeResult graded;
+        try {
+            graded = optimisticRetry.execute(() -> grade(examId, questionId, selectedOption));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance recorded this answer first (unique exam_id, question_id);
+            // reload the session to return what that instance returned
+            examSessionStore.remove(examId);
+            ExamStateDTO recorded = examSessionStore.get(examId).getResponse(questionId);
+            if (recorded == null)
+                throw e;
+            return recorded;
+        }
 
+        Exam updated = graded.exam;
+        ExamStateDTO state;
+        if (graded.next == null) {
+            completeExam(updated.getId(), null);
+            state = new ExamStateDTO(updated.getId(), null, true, updated.getScore(), graded.answered);
+        } else {
+            state = new ExamStateDTO(updated.getId(), graded.next, false, updated.getScore(), graded.answered);
+        }
+        session.recordAnswer(questionId, state);
+        eventPublisher.publishEvent(new AnswerSubmittedEvent(updated.getId(),
+                updated.getAssessment() != null ? updated.getAssessment().getId() : null,
+                updated.getUser().getId(), questionId, graded.correct, updated.getScore(), graded.answered));
+        return state;
+    }
+
+    // Records the response, the question served next, and the new score and
+    // difficulty in one transaction; re-run from a fresh read if the exam's
+    // version changed underneath
+    private GradeResult grade(Long examId, Long questionId, String selectedOption) {
+        Exam exam = examRepository.findById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
         if (!exam.getStatus().equals("IN_PROGRESS")) {
             throw new RuntimeException("Exam is already completed");
         }
+        String answerKey = questionIndex.getAnswerKey(questionId);
+        Question question;
+        if (answerKey != null) {
+            // Known to exist; a reference links the response without reloading the row
+            question = questionRepository.getReferenceById(questionId);
+        } else {
+            question = questionRepository.findById(questionId)
+                    .orElseThrow(() -> new RuntimeException("Question not found"));
+            answerKey = question.getCorrectOption();
+        }
+
+        boolean isCorrect = answerKey.equalsIgnoreCase(selectedOption);
+
+        // Update Score
+        if (isCorrect) {
+            exam.setScore(exam.getScore() + 1);
+        }
 
-        boolean isCorrect = question.getCorrectOption().equalsIgnoreCase(selectedOption);
+        // Adaptive Logic
+        adjustDifficulty(exam, isCorrect);
+
+        Set<Long> answeredQuestionIds = new HashSet<>(studentResponseRepository.findAnsweredQuestionIds(examId));
+        answeredQuestionIds.add(questionId);
+        // MVP Constraint: End exam after 10 questions
+        Question next = answeredQuestionIds.size() >= MAX_QUESTIONS ? null
+                : pickNextQuestion(exam.getSubject(), exam.getCurrentDifficulty(), answeredQuestionIds,
+                        branchRandom(examId, questionId, isCorrect));
 
         StudentResponse response = new StudentResponse();
         response.setExam(exam);
@@ -58,52 +240,261 @@ public class ExamService {
         response.setSelectedOption(selectedOption);
         response.setIsCorrect(isCorrect);
         response.setTimeTakenSeconds(0L); // TODO: Calculate actual time from frontend if sent
+        response.setNextQuestionId(next != null ? next.getId() : null);
         studentResponseRepository.save(response);
 
-        // Update Score
-        if (isCorrect) {
-            exam.setScore(exam.getScore() + 1);
+        return new GradeResult(examRepository.save(exam), isCorrect, next, answeredQuestionIds.size());
+    }
+
+    // The fixed set of questions of a TOPIC assessment exam, as stored (with
+    // answer keys). Shuffled with the exam id as seed, so every request and
+    // instance gets the same paper.
+    // The pinned paper if the exam has one, otherwise drawn from the current bank
+    public List<Question> paperQuestions(Exam exam) {
+        if (exam.getPaperQuestionIds() != null) {
+            // One at a time, as findById is served by the second-level cache
+            return pinnedIds(exam).stream().map(questionRepository::findById)
+                    .flatMap(Optional::stream).toList();
+        }
+        Assessment assessment = exam.getAssessment();
+        List<Question> questions = new ArrayList<>(
+                questionRepository.findBySubjectAndDifficulty(assessment.getSubject(), assessment.getDifficulty()));
+        questions.sort(Comparator.comparing(Question::getId));
+        Collections.shuffle(questions, new Random(exam.getId()));
+        if (questions.size() > assessment.getQuestionCount()) {
+            questions = questions.subList(0, assessment.getQuestionCount());
         }
+        return questions;
+    }
 
-        // Adaptive Logic
-        adjustDifficulty(exam, isCorrect);
-        examRepository.save(exam);
+    // Fixes the paper on the exam, once, and returns it. The offline bundle is
+    // built from this, so an upload is checked against the questions the
+    // student was given even if the bank has changed since.
+    public List<Question> pinPaper(Exam exam) {
+        if (exam.getPaperQuestionIds() == null) {
+            String ids = paperQuestions(exam).stream().map(q -> q.getId().toString())
+                    .collect(Collectors.joining(","));
+            // A concurrent download may have pinned it first; that one wins
+            String pinned = optimisticRetry.execute(() -> {
+                Exam current = examRepository.findById(exam.getId())
+                        .orElseThrow(() -> new RuntimeException("Exam not found"));
+                if (current.getPaperQuestionIds() == null) {
+                    current.setPaperQuestionIds(ids);
+                    examRepository.save(current);
+                }
+                return current.getPaperQuestionIds();
+            });
+            exam.setPaperQuestionIds(pinned);
+        }
+        return paperQuestions(exam);
+    }
 
-        return getNextQuestionState(exam);
+    private static List<Long> pinnedIds(Exam exam) {
+        if (exam.getPaperQuestionIds().isEmpty())
+            return List.of();
+        return Arrays.stream(exam.getPaperQuestionIds().split(",")).map(Long::valueOf).toList();
+    }
+
+    // Grades a whole paper answered offline and completes the exam. Answers to
+    // questions outside the paper, or already recorded by an earlier upload that
+    // was cut off, are skipped, so the client can simply upload again.
+    public BatchSummary submitBatch(Long examId, List<BatchAnswer> answers) {
+        ReentrantLock lock = examLocks.get(examId);
+        lock.lock();
+        try {
+            return submitBatchLocked(examId, answers);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private BatchSummary submitBatchLocked(Long examId, List<BatchAnswer> answers) {
+        BatchResult batch = optimisticRetry.execute(() -> {
+            Exam exam = examRepository.findWithAssessmentById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
+            Set<Long> answered = new HashSet<>(studentResponseRepository.findAnsweredQuestionIds(examId));
+            if (!exam.getStatus().equals("IN_PROGRESS"))
+                return new BatchResult(exam, List.of(), exam.getScore(), answered.size());
+            int scoreBefore = exam.getScore();
+            int answeredBefore = answered.size();
+            Set<Long> paper = exam.getPaperQuestionIds() != null ? new HashSet<>(pinnedIds(exam))
+                    : paperQuestions(exam).stream().map(Question::getId).collect(Collectors.toSet());
+            List<StudentResponse> graded = new ArrayList<>();
+            for (BatchAnswer answer : answers) {
+                Long questionId = answer.questionId();
+                if (questionId == null || answer.selectedOption() == null || !paper.contains(questionId)
+                        || !answered.add(questionId))
+                    continue;
+                String answerKey = questionIndex.getAnswerKey(questionId);
+                if (answerKey == null)
+                    answerKey = questionRepository.findById(questionId).map(Question::getCorrectOption).orElse("");
+                StudentResponse response = new StudentResponse();
+                response.setExam(exam);
+                response.setQuestion(questionRepository.getReferenceById(questionId));
+                response.setSelectedOption(answer.selectedOption());
+                response.setIsCorrect(answerKey.equalsIgnoreCase(answer.selectedOption()));
+                response.setTimeTakenSeconds(answer.timeTakenSeconds() != null ? answer.timeTakenSeconds() : 0L);
+                graded.add(response);
+                if (response.getIsCorrect())
+                    exam.setScore(exam.getScore() + 1);
+            }
+            studentResponseRepository.saveAll(graded);
+            return new BatchResult(examRepository.save(exam), graded, scoreBefore, answeredBefore);
+        });
+
+        Exam exam = batch.exam;
+        String status = exam.getStatus();
+        if (status.equals("IN_PROGRESS")) {
+            Long assessmentId = exam.getAssessment() != null ? exam.getAssessment().getId() : null;
+            int score = batch.scoreBefore;
+            int answered = batch.answeredBefore;
+            for (StudentResponse response : batch.graded) {
+                if (response.getIsCorrect())
+                    score++;
+                answered++;
+                eventPublisher.publishEvent(new AnswerSubmittedEvent(examId, assessmentId, exam.getUser().getId(),
+                        response.getQuestion().getId(), response.getIsCorrect(), score, answered));
+            }
+            // Timed out in the meantime: the answers still count, the status says so
+            status = completeExam(examId, null) ? "COMPLETED"
+                    : examRepository.findById(examId).map(Exam::getStatus).orElse(status);
+        } else if (!status.equals("COMPLETED")) {
+            throw new RuntimeException("Exam is no longer in progress: " + status);
+        }
+
+        // A repeated upload of a completed exam gets the same summary
+        return new BatchSummary(examId, status, exam.getScore(), batch.answeredBefore + batch.graded.size(),
+                batch.graded.size());
+    }
+
+    // Marks the exam COMPLETED, optionally with a final score. Returns false if the
+    // exam was no longer in progress, e.g. already submitted or timed out.
+    public boolean completeExam(Long examId, Integer finalScore) {
+        LocalDateTime now = LocalDateTime.now();
+        // The assessment is fetched with the exam as the completion event needs its class
+        Exam saved = optimisticRetry.execute(() -> {
+            Exam exam = examRepository.findWithAssessmentById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
+            if (!exam.getStatus().equals("IN_PROGRESS"))
+                return null;
+            if (finalScore != null)
+                exam.setScore(finalScore);
+            exam.setStatus("COMPLETED");
+            exam.setEndTime(now);
+            return examRepository.save(exam);
+        });
+        if (saved == null)
+            return false;
+
+        Assessment assessment = saved.getAssessment();
+        eventPublisher.publishEvent(new ExamCompletedEvent(saved.getId(),
+                assessment != null ? assessment.getId() : null,
+                assessment != null ? assessment.getClassroom().getId() : null,
+                saved.getUser().getId(), saved.getSubject(), saved.getScore(),
+                Duration.between(saved.getStartTime(), saved.getEndTime()).getSeconds()));
+        return true;
+    }
+
+    // Records the scanned answer sheet of a PDF exam; a later upload replaces
+    // it until the exam is submitted. False once the exam is over.
+    public boolean attachAnswerSheet(Long examId, String fileId) {
+        Exam saved = optimisticRetry.execute(() -> {
+            Exam exam = examRepository.findById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
+            if (!exam.getStatus().equals("IN_PROGRESS"))
+                return null;
+            exam.setAnswerSheetFileId(fileId);
+            return examRepository.save(exam);
+        });
+        return saved != null;
     }
 
     private void adjustDifficulty(Exam exam, boolean lastCorrect) {
-        String current = exam.getCurrentDifficulty();
+        exam.setCurrentDifficulty(nextDifficulty(exam.getCurrentDifficulty(), lastCorrect));
+    }
+
+    public String nextDifficulty(String current, boolean lastCorrect) {
         if (lastCorrect) {
             if (current.equals("Easy"))
-                exam.setCurrentDifficulty("Medium");
+                return "Medium";
             else if (current.equals("Medium"))
-                exam.setCurrentDifficulty("Hard");
+                return "Hard";
         } else {
             if (current.equals("Hard"))
-                exam.setCurrentDifficulty("Medium");
+                return "Medium";
             else if (current.equals("Medium"))
-                exam.setCurrentDifficulty("Easy");
+                return "Easy";
         }
+        return current;
     }
 
-    private ExamStateDTO getNextQuestionState(Exam exam) {
-        List<StudentResponse> existingResponses = studentResponseRepository.findByExamId(exam.getId());
+    // Speculative mode: the question that follows this one if the answer is right
+    // and if it is wrong, picked now the same way grade() will pick it, each
+    // sealed under its own key. The answer reveals only the key for the branch
+    // taken (see nextQuestionKey), so the client can show the next question as
+    // soon as the short reply arrives without ever learning the answer key.
+    // Empty when this is the last question.
+    public List<String> sealFollowUps(Long examId, Long questionId) {
+        Exam exam = examRepository.findById(examId).orElseThrow(() -> new RuntimeException("Exam not found"));
+        if (!exam.getStatus().equals("IN_PROGRESS")) {
+            throw new RuntimeException("Exam is already completed");
+        }
+        Set<Long> answeredQuestionIds = new HashSet<>(studentResponseRepository.findAnsweredQuestionIds(examId));
+        if (!answeredQuestionIds.add(questionId)) {
+            throw new RuntimeException("Question already answered");
+        }
+        List<String> sealed = new ArrayList<>(2);
+        if (answeredQuestionIds.size() >= MAX_QUESTIONS)
+            return sealed;
+        for (boolean correct : new boolean[] { true, false }) {
+            Question next = pickNextQuestion(exam.getSubject(), nextDifficulty(exam.getCurrentDifficulty(), correct),
+                    answeredQuestionIds, branchRandom(examId, questionId, correct));
+            if (next == null)
+                continue;
+            try {
+                sealed.add(payloadSealer.seal(followUpKey(examId, questionId, next.getId()),
+                        objectMapper.writeValueAsBytes(next)));
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Could not serialize question", e);
+            }
+        }
+        return sealed;
+    }
 
-        // MVP Constraint: End exam after 10 questions
-        if (existingResponses.size() >= 10) {
-            exam.setStatus("COMPLETED");
-            exam.setEndTime(LocalDateTime.now());
-            examRepository.save(exam);
-            return new ExamStateDTO(exam.getId(), null, true, exam.getScore(), existingResponses.size());
+    // Opens the sealed follow-up that the answer to questionId led to
+    public String nextQuestionKey(Long examId, Long questionId, ExamStateDTO state) {
+        if (state.getNextQuestion() == null)
+            return null;
+        return Base64.getEncoder().encodeToString(followUpKey(examId, questionId, state.getNextQuestion().getId()));
+    }
+
+    private byte[] followUpKey(Long examId, Long questionId, Long nextQuestionId) {
+        return payloadSealer.keyFor("follow-up:" + examId + ":" + questionId + ":" + nextQuestionId);
+    }
+
+    // Same branch, same pick, on any instance
+    private static Random branchRandom(Long examId, Long questionId, boolean correct) {
+        return new Random(examId * 1_000_003L + questionId * 2 + (correct ? 1 : 0));
+    }
+
+    private ExamStateDTO firstQuestionState(Exam exam) {
+        Question next = pickNextQuestion(exam.getSubject(), exam.getCurrentDifficulty(), Set.of());
+        if (next == null) {
+            // No questions at all for this subject
+            completeExam(exam.getId(), null);
+            return new ExamStateDTO(exam.getId(), null, true, exam.getScore(), 0);
         }
+        return new ExamStateDTO(exam.getId(), next, false, exam.getScore(), 0);
+    }
 
-        List<Long> answeredQuestionIds = existingResponses.stream()
-                .map(r -> r.getQuestion().getId())
-                .collect(Collectors.toList());
+    // Random unanswered question at the given difficulty, falling back to any
+    // difficulty. The result is already masked (no correct option).
+    public Question pickNextQuestion(String subject, String difficulty, Set<Long> answeredQuestionIds) {
+        return pickNextQuestion(subject, difficulty, answeredQuestionIds, ThreadLocalRandom.current());
+    }
 
-        List<Question> candidates = questionRepository.findBySubjectAndDifficulty(exam.getSubject(),
-                exam.getCurrentDifficulty());
+    private Question pickNextQuestion(String subject, String difficulty, Set<Long> answeredQuestionIds,
+            Random random) {
+        boolean indexed = questionIndex.isLoaded();
+        List<Question> candidates = indexed ? questionIndex.getPayloads(subject, difficulty)
+                : questionRepository.findBySubjectAndDifficulty(subject, difficulty);
 
         // Filter out answered questions
         List<Question> available = candidates.stream()
@@ -113,36 +504,48 @@ public class ExamService {
         if (available.isEmpty()) {
             // Fallback: If no questions left in this difficulty, try any difficulty not
             // answered
-            List<Question> allSubjectQuestions = questionRepository.findBySubject(exam.getSubject());
+            List<Question> allSubjectQuestions = indexed ? questionIndex.getPayloads(subject)
+                    : questionRepository.findBySubject(subject);
             available = allSubjectQuestions.stream()
                     .filter(q -> !answeredQuestionIds.contains(q.getId()))
                     .collect(Collectors.toList());
         }
 
-        if (available.isEmpty()) {
-            // No questions left at all
-            exam.setStatus("COMPLETED");
-            exam.setEndTime(LocalDateTime.now());
-            examRepository.save(exam);
-            return new ExamStateDTO(exam.getId(), null, true, exam.getScore(), existingResponses.size());
-        }
-
-        // Pick random
-        Question next = available.get(new Random().nextInt(available.size()));
-
-        // Mask correct answer before sending to frontend (Security best practice)
-        Question safeQuestion = new Question();
-        safeQuestion.setId(next.getId());
-        safeQuestion.setContent(next.getContent());
-        safeQuestion.setOptionA(next.getOptionA());
-        safeQuestion.setOptionB(next.getOptionB());
-        safeQuestion.setOptionC(next.getOptionC());
-        safeQuestion.setOptionD(next.getOptionD());
-        safeQuestion.setSubject(next.getSubject());
-        safeQuestion.setDifficulty(next.getDifficulty());
-        safeQuestion.setTopic(next.getTopic());
-        // DO NOT SET CORRECT OPTION
-
-        return new ExamStateDTO(exam.getId(), safeQuestion, false, exam.getScore(), existingResponses.size());
+        if (available.isEmpty())
+            return null;
+
+        // Pick random; sorted first so a seeded pick is the same on every instance
+        available.sort(Comparator.comparing(Question::getId));
+        Question next = available.get(random.nextInt(available.size()));
+        // Index payloads are masked already; database rows are not
+        return indexed ? next : QuestionIndex.mask(next);
+    }
+
+    private static class GradeResult {
+        private final Exam exam;
+        private final boolean correct;
+        private final Question next;
+        private final int answered;
+
+        GradeResult(Exam exam, boolean correct, Question next, int answered) {
+            this.exam = exam;
+            this.correct = correct;
+            this.next = next;
+            this.answered = answered;
+        }
+    }
+
+    private static class BatchResult {
+        private final Exam exam;
+        private final List<StudentResponse> graded;
+        private final int scoreBefore;
+        private final int answeredBefore;
+
+        BatchResult(Exam exam, List<StudentResponse> graded, int scoreBefore, int answeredBefore) {
+            this.exam = exam;
+            this.graded = graded;
+            this.scoreBefore = scoreBefore;
+            this.answeredBefore = answeredBefore;
+        }
     }
 }
@@ -0,0 +1,121 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.cache.CacheRegion;
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.dto.ExamStateDTO;
+import com.parakh.backend.dto.SessionResponseRow;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.event.ExamTimedOutEvent;
+import com.parakh.backend.journal.JournalEntry;
+import com.parakh.backend.repository.StudentResponseRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory state of running exams: which questions are answered and the
+// response returned for each, so a retried submit can be answered verbatim.
+// Every response records the question served next, so a session is a cache of
+// student_responses and any instance can rebuild it from the database. Sessions
+// are dropped when the exam ends, on every instance, and the least useful ones
+// are evicted once the cache is full.
+@Service
+public class ExamSessionStore {
+
+    @Autowired
+    private StudentResponseRepository studentResponseRepository;
+
+    @Autowired
+    private QuestionIndex questionIndex;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("${parakh.cache.exam-sessions.max-size:50000}")
+    private long maxSessions;
+
+    @Value("${parakh.cache.exam-sessions.ttl-ms:14400000}")
+    private long sessionTtlMillis;
+
+    // Local only: sessions are rebuilt from the database, never shared
+    private CacheRegion<ExamSession> sessions;
+
+    @PostConstruct
+    public void initCache() {
+        sessions = cacheRegistry.region("exam-sessions", ExamSession.class, maxSessions, sessionTtlMillis, false);
+    }
+
+    // Concurrent misses may both load; the first one cached wins
+    public ExamSession get(Long examId) {
+        return sessions.get(examId.toString(), key -> load(examId));
+    }
+
+    // Drops the cached session so the next get() reads what other instances recorded
+    public void remove(Long examId) {
+        sessions.evictLocal(examId.toString());
+    }
+
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        sessions.invalidate(event.getExamId().toString());
+    }
+
+    @EventListener
+    public void onExamTimedOut(ExamTimedOutEvent event) {
+        sessions.invalidate(event.getExamId().toString());
+    }
+
+    // Replays the responses in order, rebuilding the state returned after each one
+    private ExamSession load(Long examId) {
+        ExamSession session = new ExamSession();
+        int score = 0;
+        int answered = 0;
+        for (SessionResponseRow row : studentResponseRepository.findSessionRows(examId)) {
+            answered++;
+            if (Boolean.TRUE.equals(row.getIsCorrect()))
+                score++;
+            boolean completed = row.getNextQuestionId() == null;
+            session.answers.put(row.getQuestionId(), new ExamStateDTO(examId,
+                    completed ? null : questionIndex.getPayload(row.getNextQuestionId()), completed, score,
+                    answered));
+        }
+        return session;
+    }
+
+    public static class ExamSession {
+        private final Map<Long, ExamStateDTO> answers = new ConcurrentHashMap<>();
+        // Answers journaled while the database was unreachable, not graded yet
+        private final Map<Long, JournalEntry> pending = new ConcurrentHashMap<>();
+
+        public boolean isAnswered(Long questionId) {
+            return answers.containsKey(questionId);
+        }
+
+        // The response sent for this answer, or null if it is not answered
+        public ExamStateDTO getResponse(Long questionId) {
+            return answers.get(questionId);
+        }
+
+        public void recordAnswer(Long questionId, ExamStateDTO response) {
+            answers.put(questionId, response);
+            pending.remove(questionId);
+        }
+
+        // The journaled answer the student was told is pending, or null
+        public JournalEntry getPending(Long questionId) {
+            return pending.get(questionId);
+        }
+
+        public void recordPending(Long questionId, JournalEntry entry) {
+            pending.put(questionId, entry);
+        }
+
+        public void clearPending(Long questionId) {
+            pending.remove(questionId);
+        }
+    }
+}
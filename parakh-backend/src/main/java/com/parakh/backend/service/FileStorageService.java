@@ -0,0 +1,322 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.dto.FileStats;
+import com.parakh.backend.dto.StartUploadRequest;
+import com.parakh.backend.dto.StoredFileView;
+import com.parakh.backend.dto.UploadStatus;
+import com.parakh.backend.model.FileUpload;
+import com.parakh.backend.model.StoredFile;
+import com.parakh.backend.repository.FileUploadRepository;
+import com.parakh.backend.repository.StoredFileRepository;
+import com.parakh.backend.storage.FileSender;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Content-addressed file store for assessment papers and answer sheets. A file
+// is kept once under blobs/ by the SHA-256 of its bytes, whoever uploads it.
+// Uploads are resumable: bytes are appended in chunks at the offset the server
+// reports, which is simply the length of the part file, so an interrupted
+// chunk (or instance) loses nothing that reached the disk. The part file's OS
+// lock keeps two chunks of one upload from interleaving, across instances too.
+// Naming a hash is not proof of having the bytes, so a stored file is handed
+// back without a transfer only to someone who already uploaded it; anyone else
+// sends the bytes (stored no second time) and then counts as an uploader.
+@Service
+public class FileStorageService {
+
+    // Leading bytes each accepted type must start with
+    private static final Map<String, byte[]> SIGNATURES = Map.of(
+            "application/pdf", "%PDF-".getBytes(StandardCharsets.US_ASCII),
+            "image/jpeg", new byte[] { (byte) 0xFF, (byte) 0xD8, (byte) 0xFF },
+            "image/png", new byte[] { (byte) 0x89, 'P', 'N', 'G' });
+
+    @Autowired
+    private StoredFileRepository storedFileRepository;
+
+    @Autowired
+    private FileUploadRepository fileUploadRepository;
+
+    @Autowired
+    private FileSender fileSender;
+
+    // Shared by all instances, like the database
+    @Value("${parakh.storage.dir:data/files}")
+    private Path dir;
+
+    @Value("${parakh.storage.max-file-size:100MB}")
+    private DataSize maxFileSize;
+
+    @Value("${parakh.storage.max-chunk-size:8MB}")
+    private DataSize maxChunkSize;
+
+    @Value("${parakh.storage.upload-ttl:24h}")
+    private Duration uploadTtl;
+
+    private final ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "upload-expiry");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        cleaner.scheduleWithFixedDelay(() -> {
+            try {
+                expireUploads();
+            } catch (RuntimeException e) {
+                System.out.println("Upload expiry failed: " + e.getMessage());
+            }
+        }, 1, 1, TimeUnit.HOURS);
+    }
+
+    public UploadStatus startUpload(Long userId, StartUploadRequest request) {
+        String contentType = request.contentType();
+        if (contentType == null || !SIGNATURES.containsKey(contentType)) {
+            throw new IllegalArgumentException("contentType must be one of " + new TreeSet<>(SIGNATURES.keySet()));
+        }
+        Long size = request.size();
+        if (size == null || size <= 0 || size > maxFileSize.toBytes()) {
+            throw new IllegalArgumentException("size must be between 1 and " + maxFileSize.toBytes() + " bytes");
+        }
+        String sha256 = request.sha256() == null ? null : request.sha256().toLowerCase(Locale.ROOT);
+        if (sha256 != null && !isFileId(sha256)) {
+            throw new IllegalArgumentException("sha256 must be 64 hex digits");
+        }
+
+        // Already uploaded by this user: nothing to send
+        if (sha256 != null && storedFileRepository.isUploader(sha256, userId)) {
+            Optional<StoredFile> existing = storedFileRepository.findById(sha256);
+            if (existing.isPresent() && existing.get().getSize().equals(size)) {
+                return new UploadStatus(null, size, size, new StoredFileView(existing.get()));
+            }
+        }
+
+        FileUpload upload = new FileUpload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setUserId(userId);
+        upload.setFileName(request.fileName());
+        upload.setContentType(contentType);
+        upload.setSize(size);
+        upload.setSha256(sha256);
+        upload.setCreatedAt(LocalDateTime.now());
+        fileUploadRepository.save(upload);
+        return new UploadStatus(upload.getId(), 0, size, null);
+    }
+
+    // Null if there is no such upload of this user
+    public UploadStatus getUpload(String uploadId, Long userId) throws IOException {
+        FileUpload upload = findUpload(uploadId, userId);
+        if (upload == null)
+            return null;
+        Path part = partPath(uploadId);
+        return new UploadStatus(uploadId, Files.exists(part) ? Files.size(part) : 0, upload.getSize(), null);
+    }
+
+    // Appends the body at offset, which must be where the upload stands. The
+    // last chunk completes the upload. Null if there is no such upload.
+    public UploadStatus appendChunk(String uploadId, Long userId, long offset, InputStream body) throws IOException {
+        FileUpload upload = findUpload(uploadId, userId);
+        if (upload == null)
+            return null;
+        Path part = partPath(uploadId);
+        Files.createDirectories(part.getParent());
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null)
+                throw new IllegalStateException("Another chunk of this upload is being written");
+            try {
+                long current = channel.size();
+                if (offset != current)
+                    throw new IllegalStateException("Upload is at offset " + current + ", not " + offset);
+                long limit = current + Math.min(upload.getSize() - current, maxChunkSize.toBytes());
+                long position = current;
+                byte[] buffer = new byte[64 * 1024];
+                try {
+                    int n;
+                    while ((n = body.read(buffer)) > 0) {
+                        if (position + n > limit) {
+                            channel.truncate(current);
+                            throw new IllegalArgumentException("Chunk runs past the file size or the "
+                                    + maxChunkSize.toBytes() + " byte chunk limit");
+                        }
+                        ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, n);
+                        while (bytes.hasRemaining())
+                            position += channel.write(bytes, position);
+                    }
+                } finally {
+                    // What arrived before a dropped connection stays; the client resumes after it
+                    channel.force(false);
+                }
+                if (position < upload.getSize())
+                    return new UploadStatus(uploadId, position, upload.getSize(), null);
+                StoredFile stored = complete(upload, part);
+                return new UploadStatus(uploadId, position, upload.getSize(), new StoredFileView(stored));
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    public boolean cancelUpload(String uploadId, Long userId) throws IOException {
+        FileUpload upload = findUpload(uploadId, userId);
+        if (upload == null)
+            return false;
+        fileUploadRepository.delete(upload);
+        Files.deleteIfExists(partPath(uploadId));
+        return true;
+    }
+
+    // Hashes the finished part and moves it into the store, unless those bytes
+    // are already there
+    private StoredFile complete(FileUpload upload, Path part) throws IOException {
+        String id = sha256(part);
+        try {
+            if (upload.getSha256() != null && !upload.getSha256().equals(id))
+                throw new IllegalArgumentException("Uploaded bytes do not match sha256, upload discarded");
+            if (!startsWith(part, SIGNATURES.get(upload.getContentType())))
+                throw new IllegalArgumentException("File is not " + upload.getContentType() + ", upload discarded");
+        } catch (IllegalArgumentException e) {
+            fileUploadRepository.delete(upload);
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        Path blob = blobPath(id);
+        if (Files.exists(blob)) {
+            Files.delete(part);
+        } else {
+            Files.createDirectories(blob.getParent());
+            // Two instances finishing the same bytes both rename over it, harmlessly
+            Files.move(part, blob, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        StoredFile stored = storedFileRepository.findById(id).orElse(null);
+        if (stored == null) {
+            stored = new StoredFile();
+            stored.setId(id);
+            stored.setSize(upload.getSize());
+            stored.setContentType(upload.getContentType());
+            stored.setFileName(upload.getFileName());
+            stored.setCreatedBy(upload.getUserId());
+            stored.setCreatedAt(LocalDateTime.now());
+            try {
+                stored = storedFileRepository.saveAndFlush(stored);
+            } catch (DataIntegrityViolationException e) {
+                stored = storedFileRepository.findById(id).orElseThrow();
+            }
+        }
+        if (!upload.getUserId().equals(stored.getCreatedBy())) {
+            try {
+                storedFileRepository.addUploader(id, upload.getUserId());
+            } catch (DataIntegrityViolationException e) {
+                // Added concurrently by the same user's other upload
+            }
+        }
+        fileUploadRepository.delete(upload);
+        return stored;
+    }
+
+    public Optional<StoredFile> getFile(String id) {
+        if (id == null || !isFileId(id))
+            return Optional.empty();
+        return storedFileRepository.findById(id);
+    }
+
+    // Whether the user sent these bytes themselves, as needed to attach a file
+    public boolean isUploader(String id, Long userId) {
+        return id != null && isFileId(id) && storedFileRepository.isUploader(id, userId);
+    }
+
+    public Path blobPath(String id) {
+        return dir.resolve("blobs").resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    public void expireUploads() {
+        LocalDateTime before = LocalDateTime.now().minus(uploadTtl);
+        for (FileUpload upload : fileUploadRepository.findByCreatedAtBefore(before)) {
+            fileUploadRepository.delete(upload);
+            try {
+                Files.deleteIfExists(partPath(upload.getId()));
+            } catch (IOException e) {
+                System.out.println("Could not delete expired upload " + upload.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public FileStats getStats() {
+        return new FileStats(storedFileRepository.count(), storedFileRepository.sumSize(), fileUploadRepository.count(),
+                fileSender.getSendfileResponses(), fileSender.getSendfileBytes(), fileSender.getCopiedResponses(),
+                fileSender.getCopiedBytes());
+    }
+
+    private FileUpload findUpload(String uploadId, Long userId) {
+        return fileUploadRepository.findById(uploadId).filter(u -> u.getUserId().equals(userId)).orElse(null);
+    }
+
+    private Path partPath(String uploadId) {
+        // Ids are UUIDs we issued; anything else never reaches the file system
+        return dir.resolve("uploads").resolve(UUID.fromString(uploadId) + ".part");
+    }
+
+    private static boolean isFileId(String id) {
+        return id.length() == 64 && id.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0)
+                digest.update(buffer, 0, n);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static boolean startsWith(Path file, byte[] signature) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return Arrays.equals(in.readNBytes(signature.length), signature);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cleaner.shutdownNow();
+    }
+}
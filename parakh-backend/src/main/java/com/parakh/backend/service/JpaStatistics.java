@@ -0,0 +1,51 @@
+package com.parakh.backend.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Hibernate's counters since the last reset: statements sent, and entities and
+// collections loaded, per entity too. Only counts while parakh.jpa.statistics
+// is on, and counts every request on this instance, so measure one at a time.
+@Service
+public class JpaStatistics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    public Map<String, Object> snapshot() {
+        Statistics statistics = statistics();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("enabled", statistics.isStatisticsEnabled());
+        snapshot.put("statements", statistics.getPrepareStatementCount());
+        snapshot.put("queries", statistics.getQueryExecutionCount());
+        snapshot.put("entityLoads", statistics.getEntityLoadCount());
+        snapshot.put("entityFetches", statistics.getEntityFetchCount());
+        snapshot.put("collectionLoads", statistics.getCollectionLoadCount());
+        snapshot.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        snapshot.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        snapshot.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        snapshot.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        Map<String, Long> loadsByEntity = new LinkedHashMap<>();
+        for (String entity : statistics.getEntityNames()) {
+            long loads = statistics.getEntityStatistics(entity).getLoadCount();
+            if (loads > 0)
+                loadsByEntity.put(entity.substring(entity.lastIndexOf('.') + 1), loads);
+        }
+        snapshot.put("loadsByEntity", loadsByEntity);
+        return snapshot;
+    }
+
+    public void reset() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,59 @@
+package com.parakh.backend.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+// Runs a read-modify-write in its own transaction and retries it a bounded
+// number of times when a @Version check fails. The action must re-read the
+// entities it changes, since the persistence context is cleared between tries.
+@Component
+public class OptimisticRetry {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${parakh.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${parakh.retry.backoff-ms:5}")
+    private long backoffMillis;
+
+    private final TransactionTemplate tx;
+
+    public OptimisticRetry(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return tx.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new RuntimeException("Concurrent update conflict, please retry", e);
+                }
+                entityManager.clear();
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Jittered exponential backoff so competing writers do not collide again
+    private void backoff(int attempt) {
+        long max = backoffMillis << Math.min(attempt, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(max + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying", e);
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.dto.ExamProgressRow;
+import com.parakh.backend.dto.ProctorEventDTO;
+import com.parakh.backend.event.AnswerSubmittedEvent;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.event.ExamStartedEvent;
+import com.parakh.backend.event.ExamTimedOutEvent;
+import com.parakh.backend.repository.ExamRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Live exam progress per assessment over Server-Sent Events. Exam events only
+// touch an in-memory buffer per subscriber; a small sender pool drains the
+// buffers on a fixed tick, so a slow browser never blocks the exam path. A
+// subscriber whose send blocks past SEND_TIMEOUT_MS is dropped (its browser
+// reconnects and reloads the snapshot), and the pool grows by a thread for
+// each such send until it returns, so stuck sockets cannot starve the rest.
+// Events are also broadcast over the invalidation channel, so a proctor sees
+// exams taken through any instance.
+@Service
+public class ProctorService {
+
+    private static final int BUFFER_CAPACITY = 1024;
+    private static final long FLUSH_INTERVAL_MS = 250;
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+    private static final int SENDER_THREADS = 4;
+    private static final long SEND_TIMEOUT_MS = 5_000;
+    private static final int MAX_STALLED_SENDERS = 64;
+    private static final String EVENTS_CHANNEL = "proctor-events";
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "proctor-ticker");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ThreadPoolExecutor senders = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "proctor-sender");
+                t.setDaemon(true);
+                return t;
+            });
+
+    // Sender threads blocked in the send of a dropped subscriber
+    private final AtomicInteger stalledSenders = new AtomicInteger();
+
+    @PostConstruct
+    public void listenForEvents() {
+        cacheRegistry.onInvalidation(EVENTS_CHANNEL, key -> {
+            if (key == null) {
+                // Events may have been missed while the channel was down
+                subscribers.values().forEach(subs -> subs.forEach(s -> s.resync("events missed")));
+                return;
+            }
+            String[] parts = key.split(":", -1);
+            deliver(Long.valueOf(parts[0]), new ProctorEventDTO(parts[1], Long.valueOf(parts[2]),
+                    Long.valueOf(parts[3]), parseInteger(parts[4]), parseInteger(parts[5])));
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        ticker.scheduleWithFixedDelay(this::flushAll, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::heartbeatAll, HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public SseEmitter subscribe(Long assessmentId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(assessmentId, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        // Register first so no event falls between the snapshot and the stream.
+        // Events buffer until the snapshot is queued, and the sender sends it
+        // ahead of them.
+        subscribers.computeIfAbsent(assessmentId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        try {
+            subscriber.queueSnapshot(examRepository.findProgressByAssessmentId(assessmentId));
+        } catch (RuntimeException e) {
+            unsubscribe(subscriber);
+            throw e;
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @EventListener
+    public void onExamStarted(ExamStartedEvent event) {
+        publish(event.getAssessmentId(),
+                new ProctorEventDTO("STARTED", event.getExamId(), event.getUserId(), 0, 0));
+    }
+
+    @EventListener
+    public void onAnswerSubmitted(AnswerSubmittedEvent event) {
+        publish(event.getAssessmentId(), new ProctorEventDTO("ANSWERED", event.getExamId(), event.getUserId(),
+                event.getScore(), event.getAnswered()));
+    }
+
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        publish(event.getAssessmentId(),
+                new ProctorEventDTO("COMPLETED", event.getExamId(), event.getUserId(), event.getScore(), null));
+    }
+
+    @EventListener
+    public void onExamTimedOut(ExamTimedOutEvent event) {
+        publish(event.getAssessmentId(),
+                new ProctorEventDTO("TIMED_OUT", event.getExamId(), event.getUserId(), event.getScore(), null));
+    }
+
+    // Delivers here and, once the change has committed, on the other instances
+    private void publish(Long assessmentId, ProctorEventDTO event) {
+        if (assessmentId == null)
+            return;
+        deliver(assessmentId, event);
+        String key = assessmentId + ":" + event.getType() + ":" + event.getExamId() + ":" + event.getStudentId()
+                + ":" + (event.getScore() != null ? event.getScore() : "")
+                + ":" + (event.getAnswered() != null ? event.getAnswered() : "");
+        afterCommit(() -> cacheRegistry.publishInvalidation(EVENTS_CHANNEL, key));
+    }
+
+    private void deliver(Long assessmentId, ProctorEventDTO event) {
+        Set<Subscriber> subs = subscribers.get(assessmentId);
+        if (subs == null)
+            return;
+        for (Subscriber subscriber : subs) {
+            subscriber.offer(event);
+        }
+    }
+
+    // At most one task per subscriber is queued or running: the flag is set
+    // here and cleared when the task ends
+    private void flushAll() {
+        long now = System.currentTimeMillis();
+        for (Set<Subscriber> subs : subscribers.values()) {
+            for (Subscriber subscriber : subs) {
+                if (subscriber.dropIfStalled(now)) {
+                    unsubscribe(subscriber);
+                    resizeSenders(stalledSenders.incrementAndGet());
+                    System.out.println("Dropped proctor subscriber of assessment " + subscriber.assessmentId
+                            + ": send blocked for over " + SEND_TIMEOUT_MS + " ms");
+                } else if (subscriber.hasPending() && subscriber.schedule()) {
+                    senders.execute(subscriber::flush);
+                }
+            }
+        }
+    }
+
+    private void heartbeatAll() {
+        for (Set<Subscriber> subs : subscribers.values()) {
+            for (Subscriber subscriber : subs) {
+                if (subscriber.schedule()) {
+                    senders.execute(subscriber::heartbeat);
+                }
+            }
+        }
+    }
+
+    // Keeps SENDER_THREADS threads free for healthy subscribers
+    private synchronized void resizeSenders(int stalled) {
+        int size = SENDER_THREADS + Math.min(stalled, MAX_STALLED_SENDERS);
+        if (size > senders.getMaximumPoolSize()) {
+            senders.setMaximumPoolSize(size);
+            senders.setCorePoolSize(size);
+        } else {
+            senders.setCorePoolSize(size);
+            senders.setMaximumPoolSize(size);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.assessmentId, (id, subs) -> {
+            subs.remove(subscriber);
+            return subs.isEmpty() ? null : subs;
+        });
+    }
+
+    private static Integer parseInteger(String value) {
+        return value.isEmpty() ? null : Integer.valueOf(value);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(subs -> subs.forEach(s -> s.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private class Subscriber {
+        private final Long assessmentId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private long sendStartedAt; // 0 when no send is in progress
+        private boolean dropped;
+
+        // Latest event per exam, in arrival order; a newer event for the same exam
+        // replaces the older one instead of queueing behind it
+        private final LinkedHashMap<Long, ProctorEventDTO> pending = new LinkedHashMap<>();
+        private List<ExamProgressRow> snapshot; // Queued, not sent yet
+        private boolean snapshotQueued;
+        private String resyncReason;
+
+        Subscriber(Long assessmentId, SseEmitter emitter) {
+            this.assessmentId = assessmentId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(ProctorEventDTO event) {
+            ProctorEventDTO previous = pending.remove(event.getExamId());
+            if (previous != null && previous.isTerminal() && !event.isTerminal()) {
+                event = previous;
+            }
+            pending.put(event.getExamId(), event);
+            if (pending.size() > BUFFER_CAPACITY) {
+                Iterator<Long> eldest = pending.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+                resyncReason = "buffer overflow";
+            }
+        }
+
+        synchronized void queueSnapshot(List<ExamProgressRow> rows) {
+            snapshot = rows;
+            snapshotQueued = true;
+        }
+
+        synchronized void resync(String reason) {
+            resyncReason = reason;
+        }
+
+        synchronized boolean hasPending() {
+            return snapshotQueued && (snapshot != null || !pending.isEmpty() || resyncReason != null);
+        }
+
+        boolean schedule() {
+            return scheduled.compareAndSet(false, true);
+        }
+
+        synchronized boolean dropIfStalled(long now) {
+            if (dropped || sendStartedAt == 0 || now - sendStartedAt < SEND_TIMEOUT_MS)
+                return false;
+            dropped = true;
+            return true;
+        }
+
+        void flush() {
+            try {
+                List<ExamProgressRow> rows;
+                List<ProctorEventDTO> batch;
+                String resync;
+                synchronized (this) {
+                    rows = snapshot;
+                    snapshot = null;
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                    resync = resyncReason;
+                    resyncReason = null;
+                }
+                // Updates buffered while it was read may be in it already; sent
+                // again they only repeat what it says, or are soon superseded
+                if (rows != null) {
+                    send(SseEmitter.event().name("snapshot").data(rows));
+                } else if (resync != null) {
+                    // The client missed events it cannot recover; it should reload the snapshot
+                    send(SseEmitter.event().name("resync").data(resync));
+                }
+                if (!batch.isEmpty()) {
+                    send(SseEmitter.event().name("update").data(batch));
+                }
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+            } finally {
+                scheduled.set(false);
+            }
+        }
+
+        void heartbeat() {
+            try {
+                send(SseEmitter.event().comment("ping"));
+            } catch (IOException | IllegalStateException e) {
+                unsubscribe(this);
+            } finally {
+                scheduled.set(false);
+            }
+        }
+
+        // A send the ticker gave up on releases its extra sender thread when it
+        // returns, and closes the stream if it did get through
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                sendStartedAt = System.currentTimeMillis();
+            }
+            boolean wasDropped;
+            try {
+                emitter.send(event);
+            } finally {
+                synchronized (this) {
+                    sendStartedAt = 0;
+                    wasDropped = dropped;
+                }
+                if (wasDropped)
+                    resizeSenders(stalledSenders.decrementAndGet());
+            }
+            if (wasDropped) {
+                emitter.complete();
+                throw new IOException("Send took over " + SEND_TIMEOUT_MS + " ms");
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.model.Question;
+import com.parakh.backend.repository.QuestionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Read-mostly view of the question bank for the exam hot path: answer keys for
+// grading, masked payloads for the next-question response and candidate lists
+// per subject and difficulty. Loaded once at startup and kept in sync by
+// QuestionService; callers fall back to the database until it is loaded.
+@Service
+public class QuestionIndex {
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // subject -> difficulty -> masked payloads; replaced as a whole on every change
+    private volatile Map<String, Map<String, List<Question>>> bySubject = Map.of();
+    private volatile boolean loaded;
+
+    public synchronized void load(Collection<Question> questions) {
+        entries.clear();
+        for (Question question : questions) {
+            if (question.getId() != null)
+                entries.put(question.getId(), new Entry(question.getCorrectOption(), mask(question)));
+        }
+        rebuildCandidates();
+        loaded = true;
+        System.out.println("Question index loaded with " + entries.size() + " questions");
+    }
+
+    public synchronized void put(Question question) {
+        if (question.getId() == null)
+            return;
+        entries.put(question.getId(), new Entry(question.getCorrectOption(), mask(question)));
+        rebuildCandidates();
+    }
+
+    public synchronized void remove(Long questionId) {
+        if (entries.remove(questionId) != null)
+            rebuildCandidates();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Set<String> getSubjects() {
+        return bySubject.keySet();
+    }
+
+    // Null if the question is unknown to the index
+    public String getAnswerKey(Long questionId) {
+        Entry entry = entries.get(questionId);
+        return entry != null ? entry.answerKey : null;
+    }
+
+    // Masked question, read from the database if it is not indexed; null if it no longer exists
+    public Question getPayload(Long questionId) {
+        Entry entry = entries.get(questionId);
+        if (entry != null)
+            return entry.payload;
+        return questionRepository.findById(questionId).map(QuestionIndex::mask).orElse(null);
+    }
+
+    // True if the option is one the question offers: a letter A to D, any case,
+    // whose option text is set. False for a question that no longer exists.
+    public boolean isOption(Long questionId, String selectedOption) {
+        Question question = getPayload(questionId);
+        if (question == null || selectedOption == null || selectedOption.length() != 1)
+            return false;
+        String text = switch (Character.toUpperCase(selectedOption.charAt(0))) {
+            case 'A' -> question.getOptionA();
+            case 'B' -> question.getOptionB();
+            case 'C' -> question.getOptionC();
+            case 'D' -> question.getOptionD();
+            default -> null;
+        };
+        return text != null;
+    }
+
+    public List<Question> getPayloads(String subject, String difficulty) {
+        return bySubject.getOrDefault(subject, Map.of()).getOrDefault(difficulty, List.of());
+    }
+
+    public List<Question> getPayloads(String subject) {
+        List<Question> all = new ArrayList<>();
+        bySubject.getOrDefault(subject, Map.of()).values().forEach(all::addAll);
+        return all;
+    }
+
+    // Copy without the correct option, safe to send to students
+    public static Question mask(Question question) {
+        Question safeQuestion = new Question();
+        safeQuestion.setId(question.getId());
+        safeQuestion.setContent(question.getContent());
+        safeQuestion.setOptionA(question.getOptionA());
+        safeQuestion.setOptionB(question.getOptionB());
+        safeQuestion.setOptionC(question.getOptionC());
+        safeQuestion.setOptionD(question.getOptionD());
+        safeQuestion.setSubject(question.getSubject());
+        safeQuestion.setDifficulty(question.getDifficulty());
+        safeQuestion.setTopic(question.getTopic());
+        return safeQuestion;
+    }
+
+    private void rebuildCandidates() {
+        Map<String, Map<String, List<Question>>> index = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            Question payload = entry.payload;
+            index.computeIfAbsent(payload.getSubject(), s -> new HashMap<>())
+                    .computeIfAbsent(payload.getDifficulty(), d -> new ArrayList<>())
+                    .add(payload);
+        }
+        index.values().forEach(byDifficulty -> byDifficulty.replaceAll((d, list) -> List.copyOf(list)));
+        bySubject = index;
+    }
+
+    private static class Entry {
+        private final String answerKey;
+        private final Question payload;
+
+        Entry(String answerKey, Question payload) {
+            this.answerKey = answerKey;
+            this.payload = payload;
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.parakh.backend.service;
 
+import com.parakh.backend.cache.CacheRegistry;
 import com.parakh.backend.model.Question;
 import com.parakh.backend.repository.QuestionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import java.util.List;
@@ -13,6 +15,41 @@ public class QuestionService {
         @Autowired
         private QuestionRepository questionRepository;
 
+        @Autowired
+        private DuplicateQuestionDetector duplicateQuestionDetector;
+
+        @Autowired
+        private QuestionIndex questionIndex;
+
+        @Autowired
+        private CacheRegistry cacheRegistry;
+
+        @Autowired
+        private ContentVersions contentVersions;
+
+        // Other instances keep their own index and duplicate detector; refresh
+        // them from the database when a question changes elsewhere
+        @PostConstruct
+        public void listenForChanges() {
+                cacheRegistry.onInvalidation("questions", key -> {
+                        if (key == null) {
+                                List<Question> questions = questionRepository.findAll();
+                                questionIndex.load(questions);
+                                duplicateQuestionDetector.rebuildIndex(questions);
+                                return;
+                        }
+                        Long id = Long.valueOf(key);
+                        Question question = questionRepository.findById(id).orElse(null);
+                        if (question == null) {
+                                duplicateQuestionDetector.remove(id);
+                                questionIndex.remove(id);
+                        } else {
+                                duplicateQuestionDetector.index(question);
+                                questionIndex.put(question);
+                        }
+                });
+        }
+
         public List<Question> getAllQuestions() {
                 return questionRepository.findAll();
         }
@@ -21,41 +58,29 @@ public class QuestionService {
                 return questionRepository.findBySubject(subject);
         }
 
-        @PostConstruct
-        public void initDemoQuestions() {
-                if (questionRepository.count() == 0) {
-                        // Mathematics Questions
-                        questionRepository.save(new Question("What is the value of pi (approx)?", "3.14", "2.14",
-                                        "4.14", "3.41",
-                                        "A", "Mathematics", "Easy"));
-                        questionRepository.save(
-                                        new Question("Solve for x: 2x + 5 = 15", "2", "5", "10", "7.5", "B",
-                                                        "Mathematics", "Medium"));
-                        questionRepository
-                                        .save(new Question("Square root of 144 is?", "10", "11", "12", "13", "C",
-                                                        "Mathematics", "Easy"));
-
-                        // Science Questions
-                        questionRepository.save(new Question("Powerhouse of the cell is?", "Nucleus", "Mitochondria",
-                                        "Ribosome",
-                                        "Golgi Body", "B", "Science", "Easy"));
-                        questionRepository.save(
-                                        new Question("Chemical formula for Water?", "H2O", "CO2", "O2", "NaCl", "A",
-                                                        "Science", "Easy"));
-                        questionRepository.save(new Question("Which planet is known as the Red Planet?", "Venus",
-                                        "Mars", "Jupiter",
-                                        "Saturn", "B", "Science", "Easy"));
-
-                        System.out.println("Demo questions initialized");
-                }
+        public Question saveQuestion(Question question) {
+                Question saved = questionRepository.save(question);
+                duplicateQuestionDetector.index(saved);
+                questionIndex.put(saved);
+                cacheRegistry.publishInvalidation("questions", saved.getId().toString());
+                contentVersions.bump(ContentVersions.Domain.QUESTIONS);
+                return saved;
         }
 
-        public Question saveQuestion(Question question) {
-                return questionRepository.save(question);
+        public List<Long> findNearDuplicates(Question question) {
+                return duplicateQuestionDetector.findCandidates(question);
+        }
+
+        public List<List<Long>> findDuplicateClusters() {
+                return duplicateQuestionDetector.findClusters();
         }
 
         public void deleteQuestion(Long id) {
                 questionRepository.deleteById(id);
+                duplicateQuestionDetector.remove(id);
+                questionIndex.remove(id);
+                cacheRegistry.publishInvalidation("questions", id.toString());
+                contentVersions.bump(ContentVersions.Domain.QUESTIONS);
         }
 
         public Question getQuestionById(Long id) {
@@ -64,6 +89,10 @@ public class QuestionService {
 
         public Question updateQuestion(Long id, Question questionDetails) {
                 Question question = getQuestionById(id);
+                // Reject edits made against an older copy instead of overwriting them
+                if (questionDetails.getVersion() != null && !questionDetails.getVersion().equals(question.getVersion())) {
+                        throw new ObjectOptimisticLockingFailureException(Question.class, id);
+                }
                 question.setContent(questionDetails.getContent());
                 question.setOptionA(questionDetails.getOptionA());
                 question.setOptionB(questionDetails.getOptionB());
@@ -73,6 +102,11 @@ public class QuestionService {
                 question.setSubject(questionDetails.getSubject());
                 question.setDifficulty(questionDetails.getDifficulty());
                 question.setTopic(questionDetails.getTopic());
-                return questionRepository.save(question);
+                Question saved = questionRepository.save(question);
+                duplicateQuestionDetector.index(saved);
+                questionIndex.put(saved);
+                cacheRegistry.publishInvalidation("questions", saved.getId().toString());
+                contentVersions.bump(ContentVersions.Domain.QUESTIONS);
+                return saved;
         }
 }
@@ -0,0 +1,319 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.archive.ResponseSegment;
+import com.parakh.backend.archive.ResponseSegmentWriter;
+import com.parakh.backend.archive.ResponseVisitor;
+import com.parakh.backend.dto.ArchivedExamRow;
+import com.parakh.backend.dto.ArchivedResponseRow;
+import com.parakh.backend.dto.ResponseAnalyticsRow;
+import com.parakh.backend.dto.TopicTotals;
+import com.parakh.backend.dto.TopicTotalsRow;
+import com.parakh.backend.model.Question;
+import com.parakh.backend.model.ResponseArchiveSegment;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.repository.ResponseArchiveSegmentRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+// Keeps student_responses small. Exams fall into fixed assessment windows by
+// start time; once a window is older than the hot windows and none of its exams
+// is still running, its responses are written to columnar segment files (see
+// ResponseSegmentWriter) and deleted from the table, one part at a time. The
+// segment row and the delete commit together, so every response is either in
+// the table or in a registered segment. Analytics read both.
+@Service
+public class ResponseArchiveService {
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmm");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ResponseArchiveSegmentRepository segmentRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private QuestionIndex questionIndex;
+
+    @Value("${parakh.archive.enabled:true}")
+    private boolean enabled;
+
+    // Shared by all instances, like the database
+    @Value("${parakh.archive.dir:data/response-archive}")
+    private Path dir;
+
+    @Value("${parakh.archive.window:30d}")
+    private Duration window;
+
+    // Windows kept in the table, counting the current one
+    @Value("${parakh.archive.hot-windows:2}")
+    private int hotWindows;
+
+    @Value("${parakh.archive.check-interval-ms:3600000}")
+    private long checkIntervalMillis;
+
+    @Value("${parakh.archive.max-responses-per-segment:20000000}")
+    private int maxResponsesPerSegment;
+
+    private final TransactionTemplate tx;
+    private final Map<String, ResponseSegment> open = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService archiver = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "response-archive");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ResponseArchiveService(PlatformTransactionManager transactionManager) {
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled)
+            return;
+        archiver.scheduleWithFixedDelay(() -> {
+            try {
+                archiveClosedWindows();
+            } catch (RuntimeException e) {
+                System.out.println("Response archive run failed: " + e.getMessage());
+            }
+        }, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Returns the number of responses moved out of the table
+    public synchronized long archiveClosedWindows() {
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(e.start_time) FROM exams e "
+                + "WHERE EXISTS (SELECT 1 FROM student_responses r WHERE r.exam_id = e.id)", LocalDateTime.class);
+        if (oldest == null)
+            return 0;
+        LocalDateTime cutoff = windowStart(LocalDateTime.now()).minus(window.multipliedBy(hotWindows - 1L));
+        long archived = 0;
+        for (LocalDateTime start = windowStart(oldest); start.isBefore(cutoff); start = start.plus(window)) {
+            archived += archiveWindow(start, start.plus(window));
+        }
+        return archived;
+    }
+
+    private long archiveWindow(LocalDateTime start, LocalDateTime end) {
+        Integer running = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM exams "
+                + "WHERE start_time >= ? AND start_time < ? AND status = 'IN_PROGRESS'", Integer.class, start, end);
+        if (running != null && running > 0) {
+            System.out.println("Archive window " + start + " still has " + running + " running exams, skipped");
+            return 0;
+        }
+
+        // Responses per exam, cut into parts at exam boundaries
+        List<long[]> parts = new ArrayList<>();
+        jdbcTemplate.query("SELECT r.exam_id, COUNT(*) FROM student_responses r JOIN exams e ON e.id = r.exam_id "
+                + "WHERE e.start_time >= ? AND e.start_time < ? GROUP BY r.exam_id ORDER BY r.exam_id", rs -> {
+                    long examId = rs.getLong(1);
+                    long count = rs.getLong(2);
+                    long[] part = parts.isEmpty() ? null : parts.get(parts.size() - 1);
+                    if (part == null || part[2] + count > maxResponsesPerSegment) {
+                        parts.add(new long[] { examId, examId, count });
+                    } else {
+                        part[1] = examId;
+                        part[2] += count;
+                    }
+                }, start, end);
+
+        int partNumber = segmentRepository.countByWindowStart(start);
+        long archived = 0;
+        for (long[] part : parts) {
+            archivePart(start, end, partNumber++, part[0], part[1], (int) part[2]);
+            archived += part[2];
+        }
+        if (archived > 0)
+            System.out.println("Archived " + archived + " responses of window " + start + " in " + parts.size()
+                    + " segments");
+        return archived;
+    }
+
+    private void archivePart(LocalDateTime start, LocalDateTime end, int part, long firstExamId, long lastExamId,
+            int expected) {
+        ResponseSegmentWriter writer = new ResponseSegmentWriter();
+        jdbcTemplate.query("SELECT r.exam_id, e.status, r.question_id, r.selected_option, r.is_correct, "
+                + "r.time_taken_seconds FROM student_responses r JOIN exams e ON e.id = r.exam_id "
+                + "WHERE e.start_time >= ? AND e.start_time < ? AND r.exam_id BETWEEN ? AND ? "
+                + "ORDER BY r.exam_id, r.id", rs -> {
+                    long time = rs.getLong(6);
+                    Long timeTaken = rs.wasNull() ? null : time;
+                    writer.add(rs.getLong(1), "COMPLETED".equals(rs.getString(2)), rs.getLong(3), rs.getString(4),
+                            rs.getBoolean(5), timeTaken);
+                }, start, end, firstExamId, lastExamId);
+        if (writer.getResponseCount() != expected)
+            throw new IllegalStateException("Window " + start + " changed while archiving");
+
+        // Random suffix: two instances archiving the same window write different
+        // files, and the loser's insert fails on the unique window/part
+        String fileName = String.format("responses-%s-p%d-%08x.seg", FILE_TIME.format(start), part,
+                ThreadLocalRandom.current().nextInt());
+        Path file = dir.resolve(fileName);
+        try {
+            long size = writer.write(file);
+            tx.executeWithoutResult(status -> {
+                ResponseArchiveSegment segment = new ResponseArchiveSegment();
+                segment.setWindowStart(start);
+                segment.setWindowEnd(end);
+                segment.setPart(part);
+                segment.setFileName(fileName);
+                segment.setFirstExamId(firstExamId);
+                segment.setLastExamId(lastExamId);
+                segment.setExamCount(writer.getExamCount());
+                segment.setResponseCount(expected);
+                segment.setSizeBytes(size);
+                segment.setCreatedAt(LocalDateTime.now());
+                segmentRepository.saveAndFlush(segment);
+                int deleted = jdbcTemplate.update("DELETE FROM student_responses WHERE exam_id BETWEEN ? AND ? "
+                        + "AND exam_id IN (SELECT id FROM exams WHERE start_time >= ? AND start_time < ?)",
+                        firstExamId, lastExamId, start, end);
+                if (deleted != expected)
+                    throw new IllegalStateException("Deleted " + deleted + " responses, archived " + expected);
+            });
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    // Archived responses of the assessment's completed exams, skipping exams
+    // already seen in the table (an archive run may commit between the two reads)
+    public void forEachAnalyticsRow(Long assessmentId, Set<Long> skipExamIds, Consumer<ResponseAnalyticsRow> consumer) {
+        List<ResponseArchiveSegment> segments = getSegments();
+        if (segments.isEmpty())
+            return;
+        LocalDateTime before = segments.stream().map(ResponseArchiveSegment::getWindowEnd)
+                .max(Comparator.naturalOrder()).get();
+        for (ArchivedExamRow exam : examRepository.findCompletedStartedBefore(assessmentId, before)) {
+            if (skipExamIds.contains(exam.getExamId()))
+                continue;
+            forEachArchivedResponse(segments, exam.getExamId(), exam.getStartTime(),
+                    (examId, questionId, option, correct, time) -> {
+                        // Like the join in the table query, responses to deleted questions drop out
+                        Question question = questionIndex.getPayload(questionId);
+                        if (question != null)
+                            consumer.accept(new ArchivedResponseRow(examId, exam.getStudentId(),
+                                    exam.getStudentName(), questionId, question.getTopic(), correct, time));
+                    });
+        }
+    }
+
+    public List<ResponseArchiveSegment> getSegments() {
+        return segmentRepository.findAllByOrderByWindowStartAscPartAsc();
+    }
+
+    // Visits the exam's archived responses; false if no segment holds the exam
+    public boolean forEachArchivedResponse(List<ResponseArchiveSegment> segments, long examId,
+            LocalDateTime startTime, ResponseVisitor visitor) {
+        for (ResponseArchiveSegment segment : segments) {
+            if (startTime.isBefore(segment.getWindowStart()) || !startTime.isBefore(segment.getWindowEnd())
+                    || examId < segment.getFirstExamId() || examId > segment.getLastExamId())
+                continue;
+            ResponseSegment data = segment(segment);
+            int index = data.indexOf(examId);
+            if (index < 0)
+                continue;
+            data.forEachResponse(index, visitor);
+            return true;
+        }
+        return false;
+    }
+
+    // Per-topic totals over archived responses of the completed exams taken
+    public List<TopicTotalsRow> sumByTopicForExams(LongPredicate include) {
+        Map<String, TopicTotals> totals = new HashMap<>();
+        for (ResponseArchiveSegment segment : segmentRepository.findAllByOrderByWindowStartAscPartAsc()) {
+            segment(segment).forEachResponse(true, (examId, questionId, option, correct, time) -> {
+                Question question = questionIndex.getPayload(questionId);
+                if (question != null && include.test(examId))
+                    totals.computeIfAbsent(question.getTopic(), TopicTotals::new).add(correct, time);
+            });
+        }
+        return new ArrayList<>(totals.values());
+    }
+
+    public Map<String, Object> getStats() {
+        List<Map<String, Object>> segments = new ArrayList<>();
+        long responses = 0;
+        long bytes = 0;
+        for (ResponseArchiveSegment segment : segmentRepository.findAllByOrderByWindowStartAscPartAsc()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("windowStart", segment.getWindowStart());
+            entry.put("part", segment.getPart());
+            entry.put("exams", segment.getExamCount());
+            entry.put("responses", segment.getResponseCount());
+            entry.put("bytes", segment.getSizeBytes());
+            segments.add(entry);
+            responses += segment.getResponseCount();
+            bytes += segment.getSizeBytes();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("window", window.toString());
+        stats.put("hotResponses", jdbcTemplate.queryForObject("SELECT COUNT(*) FROM student_responses", Long.class));
+        stats.put("archivedResponses", responses);
+        stats.put("archivedBytes", bytes);
+        stats.put("bytesPerResponse", responses > 0 ? (double) bytes / responses : 0);
+        stats.put("segments", segments);
+        return stats;
+    }
+
+    private ResponseSegment segment(ResponseArchiveSegment segment) {
+        return open.computeIfAbsent(segment.getFileName(), name -> {
+            try {
+                return ResponseSegment.open(dir.resolve(name));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot open archive segment " + name, e);
+            }
+        });
+    }
+
+    // Windows are aligned to the epoch, so every instance cuts them the same way
+    private LocalDateTime windowStart(LocalDateTime time) {
+        long size = window.getSeconds();
+        long start = Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), size) * size;
+        return LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        archiver.shutdownNow();
+    }
+}
@@ -0,0 +1,323 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.dto.AggregateSummary;
+import com.parakh.backend.dto.CompletedExamRow;
+import com.parakh.backend.dto.ExamTopicTotalsRow;
+import com.parakh.backend.dto.TopicTotalsRow;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.model.ResultAggregate;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.repository.ResultAggregateRepository;
+import com.parakh.backend.repository.StudentResponseRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Maintains result_aggregates incrementally. Exam-level dimensions (assessment,
+// classroom, subject) count exam scores and exam durations; the topic dimension
+// counts individual responses, with correctness as a 0/1 score.
+//
+// Completed exams not yet counted (aggregated = false) are the outbox: a
+// worker on each instance drains them, marking each exam and applying its
+// increments in one transaction, so an exam is counted exactly once however
+// many instances race for it, and one whose increments fail stays in the
+// outbox for the next run. A completion only wakes the worker.
+@Service
+public class ResultAggregateService {
+
+    public static final String ASSESSMENT = "ASSESSMENT";
+    public static final String CLASSROOM = "CLASSROOM";
+    public static final String SUBJECT = "SUBJECT";
+    public static final String TOPIC = "TOPIC";
+
+    private static final String NO_TOPIC = "General";
+    private static final int DRAIN_BATCH = 200;
+    private static final int MAX_SWAP_ATTEMPTS = 3;
+
+    @Autowired
+    private ResultAggregateRepository resultAggregateRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private StudentResponseRepository studentResponseRepository;
+
+    @Autowired
+    private ResponseArchiveService responseArchiveService;
+
+    // Safety net for completions whose wake-up was lost (crash, other instance)
+    @Value("${parakh.aggregates.drain-ms:10000}")
+    private long drainMillis;
+
+    private final TransactionTemplate requiresNewTx;
+    private final TransactionTemplate readOnlyTx;
+
+    private final ScheduledExecutorService drainer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "aggregate-drain");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    public ResultAggregateService(PlatformTransactionManager transactionManager) {
+        this.requiresNewTx = new TransactionTemplate(transactionManager);
+        this.requiresNewTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        drainer.scheduleWithFixedDelay(this::drain, 0, drainMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Published after the exam's commit; a burst of completions wakes the worker once
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        if (drainScheduled.compareAndSet(false, true))
+            drainer.execute(this::drain);
+    }
+
+    // Counts every completed exam still in the outbox. Stops early when a
+    // whole batch fails (database down), leaving it to the next run.
+    void drain() {
+        drainScheduled.set(false);
+        try {
+            while (true) {
+                List<Long> pending = examRepository.findUnaggregatedIds(PageRequest.of(0, DRAIN_BATCH));
+                int failed = 0;
+                for (Long examId : pending) {
+                    try {
+                        requiresNewTx.executeWithoutResult(status -> count(examId));
+                    } catch (RuntimeException e) {
+                        failed++;
+                        System.out.println("Aggregating exam " + examId + " failed, will retry: " + e.getMessage());
+                    }
+                }
+                if (pending.size() < DRAIN_BATCH || failed == pending.size())
+                    return;
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Aggregate drain failed: " + e.getMessage());
+        }
+    }
+
+    // The mark takes the exam's row lock: another instance counting the same
+    // exam waits for this commit, then finds it marked
+    private void count(Long examId) {
+        if (examRepository.markAggregated(examId) == 0)
+            return;
+        CompletedExamRow exam = examRepository.findCompletedExamRow(examId)
+                .orElseThrow(() -> new IllegalStateException("Exam " + examId + " vanished"));
+        Map<String, Map<String, Totals>> totals = new HashMap<>();
+        mergeExam(totals, exam);
+        for (TopicTotalsRow row : studentResponseRepository.sumByTopicForExam(examId)) {
+            merge(totals, TOPIC, topicOf(row), Totals.of(row));
+        }
+        totals.forEach((dimension, byKey) -> byKey.forEach((key, t) -> increment(dimension, key, t)));
+    }
+
+    public AggregateSummary getAggregate(String dimension, String key) {
+        return resultAggregateRepository.findByDimensionAndDimensionKey(dimension.toUpperCase(), key)
+                .map(this::toSummary)
+                .orElseGet(() -> toSummary(new ResultAggregate(dimension.toUpperCase(), key)));
+    }
+
+    public List<AggregateSummary> getAggregates(String dimension) {
+        return resultAggregateRepository.findByDimension(dimension.toUpperCase()).stream()
+                .map(this::toSummary)
+                .collect(Collectors.toList());
+    }
+
+    // Recomputes every aggregate from the counted exams and their responses
+    // (table and archive), after manual data fixes. Exams still in the outbox
+    // are left to the worker. Nothing is locked while reading: the exams read
+    // are remembered, and the swap adds any exam counted in the meantime.
+    public void rebuild() {
+        BitSet counted = new BitSet();
+        Map<String, Map<String, Totals>> totals = new HashMap<>();
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<CompletedExamRow> exams = examRepository.streamAggregatedExams()) {
+                exams.forEach(row -> {
+                    counted.set(index(row.getExamId()));
+                    mergeExam(totals, row);
+                });
+            }
+            // Responses of exams read above only; an archive run may commit
+            // between the two reads, so exams seen in the table are skipped there
+            BitSet hot = new BitSet();
+            try (Stream<ExamTopicTotalsRow> topics = studentResponseRepository
+                    .streamTopicTotalsByExamForAggregatedExams()) {
+                topics.forEach(row -> {
+                    if (counted.get(index(row.getExamId()))) {
+                        hot.set(index(row.getExamId()));
+                        merge(totals, TOPIC, topicOf(row), Totals.of(row));
+                    }
+                });
+            }
+            for (TopicTotalsRow row : responseArchiveService
+                    .sumByTopicForExams(id -> counted.get(index(id)) && !hot.get(index(id)))) {
+                merge(totals, TOPIC, topicOf(row), Totals.of(row));
+            }
+        });
+
+        for (int attempt = 1;; attempt++) {
+            try {
+                requiresNewTx.executeWithoutResult(status -> swap(totals, counted));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                // A worker inserted a new key between the delete and the insert
+                if (attempt >= MAX_SWAP_ATTEMPTS)
+                    throw new RuntimeException("Aggregate rebuild kept conflicting with completions", e);
+            }
+        }
+    }
+
+    // Deleting the rows first holds every increment until this commits, so
+    // an exam marked before the scan below is counted here, and one marked
+    // after it increments the new rows.
+    private void swap(Map<String, Map<String, Totals>> built, BitSet counted) {
+        resultAggregateRepository.deleteAllInBatch();
+        Map<String, Map<String, Totals>> totals = new HashMap<>();
+        built.forEach((dimension, byKey) -> totals.put(dimension, new HashMap<>(byKey)));
+        List<Long> late = new ArrayList<>();
+        try (Stream<Long> ids = examRepository.streamAggregatedIds()) {
+            ids.filter(id -> !counted.get(index(id))).forEach(late::add);
+        }
+        for (Long examId : late) {
+            examRepository.findCompletedExamRow(examId).ifPresent(row -> mergeExam(totals, row));
+            for (TopicTotalsRow row : studentResponseRepository.sumByTopicForExam(examId)) {
+                merge(totals, TOPIC, topicOf(row), Totals.of(row));
+            }
+        }
+        List<ResultAggregate> rows = new ArrayList<>();
+        totals.forEach((dimension, byKey) -> byKey.forEach((key, t) -> {
+            ResultAggregate aggregate = new ResultAggregate(dimension, key);
+            t.applyTo(aggregate);
+            rows.add(aggregate);
+        }));
+        resultAggregateRepository.saveAll(rows);
+        System.out.println("Rebuilt " + rows.size() + " result aggregates (" + late.size()
+                + " exams counted during the rebuild)");
+    }
+
+    private void mergeExam(Map<String, Map<String, Totals>> totals, CompletedExamRow row) {
+        long score = row.getScore() != null ? row.getScore() : 0;
+        long time = row.getStartTime() != null && row.getEndTime() != null
+                ? Duration.between(row.getStartTime(), row.getEndTime()).getSeconds()
+                : 0;
+        Totals exam = new Totals(1, score, score * score, 1, time, time * time);
+        if (row.getAssessmentId() != null)
+            merge(totals, ASSESSMENT, String.valueOf(row.getAssessmentId()), exam);
+        if (row.getClassroomId() != null)
+            merge(totals, CLASSROOM, String.valueOf(row.getClassroomId()), exam);
+        if (row.getSubject() != null)
+            merge(totals, SUBJECT, row.getSubject(), exam);
+    }
+
+    private void merge(Map<String, Map<String, Totals>> totals, String dimension, String key, Totals delta) {
+        totals.computeIfAbsent(dimension, d -> new HashMap<>()).merge(key, delta, Totals::plus);
+    }
+
+    private static String topicOf(TopicTotalsRow row) {
+        return row.getTopic() != null ? row.getTopic() : NO_TOPIC;
+    }
+
+    // Exam ids are identity values well inside int range
+    private static int index(Long examId) {
+        return Math.toIntExact(examId);
+    }
+
+    // In-place UPDATE; the first completion for a key inserts the row. Two
+    // instances inserting the same new key: the loser's transaction fails
+    // and its exam stays in the outbox.
+    private void increment(String dimension, String key, Totals d) {
+        int updated = resultAggregateRepository.increment(dimension, key, d.count, d.sum, d.sumOfSquares,
+                d.timeCount, d.timeSum, d.timeSumOfSquares);
+        if (updated == 0) {
+            ResultAggregate aggregate = new ResultAggregate(dimension, key);
+            d.applyTo(aggregate);
+            resultAggregateRepository.saveAndFlush(aggregate);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    private AggregateSummary toSummary(ResultAggregate a) {
+        return new AggregateSummary(a.getDimension(), a.getDimensionKey(), a.getScoreCount(),
+                mean(a.getScoreSum(), a.getScoreCount()),
+                stdDev(a.getScoreSum(), a.getScoreSumOfSquares(), a.getScoreCount()),
+                mean(a.getTimeSum(), a.getTimeCount()),
+                stdDev(a.getTimeSum(), a.getTimeSumOfSquares(), a.getTimeCount()));
+    }
+
+    private double mean(long sum, long count) {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    private double stdDev(long sum, long sumOfSquares, long count) {
+        if (count == 0)
+            return 0;
+        double mean = (double) sum / count;
+        return Math.sqrt(Math.max(0, (double) sumOfSquares / count - mean * mean));
+    }
+
+    private static class Totals {
+        final long count;
+        final long sum;
+        final long sumOfSquares;
+        final long timeCount;
+        final long timeSum;
+        final long timeSumOfSquares;
+
+        Totals(long count, long sum, long sumOfSquares, long timeCount, long timeSum, long timeSumOfSquares) {
+            this.count = count;
+            this.sum = sum;
+            this.sumOfSquares = sumOfSquares;
+            this.timeCount = timeCount;
+            this.timeSum = timeSum;
+            this.timeSumOfSquares = timeSumOfSquares;
+        }
+
+        // Correctness is 0/1, so its sum of squares equals its sum
+        static Totals of(TopicTotalsRow row) {
+            return new Totals(row.getResponses(), row.getCorrect(), row.getCorrect(),
+                    row.getTimeCount(), row.getTimeSum(), row.getTimeSumOfSquares());
+        }
+
+        Totals plus(Totals o) {
+            return new Totals(count + o.count, sum + o.sum, sumOfSquares + o.sumOfSquares,
+                    timeCount + o.timeCount, timeSum + o.timeSum, timeSumOfSquares + o.timeSumOfSquares);
+        }
+
+        void applyTo(ResultAggregate a) {
+            a.setScoreCount(count);
+            a.setScoreSum(sum);
+            a.setScoreSumOfSquares(sumOfSquares);
+            a.setTimeCount(timeCount);
+            a.setTimeSum(timeSum);
+            a.setTimeSumOfSquares(timeSumOfSquares);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.export.SheetWriter;
+import com.parakh.backend.model.Assessment;
+import com.parakh.backend.model.ResponseArchiveSegment;
+import com.parakh.backend.repository.AssessmentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Per-assessment result sheet: one row per student, one column per question
+// holding the selected option, then answered and correct totals (and, for PDF
+// assessments, a link to the scanned answer sheet). Exams joined to their
+// responses are read through a single forward-only cursor ordered by exam id
+// and pivoted as they arrive, so only the current row is in memory whatever
+// the size of the assessment. Exams from archived windows get their responses
+// from the archive segment instead.
+@Service
+public class ResultExportService {
+
+    private static final String[] LEADING = { "Exam ID", "Student ID", "Student", "Email", "Status", "Score",
+            "Started", "Finished" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private ResponseArchiveService responseArchiveService;
+
+    // Rows per round trip; also what makes PostgreSQL use a cursor at all
+    @Value("${parakh.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private final TransactionTemplate readOnlyTx;
+
+    public ResultExportService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    public void export(Long assessmentId, SheetWriter sheet) throws IOException {
+        Assessment assessment = assessmentRepository.findById(assessmentId)
+                .orElseThrow(() -> new RuntimeException("Assessment not found"));
+        try {
+            readOnlyTx.executeWithoutResult(status -> {
+                try {
+                    write(assessment, sheet);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            throw e.getCause();
+        }
+    }
+
+    private void write(Assessment assessment, SheetWriter sheet) throws IOException {
+        // Columns are the question pool papers are drawn from plus anything
+        // answered outside it (questions since moved to another difficulty).
+        // Archived answers to questions in neither still count in the totals.
+        List<Long> questionIds = jdbcTemplate.queryForList("SELECT id FROM questions "
+                + "WHERE subject = ? AND difficulty = ? UNION SELECT DISTINCT r.question_id "
+                + "FROM student_responses r JOIN exams e ON e.id = r.exam_id "
+                + "WHERE e.assessment_id = ? ORDER BY 1", Long.class,
+                assessment.getSubject(), assessment.getDifficulty(), assessment.getId());
+        boolean answerSheets = "PDF".equals(assessment.getType());
+        Map<Long, Integer> columns = new HashMap<>();
+        Object[] header = Arrays.copyOf(LEADING, LEADING.length + questionIds.size() + (answerSheets ? 3 : 2),
+                Object[].class);
+        for (Long questionId : questionIds) {
+            columns.put(questionId, LEADING.length + columns.size());
+            header[LEADING.length + columns.size() - 1] = "Q" + questionId;
+        }
+        int totalsAt = LEADING.length + questionIds.size();
+        header[totalsAt] = "Answered";
+        header[totalsAt + 1] = "Correct";
+        if (answerSheets)
+            header[totalsAt + 2] = "Answer Sheet";
+        sheet.writeRow(header);
+
+        Pivot pivot = new Pivot(sheet, columns, header.length, totalsAt, answerSheets);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT e.id, u.id, u.name, u.email, e.status, e.score, "
+                    + "e.start_time, e.end_time, r.question_id, r.selected_option, r.is_correct, "
+                    + "e.answer_sheet_file_id "
+                    + "FROM exams e JOIN users u ON u.id = e.user_id "
+                    + "LEFT JOIN student_responses r ON r.exam_id = e.id "
+                    + "WHERE e.assessment_id = ? ORDER BY e.id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, assessment.getId());
+            return ps;
+        }, pivot::accept);
+        pivot.flush();
+        System.out.println("Exported " + pivot.rows + " result rows of assessment " + assessment.getId());
+    }
+
+    private final class Pivot {
+        final SheetWriter sheet;
+        final Map<Long, Integer> columns;
+        final Object[] row;
+        final int totalsAt;
+        final boolean answerSheets;
+        long examId = -1;
+        Timestamp startTime;
+        boolean hotResponses;
+        int answered;
+        int correct;
+        long rows;
+        List<ResponseArchiveSegment> segments;
+
+        Pivot(SheetWriter sheet, Map<Long, Integer> columns, int width, int totalsAt, boolean answerSheets) {
+            this.sheet = sheet;
+            this.columns = columns;
+            this.row = new Object[width];
+            this.totalsAt = totalsAt;
+            this.answerSheets = answerSheets;
+        }
+
+        void accept(ResultSet rs) throws SQLException {
+            if (segments == null) {
+                // Read once the query has run: an archive run committing after
+                // this still sees its responses in the cursor, one committed
+                // before has its segment listed here
+                segments = responseArchiveService.getSegments();
+            }
+            long id = rs.getLong(1);
+            if (id != examId) {
+                flush();
+                examId = id;
+                row[0] = id;
+                row[1] = rs.getLong(2);
+                row[2] = rs.getString(3);
+                row[3] = rs.getString(4);
+                row[4] = rs.getString(5);
+                row[5] = rs.getInt(6);
+                startTime = rs.getTimestamp(7);
+                row[6] = startTime == null ? null : startTime.toLocalDateTime().toString();
+                Timestamp endTime = rs.getTimestamp(8);
+                row[7] = endTime == null ? null : endTime.toLocalDateTime().toString();
+                if (answerSheets) {
+                    String fileId = rs.getString(12);
+                    row[totalsAt + 2] = fileId == null ? null : "/api/files/" + fileId;
+                }
+            }
+            long questionId = rs.getLong(9);
+            if (!rs.wasNull()) {
+                hotResponses = true;
+                add(questionId, rs.getString(10), rs.getBoolean(11));
+            }
+        }
+
+        void add(long questionId, String option, boolean isCorrect) {
+            Integer column = columns.get(questionId);
+            if (column != null)
+                row[column] = option;
+            answered++;
+            if (isCorrect)
+                correct++;
+        }
+
+        void flush() {
+            if (examId < 0)
+                return;
+            if (!hotResponses && startTime != null && !segments.isEmpty()) {
+                responseArchiveService.forEachArchivedResponse(segments, examId, startTime.toLocalDateTime(),
+                        (exam, questionId, option, isCorrect, time) -> add(questionId, option, isCorrect));
+            }
+            row[totalsAt] = answered;
+            row[totalsAt + 1] = correct;
+            try {
+                sheet.writeRow(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+            Arrays.fill(row, null);
+            hotResponses = false;
+            answered = 0;
+            correct = 0;
+        }
+    }
+}
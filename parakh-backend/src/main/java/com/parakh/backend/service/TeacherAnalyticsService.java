@@ -0,0 +1,186 @@
+package com.parakh.backend.service;
+
+import com.parakh.backend.cache.CacheRegion;
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.dto.AssessmentAnalyticsView;
+import com.parakh.backend.dto.ExamScoreRow;
+import com.parakh.backend.dto.ResponseAnalyticsRow;
+import com.parakh.backend.event.ExamCompletedEvent;
+import com.parakh.backend.model.Assessment;
+import com.parakh.backend.repository.AssessmentRepository;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.repository.StudentResponseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Per-assessment analytics, built in one pass on first request and kept up to
+// date as exams complete. The cache is near-only: a completion is folded into
+// this instance's copy and makes every other instance drop theirs, to be
+// rebuilt when next asked for.
+@Service
+public class TeacherAnalyticsService {
+
+    private static final String REGION = "assessment-analytics";
+
+    @Autowired
+    private AssessmentRepository assessmentRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private StudentResponseRepository studentResponseRepository;
+
+    @Autowired
+    private ResponseArchiveService responseArchiveService;
+
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("${parakh.cache.analytics.max-size:500}")
+    private long maxSize;
+
+    @Value("${parakh.cache.analytics.ttl-ms:1800000}")
+    private long ttlMillis;
+
+    private final TransactionTemplate readOnlyTx;
+
+    private final ForkJoinPool analyticsPool = new ForkJoinPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+
+    // Completions are folded in off the submitting request's thread, in order
+    private final ExecutorService updates = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "analytics-updates");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private CacheRegion<AssessmentAnalytics> cache;
+
+    // Builds in flight, so concurrent requests for one assessment share a build
+    private final Map<Long, CompletableFuture<AssessmentAnalytics>> building = new ConcurrentHashMap<>();
+
+    public TeacherAnalyticsService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void initCache() {
+        cache = cacheRegistry.region(REGION, AssessmentAnalytics.class, maxSize, ttlMillis, false);
+    }
+
+    public AssessmentAnalyticsView getAssessmentAnalytics(Long assessmentId) {
+        return analyticsFor(assessmentId).snapshot();
+    }
+
+    // One fork/join task per assessment; cached assessments return immediately
+    public List<AssessmentAnalyticsView> getTeacherAnalytics(Long teacherId) {
+        List<Long> ids = assessmentRepository.findIdsByTeacherId(teacherId);
+        return analyticsPool.submit(() -> ids.parallelStream()
+                .map(id -> analyticsFor(id).snapshot())
+                .collect(Collectors.toList())).join();
+    }
+
+    // The event comes after the exam's commit. A cached copy gets the exam
+    // (addExam skips one a build already counted); without one, the eviction
+    // bumps the region's epoch, so a build in flight that may have missed the
+    // exam is not cached. Nothing is read for assessments nobody has asked about.
+    @EventListener
+    public void onExamCompleted(ExamCompletedEvent event) {
+        if (event.getAssessmentId() == null)
+            return;
+        updates.execute(() -> {
+            String key = String.valueOf(event.getAssessmentId());
+            try {
+                AssessmentAnalytics analytics = cache.getIfPresent(key);
+                if (analytics == null) {
+                    cache.evictLocal(key);
+                } else if (!analytics.containsExam(event.getExamId())) {
+                    analytics.addExam(event.getExamId(), event.getScore(),
+                            studentResponseRepository.findAnalyticsRowsByExamId(event.getExamId()));
+                }
+            } catch (RuntimeException e) {
+                cache.evictLocal(key);
+                System.out.println("Analytics update failed for assessment " + key + ": " + e.getMessage());
+            }
+            cacheRegistry.publishInvalidation(REGION, key);
+        });
+    }
+
+    private AssessmentAnalytics analyticsFor(Long assessmentId) {
+        return cache.get(String.valueOf(assessmentId), key -> sharedBuild(assessmentId));
+    }
+
+    // The first caller builds, outside any map lock; the rest wait for its result
+    private AssessmentAnalytics sharedBuild(Long assessmentId) {
+        CompletableFuture<AssessmentAnalytics> mine = new CompletableFuture<>();
+        CompletableFuture<AssessmentAnalytics> running = building.putIfAbsent(assessmentId, mine);
+        if (running != null)
+            return running.join();
+        try {
+            AssessmentAnalytics analytics = build(assessmentId);
+            mine.complete(analytics);
+            return analytics;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(assessmentId, mine);
+        }
+    }
+
+    // Single streaming pass over completed exams and their responses, then the
+    // responses of exams from archived windows. Responses count only for exams
+    // the score query saw: one completing in between is left whole to its
+    // completion event.
+    private AssessmentAnalytics build(Long assessmentId) {
+        Assessment assessment = assessmentRepository.findById(assessmentId)
+                .orElseThrow(() -> new RuntimeException("Assessment not found"));
+        AssessmentAnalytics analytics = new AssessmentAnalytics(assessmentId, assessment.getQuestionCount());
+        Set<Long> hotExams = new HashSet<>();
+        readOnlyTx.executeWithoutResult(status -> {
+            try (Stream<ExamScoreRow> scores = examRepository
+                    .streamCompletedScoresByAssessmentId(assessmentId)) {
+                scores.forEach(row -> analytics.addScore(row.getExamId(), row.getScore()));
+            }
+            try (Stream<ResponseAnalyticsRow> responses = studentResponseRepository
+                    .streamAnalyticsRowsByAssessmentId(assessmentId)) {
+                responses.forEach(row -> {
+                    hotExams.add(row.getExamId());
+                    if (analytics.containsExam(row.getExamId()))
+                        analytics.addResponse(row);
+                });
+            }
+            responseArchiveService.forEachAnalyticsRow(assessmentId, hotExams, row -> {
+                if (analytics.containsExam(row.getExamId()))
+                    analytics.addResponse(row);
+            });
+        });
+        return analytics;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        analyticsPool.shutdown();
+        updates.shutdownNow();
+    }
+}
@@ -1,13 +1,18 @@
 package com.parakh.backend.service;
 
+import com.parakh.backend.cache.CacheRegion;
+import com.parakh.backend.cache.CacheRegistry;
+import com.parakh.backend.dto.CachedPrincipal;
 import com.parakh.backend.model.User;
 import com.parakh.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import jakarta.annotation.PostConstruct;
 import java.util.Collections;
 
 @Service
@@ -16,6 +21,24 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheRegistry cacheRegistry;
+
+    @Value("${parakh.cache.principals.max-size:10000}")
+    private long principalsMaxSize;
+
+    @Value("${parakh.cache.principals.ttl-ms:300000}")
+    private long principalsTtlMillis;
+
+    // Looked up on every authenticated request
+    private CacheRegion<CachedPrincipal> principals;
+
+    @PostConstruct
+    public void initCache() {
+        principals = cacheRegistry.region("principals", CachedPrincipal.class, principalsMaxSize,
+                principalsTtlMillis, true);
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
@@ -27,6 +50,20 @@ public class UserService implements UserDetailsService {
                 Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole())));
     }
 
+    // For requests that already carry a signed token: no password, and null if
+    // the user no longer exists
+    public UserDetails loadPrincipal(String email) {
+        CachedPrincipal principal = principals.get(email, key -> userRepository.findByEmail(key)
+                .map(user -> new CachedPrincipal(user.getEmail(), user.getRole()))
+                .orElse(null));
+        if (principal == null)
+            return null;
+        return new org.springframework.security.core.userdetails.User(
+                principal.getEmail(),
+                "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole())));
+    }
+
     public java.util.List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -43,15 +80,20 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
         user.setStatus("APPROVED");
         userRepository.save(user);
+        principals.invalidate(user.getEmail());
     }
 
     public void rejectUser(Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new RuntimeException("User not found"));
         user.setStatus("REJECTED");
         userRepository.save(user);
+        principals.invalidate(user.getEmail());
     }
 
     public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+        userRepository.findById(id).ifPresent(user -> {
+            userRepository.delete(user);
+            principals.invalidate(user.getEmail());
+        });
     }
 }
@@ -0,0 +1,169 @@
+package com.parakh.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.dto.ExamStateDTO;
+import com.parakh.backend.model.Question;
+import com.parakh.backend.repository.QuestionRepository;
+import com.parakh.backend.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// Startup pipeline. Loads the in-memory indexes in parallel, then drives the exam
+// hot path (selection, grading, serialization, token checks and a few local HTTP
+// round trips) until the JIT has compiled it. The instance only reports ready
+// afterwards, so a load balancer never sends the first students to a cold JVM.
+@Service
+public class WarmupService {
+
+    private static final String[] OPTIONS = { "A", "B", "C", "D" };
+    private static final String WARMUP_USER = "warmup@parakh.local";
+
+    @Autowired
+    private QuestionRepository questionRepository;
+
+    @Autowired
+    private QuestionIndex questionIndex;
+
+    @Autowired
+    private DuplicateQuestionDetector duplicateQuestionDetector;
+
+    @Autowired
+    private ExamService examService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Value("${parakh.warmup.iterations:1000}")
+    private int iterations;
+
+    @Value("${parakh.warmup.http-requests:100}")
+    private int httpRequests;
+
+    // Training runs for a CDS archive exit once warm, so the archive covers the
+    // classes loaded by the warm-up as well as those loaded at startup
+    @Value("${parakh.warmup.exit-when-ready:false}")
+    private boolean exitWhenReady;
+
+    private volatile String phase = "STARTING";
+    private volatile long timeToReadyMillis = -1;
+    private volatile long loadMillis = -1;
+    private volatile long warmupMillis = -1;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "startup-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isReady() {
+        return "READY".equals(phase);
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("status", isReady() ? "READY" : "WARMING_UP");
+        status.put("phase", phase);
+        status.put("timeToReadyMs", timeToReadyMillis);
+        status.put("loadMs", loadMillis);
+        status.put("warmupMs", warmupMillis);
+        status.put("questionsIndexed", questionIndex.size());
+        return status;
+    }
+
+    private void run() {
+        try {
+            phase = "LOADING";
+            long began = System.currentTimeMillis();
+            List<Question> questions = questionRepository.findAll();
+            CompletableFuture.allOf(
+                    CompletableFuture.runAsync(() -> questionIndex.load(questions)),
+                    CompletableFuture.runAsync(() -> duplicateQuestionDetector.rebuildIndex(questions)))
+                    .join();
+            loadMillis = System.currentTimeMillis() - began;
+
+            phase = "WARMING";
+            began = System.currentTimeMillis();
+            warmExamPath();
+            warmHttpPath();
+            warmupMillis = System.currentTimeMillis() - began;
+        } catch (Exception e) {
+            // A failed warm-up only costs latency; the exam path falls back to the database
+            System.out.println("Startup warm-up failed, serving cold: " + e.getMessage());
+        }
+        timeToReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        phase = "READY";
+        System.out.println("Ready to serve in " + timeToReadyMillis + " ms (index load " + loadMillis
+                + " ms, warm-up " + warmupMillis + " ms)");
+
+        if (exitWhenReady) {
+            System.exit(SpringApplication.exit(context, () -> 0));
+        }
+    }
+
+    // Simulated adaptive exams over the real selection and grading logic, without
+    // touching the database
+    private void warmExamPath() throws Exception {
+        List<String> subjects = new ArrayList<>(questionIndex.getSubjects());
+        if (subjects.isEmpty())
+            return;
+        Random random = new Random(42);
+        String token = jwtUtil.generateToken(WARMUP_USER, "STUDENT");
+        for (int i = 0; i < iterations; i++) {
+            String subject = subjects.get(i % subjects.size());
+            String difficulty = "Medium";
+            Set<Long> answered = new HashSet<>();
+            int score = 0;
+            for (int step = 0; step < 10; step++) {
+                Question next = examService.pickNextQuestion(subject, difficulty, answered);
+                objectMapper.writeValueAsBytes(new ExamStateDTO((long) i, next, next == null, score, answered.size()));
+                if (next == null)
+                    break;
+                String answerKey = questionIndex.getAnswerKey(next.getId());
+                boolean correct = answerKey.equalsIgnoreCase(OPTIONS[random.nextInt(OPTIONS.length)]);
+                if (correct)
+                    score++;
+                difficulty = examService.nextDifficulty(difficulty, correct);
+                answered.add(next.getId());
+            }
+            jwtUtil.validateToken(token, WARMUP_USER);
+        }
+    }
+
+    // Round trips through the connector, security filter chain and message
+    // converters on the unauthenticated health endpoint
+    private void warmHttpPath() throws Exception {
+        String port = environment.getProperty("local.server.port");
+        if (port == null || httpRequests <= 0)
+            return;
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/health")).GET()
+                .build();
+        for (int i = 0; i < httpRequests; i++) {
+            client.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.parakh.backend.storage;
+
+// A single byte range of a Range request, resolved against the file size
+public final class ByteRange {
+
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private final long start;
+    private final long end; // Inclusive
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    // Null when there is no usable Range header, which means the whole file.
+    // Multiple ranges are answered with the whole file too, as RFC 9110 allows.
+    public static ByteRange parse(String header, long size) {
+        if (header == null || !header.startsWith("bytes="))
+            return null;
+        String spec = header.substring(6).trim();
+        if (spec.indexOf(',') >= 0)
+            return null;
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+            return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long length = Long.parseLong(last);
+                if (length <= 0 || size == 0)
+                    return UNSATISFIABLE;
+                return new ByteRange(Math.max(0, size - length), size - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Long.parseLong(last);
+            if (start >= size)
+                return UNSATISFIABLE;
+            if (end < start)
+                return null;
+            return new ByteRange(start, Math.min(end, size - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+}
@@ -0,0 +1,76 @@
+package com.parakh.backend.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+// Writes a slice of a file as the response body. On Tomcat's NIO connector
+// the slice is handed to the connector, which sends it with
+// FileChannel.transferTo (sendfile(2)) once the servlet returns: the bytes go
+// from the page cache to the socket without entering the heap, and many
+// downloads of the same paper read it from disk once. Anywhere else it falls
+// back to transferTo on the servlet output stream.
+@Component
+public class FileSender {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${parakh.storage.sendfile:true}")
+    private boolean sendfile;
+
+    private final LongAdder sendfileResponses = new LongAdder();
+    private final LongAdder sendfileBytes = new LongAdder();
+    private final LongAdder copiedResponses = new LongAdder();
+    private final LongAdder copiedBytes = new LongAdder();
+
+    // Content-Length must already be set to length
+    public void send(Path file, long start, long length, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (sendfile && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            sendfileResponses.increment();
+            sendfileBytes.add(length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+        copiedResponses.increment();
+        copiedBytes.add(length);
+    }
+
+    public long getSendfileResponses() {
+        return sendfileResponses.sum();
+    }
+
+    public long getSendfileBytes() {
+        return sendfileBytes.sum();
+    }
+
+    public long getCopiedResponses() {
+        return copiedResponses.sum();
+    }
+
+    public long getCopiedBytes() {
+        return copiedBytes.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package com.parakh.backend.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bounds the number of requests being worked on. Each caller passes the limit
+// it may use, so lower priority traffic is turned away while there is still
+// headroom for higher priority traffic.
+public class AdmissionControl {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public boolean tryAcquire(int limit) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,60 @@
+package com.parakh.backend.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.*;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+
+// Ed25519 signatures over offline exam bundles, so a client can check with the
+// public key that a cached bundle came from us unchanged.
+@Component
+public class BundleSigner {
+
+    // Base64 PKCS#8 private key and X.509 public key, shared by all instances, e.g.
+    // openssl genpkey -algorithm ed25519 -outform DER | base64 -w0
+    @Value("${parakh.bundle.private-key:}")
+    private String configuredPrivateKey;
+
+    @Value("${parakh.bundle.public-key:}")
+    private String configuredPublicKey;
+
+    private PrivateKey privateKey;
+    private PublicKey publicKey;
+
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        KeyFactory keyFactory = KeyFactory.getInstance("Ed25519");
+        if (configuredPrivateKey.isBlank() || configuredPublicKey.isBlank()) {
+            System.out.println("WARNING: parakh.bundle.private-key/public-key are not set, using a random key pair. "
+                    + "Bundles from other instances will not verify.");
+            KeyPair pair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            privateKey = pair.getPrivate();
+            publicKey = pair.getPublic();
+            return;
+        }
+        privateKey = keyFactory.generatePrivate(
+                new PKCS8EncodedKeySpec(Base64.getDecoder().decode(configuredPrivateKey.trim())));
+        publicKey = keyFactory.generatePublic(
+                new X509EncodedKeySpec(Base64.getDecoder().decode(configuredPublicKey.trim())));
+    }
+
+    public String sign(byte[] data) {
+        try {
+            Signature signature = Signature.getInstance("Ed25519");
+            signature.initSign(privateKey);
+            signature.update(data);
+            return Base64.getEncoder().encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign bundle", e);
+        }
+    }
+
+    // X.509 encoded, base64
+    public String getPublicKey() {
+        return Base64.getEncoder().encodeToString(publicKey.getEncoded());
+    }
+}
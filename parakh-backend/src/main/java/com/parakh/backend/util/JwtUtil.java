@@ -1,9 +1,16 @@
 package com.parakh.backend.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
@@ -15,7 +22,54 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
-    private final Key SECRET_KEY = Keys.secretKeyFor(SignatureAlgorithm.HS256);
+    // Signing keys as comma separated "kid:base64secret" pairs (at least 32 bytes
+    // each). Every listed key is accepted; new tokens are signed with the active
+    // one. To rotate: add the new key, make it active, and drop the old key once
+    // its tokens have expired.
+    @Value("${parakh.jwt.keys:}")
+    private String configuredKeys;
+
+    @Value("${parakh.jwt.active-key-id:}")
+    private String activeKeyId;
+
+    private final Map<String, Key> keys = new HashMap<>();
+    private Key activeKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        for (String entry : configuredKeys.split(",")) {
+            if (entry.isBlank())
+                continue;
+            int separator = entry.indexOf(':');
+            if (separator <= 0)
+                throw new IllegalStateException("parakh.jwt.keys entries must be kid:base64secret");
+            keys.put(entry.substring(0, separator).trim(),
+                    Keys.hmacShaKeyFor(Decoders.BASE64.decode(entry.substring(separator + 1).trim())));
+        }
+
+        if (keys.isEmpty()) {
+            System.out.println("WARNING: parakh.jwt.keys is not set, using a random signing key. "
+                    + "Tokens will not survive a restart or work on other instances.");
+            activeKeyId = "local";
+            keys.put(activeKeyId, Keys.secretKeyFor(SignatureAlgorithm.HS256));
+        } else if (activeKeyId.isBlank() && keys.size() == 1) {
+            activeKeyId = keys.keySet().iterator().next();
+        }
+        activeKey = keys.get(activeKeyId);
+        if (activeKey == null)
+            throw new IllegalStateException("parakh.jwt.active-key-id must name one of parakh.jwt.keys");
+
+        parser = Jwts.parserBuilder().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+            @Override
+            public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                Key key = header.getKeyId() != null ? keys.get(header.getKeyId()) : null;
+                if (key == null)
+                    throw new JwtException("Unknown signing key: " + header.getKeyId());
+                return key;
+            }
+        }).build();
+    }
 
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
@@ -27,7 +81,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder().setSigningKey(SECRET_KEY).build().parseClaimsJws(token).getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(String username, String role) {
@@ -38,11 +92,12 @@ public class JwtUtil {
 
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, activeKeyId)
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60 * 10)) // 10 hours
-                .signWith(SECRET_KEY, SignatureAlgorithm.HS256)
+                .signWith(activeKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -0,0 +1,81 @@
+package com.parakh.backend.util;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+// Seals payloads with AES-GCM under keys derived from one secret and a label,
+// so any instance with the same secret can hand out the key for a label later
+// without having stored anything. Sealed values are base64(iv || ciphertext).
+@Component
+public class PayloadSealer {
+
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+
+    // Base64, at least 32 bytes; instances behind one load balancer need the same
+    @Value("${parakh.sealing.secret:}")
+    private String configuredSecret;
+
+    private final SecureRandom random = new SecureRandom();
+    private SecretKeySpec secret;
+
+    @PostConstruct
+    public void init() {
+        byte[] bytes;
+        if (configuredSecret.isBlank()) {
+            System.out.println("WARNING: parakh.sealing.secret is not set, using a random secret. "
+                    + "Sealed payloads cannot be opened with keys from other instances.");
+            bytes = new byte[32];
+            random.nextBytes(bytes);
+        } else {
+            bytes = Base64.getDecoder().decode(configuredSecret.trim());
+            if (bytes.length < 32)
+                throw new IllegalStateException("parakh.sealing.secret must be at least 32 bytes");
+        }
+        secret = new SecretKeySpec(bytes, "HmacSHA256");
+    }
+
+    // 128-bit AES key for the label
+    public byte[] keyFor(String label) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(secret);
+            return Arrays.copyOf(mac.doFinal(label.getBytes(StandardCharsets.UTF_8)), 16);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not derive key", e);
+        }
+    }
+
+    public String seal(byte[] key, byte[] plaintext) {
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(TAG_BITS, iv));
+            byte[] sealed = Arrays.copyOf(iv, IV_BYTES + plaintext.length + TAG_BITS / 8);
+            cipher.doFinal(plaintext, 0, plaintext.length, sealed, IV_BYTES);
+            return Base64.getEncoder().encodeToString(sealed);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not seal payload", e);
+        }
+    }
+
+    public byte[] open(byte[] key, String sealed) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(sealed);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"),
+                new GCMParameterSpec(TAG_BITS, bytes, 0, IV_BYTES));
+        return cipher.doFinal(bytes, IV_BYTES, bytes.length - IV_BYTES);
+    }
+}
@@ -0,0 +1,39 @@
+package com.parakh.backend.util;
+
+import com.parakh.backend.cache.TinyLfuCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token buckets per key, kept in the equivalent "theoretical arrival time" form
+// (GCRA): each key is one AtomicLong holding the time its bucket would be full
+// again, so taking a token is a single compare-and-set. The key count is
+// bounded; an evicted key simply starts again with a full bucket.
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final TinyLfuCache<String, AtomicLong> buckets;
+
+    public RateLimiter(double permitsPerSecond, int burst, long maximumKeys) {
+        this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+        this.buckets = new TinyLfuCache<>(maximumKeys, 0);
+    }
+
+    // 0 if a token was taken, otherwise the nanoseconds until one is available
+    public long tryAcquire(String key) {
+        AtomicLong arrival = buckets.getIfPresent(key);
+        if (arrival == null)
+            arrival = buckets.putIfAbsent(key, new AtomicLong(System.nanoTime()));
+        while (true) {
+            long now = System.nanoTime();
+            long tat = arrival.get();
+            long wait = tat - toleranceNanos - now;
+            if (wait > 0)
+                return wait;
+            long next = (tat - now > 0 ? tat : now) + intervalNanos;
+            if (arrival.compareAndSet(tat, next))
+                return 0;
+        }
+    }
+}
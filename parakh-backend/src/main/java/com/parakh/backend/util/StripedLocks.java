@@ -0,0 +1,26 @@
+package com.parakh.backend.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fixed pool of locks shared by hashing the key, so per-key mutual exclusion
+// needs no per-key allocation or cleanup
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ReentrantLock get(Object key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & mask];
+    }
+}
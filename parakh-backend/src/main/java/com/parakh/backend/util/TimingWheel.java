@@ -0,0 +1,142 @@
+package com.parakh.backend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Hierarchical hashed timing wheel. Level 0 has one slot per tick; each higher
+// level has slots SLOTS times wider and is cascaded into the level below when
+// that level wraps. Scheduling and cancelling are O(1) and lock-free for callers;
+// only the single thread calling advance() touches the slots.
+public class TimingWheel<K> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_DELTA = (1L << (BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+    private final List<List<ArrayDeque<Entry<K>>>> wheels = new ArrayList<>(LEVELS);
+    private final Queue<Entry<K>> incoming = new ConcurrentLinkedQueue<>();
+    private final Map<K, Entry<K>> scheduled = new ConcurrentHashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int level = 0; level < LEVELS; level++) {
+            List<ArrayDeque<Entry<K>>> slots = new ArrayList<>(SLOTS);
+            for (int i = 0; i < SLOTS; i++) {
+                slots.add(new ArrayDeque<>());
+            }
+            wheels.add(slots);
+        }
+    }
+
+    // Schedules (or reschedules) the key to expire at the given time
+    public void schedule(K key, long deadlineMillis) {
+        Entry<K> entry = new Entry<>(key, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        Entry<K> previous = scheduled.put(key, entry);
+        if (previous != null)
+            previous.cancelled = true;
+        incoming.add(entry);
+    }
+
+    public void cancel(K key) {
+        Entry<K> entry = scheduled.remove(key);
+        if (entry != null)
+            entry.cancelled = true;
+    }
+
+    public boolean isScheduled(K key) {
+        return scheduled.containsKey(key);
+    }
+
+    public int size() {
+        return scheduled.size();
+    }
+
+    // Processes every tick up to now and returns the keys that expired, in batch
+    public List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        drainIncoming(expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(expired);
+            ArrayDeque<Entry<K>> slot = wheels.get(0).get((int) (currentTick & MASK));
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                Entry<K> entry = slot.poll();
+                if (entry.cancelled)
+                    continue;
+                if (entry.deadlineTick <= currentTick) {
+                    expire(entry, expired);
+                } else {
+                    place(entry, expired);
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void cascade(List<K> expired) {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (BITS * level)) - 1)) != 0)
+                return;
+            int index = (int) ((currentTick >>> (BITS * level)) & MASK);
+            ArrayDeque<Entry<K>> slot = wheels.get(level).get(index);
+            ArrayDeque<Entry<K>> moving = new ArrayDeque<>(slot);
+            slot.clear();
+            for (Entry<K> entry : moving) {
+                if (!entry.cancelled)
+                    place(entry, expired);
+            }
+        }
+    }
+
+    private void drainIncoming(List<K> expired) {
+        Entry<K> entry;
+        while ((entry = incoming.poll()) != null) {
+            if (!entry.cancelled)
+                place(entry, expired);
+        }
+    }
+
+    private void place(Entry<K> entry, List<K> expired) {
+        long delta = entry.deadlineTick - currentTick;
+        if (delta <= 0) {
+            expire(entry, expired);
+            return;
+        }
+        // Beyond the top level the entry is parked at the furthest slot and placed
+        // again when it cascades
+        long tick = currentTick + Math.min(delta, MAX_DELTA);
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        wheels.get(level).get((int) ((tick >>> (BITS * level)) & MASK)).add(entry);
+    }
+
+    private void expire(Entry<K> entry, List<K> expired) {
+        if (scheduled.remove(entry.key, entry))
+            expired.add(entry.key);
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        Entry(K key, long deadlineTick) {
+            this.key = key;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.parakh.backend;
+
+import com.parakh.backend.model.Exam;
+import com.parakh.backend.model.Question;
+import com.parakh.backend.model.User;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.repository.StudentResponseRepository;
+import com.parakh.backend.repository.UserRepository;
+import com.parakh.backend.service.QuestionService;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Many concurrent submits to one exam, over HTTP: every answer is graded once
+// and the final score is exact, however the submits interleave
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.ratelimit.ip.per-second=100000",
+        "parakh.ratelimit.ip.burst=100000",
+        "parakh.ratelimit.user.per-second=100000",
+        "parakh.ratelimit.user.burst=100000",
+        "parakh.journal.dir=target/exam-concurrency-test/journal",
+        "parakh.archive.dir=target/exam-concurrency-test/response-archive",
+        "parakh.storage.dir=target/exam-concurrency-test/files" })
+class ExamConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int SUBMITS_PER_THREAD = 10;
+    // Answered questions, below the 10 question limit; one more is in the bank,
+    // so there is always a next question and the exam stays in progress
+    private static final int QUESTIONS = 9;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private QuestionService questionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private StudentResponseRepository studentResponseRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void clearJournal() {
+        // A journal left by an earlier run would be replayed against this fresh database
+        FileSystemUtils.deleteRecursively(Path.of("target/exam-concurrency-test").toFile());
+    }
+
+    @Test
+    void concurrentSubmitsGradeEachAnswerOnce() throws Exception {
+        // The question index is loaded after startup and would replace questions added before
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        // Every submit for a question carries the same option, right for even
+        // questions and wrong for odd ones, so the expected score is fixed
+        List<Long> questionIds = new ArrayList<>();
+        List<String> options = new ArrayList<>();
+        int expectedScore = 0;
+        for (int i = 0; i <= QUESTIONS; i++) {
+            Question question = questionService.saveQuestion(new Question("Concurrency question " + i
+                    + ": which option is first?", "First", "Second", "Third", "Fourth", "A", "Concurrency", "Easy"));
+            if (i == QUESTIONS)
+                break;
+            questionIds.add(question.getId());
+            options.add(i % 2 == 0 ? "A" : "B");
+            if (i % 2 == 0)
+                expectedScore++;
+        }
+
+        User student = userRepository.save(new User("concurrency@student.in", "unused", "Concurrency Student",
+                "STUDENT", "Test School"));
+        String token = jwtUtil.generateToken(student.getEmail(), student.getRole());
+        JsonNode started = post(token, "/api/exam/start",
+                "{\"userId\":" + student.getId() + ",\"subject\":\"Concurrency\"}");
+        long examId = started.get("examId").asLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(pool.submit(() -> {
+                go.await();
+                for (int k = 0; k < SUBMITS_PER_THREAD; k++) {
+                    int q = (thread + k) % QUESTIONS;
+                    HttpResponse<String> response = send(token, "/api/exam/submit",
+                            "{\"examId\":" + examId + ",\"questionId\":" + questionIds.get(q)
+                                    + ",\"selectedOption\":\"" + options.get(q) + "\"}");
+                    if (response.statusCode() != 200) {
+                        failures.incrementAndGet();
+                        System.out.println("Submit failed with " + response.statusCode() + ": " + response.body());
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long began = System.nanoTime();
+        go.countDown();
+        for (Future<?> future : futures) {
+            future.get(120, TimeUnit.SECONDS);
+        }
+        double seconds = (System.nanoTime() - began) / 1e9;
+        pool.shutdown();
+
+        int submits = THREADS * SUBMITS_PER_THREAD;
+        System.out.printf("%d submits from %d threads to one exam in %.2f s: %.0f req/s%n", submits, THREADS,
+                seconds, submits / seconds);
+
+        assertEquals(0, failures.get(), "failed submits");
+        Exam exam = examRepository.findById(examId).orElseThrow();
+        assertEquals("IN_PROGRESS", exam.getStatus());
+        assertEquals(QUESTIONS, studentResponseRepository.findAnsweredQuestionIds(examId).size());
+        assertEquals(expectedScore, exam.getScore());
+    }
+
+    private JsonNode post(String token, String path, String body) throws Exception {
+        HttpResponse<String> response = send(token, path, body);
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpResponse<String> send(String token, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,209 @@
+package com.parakh.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.repository.UserRepository;
+import com.parakh.backend.service.JpaStatistics;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pins the fetch plan of the main endpoints: the statements sent and entities
+// loaded by one request to each, counted by Hibernate statistics, against a
+// budget. Every request is made once before it is measured, so warm caches
+// (principals, question index) are the baseline.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fetchplan",
+        "spring.jpa.show-sql=false",
+        "parakh.jpa.statistics=true",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.journal.dir=target/fetch-plan-test/journal",
+        "parakh.archive.dir=target/fetch-plan-test/response-archive",
+        "parakh.storage.dir=target/fetch-plan-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FetchPlanTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JpaStatistics jpaStatistics;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String admin;
+    private String teacher;
+    private String student;
+    private long studentId;
+    private long classId;
+    private long examId;
+
+    @BeforeAll
+    static void clearJournal() {
+        FileSystemUtils.deleteRecursively(Path.of("target/fetch-plan-test").toFile());
+    }
+
+    // A class of six students with three assessments, one of them started
+    @BeforeAll
+    void seed() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        admin = jwtUtil.generateToken("admin@parakh.gov.in", "ADMIN");
+        teacher = register("teacher@check.in", "Teacher", "TEACHER");
+        student = register("student@check.in", "Student", "STUDENT");
+        studentId = userRepository.findByEmail("student@check.in").orElseThrow().getId();
+        for (int i = 1; i <= 5; i++) {
+            register("other" + i + "@check.in", "Other " + i, "STUDENT");
+        }
+        classId = call(teacher, post("/api/teacher/classes"),
+                "{\"name\":\"8B\",\"subject\":\"Mathematics\",\"description\":\"Check\"}").get("id").asLong();
+        call(teacher, post("/api/teacher/classes/" + classId + "/students/bulk"),
+                "{\"emails\":[\"student@check.in\",\"other1@check.in\",\"other2@check.in\",\"other3@check.in\","
+                        + "\"other4@check.in\",\"other5@check.in\"]}");
+        long assessmentId = 0;
+        for (String title : new String[] { "Algebra", "Geometry", "Fractions" }) {
+            JsonNode assessment = call(teacher, post("/api/teacher/assessments"), "{\"classroomId\":" + classId
+                    + ",\"title\":\"" + title + "\",\"type\":\"TOPIC\",\"durationMinutes\":30,"
+                    + "\"subject\":\"Mathematics\",\"difficulty\":\"Easy\",\"questionCount\":5}");
+            if (assessmentId == 0)
+                assessmentId = assessment.get("id").asLong();
+        }
+        examId = call(student, post("/api/student/assessments/" + assessmentId + "/start"), null)
+                .get("examId").asLong();
+    }
+
+    @Test
+    void studentClasses() throws Exception {
+        assertBudget(1, 0, Set.of(), student, "/api/student/classes");
+    }
+
+    @Test
+    void studentDashboard() throws Exception {
+        assertBudget(1, 0, Set.of("Assessment", "Exam", "Classroom"), student, "/api/student/assessments");
+    }
+
+    @Test
+    void examPaper() throws Exception {
+        assertBudget(1, 2, Set.of("User"), student, "/api/student/exam/" + examId + "/questions");
+    }
+
+    @Test
+    void offlineBundle() throws Exception {
+        assertBudget(1, 3, Set.of(), student, "/api/student/exam/" + examId + "/bundle");
+    }
+
+    @Test
+    void teacherClasses() throws Exception {
+        assertBudget(2, 1, Set.of(), teacher, "/api/teacher/classes");
+    }
+
+    @Test
+    void teacherAssessments() throws Exception {
+        assertBudget(1, 4, Set.of(), teacher, "/api/teacher/assessments");
+    }
+
+    @Test
+    void classRosterPage() throws Exception {
+        assertBudget(2, 0, Set.of(), teacher, "/api/teacher/classes/" + classId + "/students");
+    }
+
+    @Test
+    void teacherAnalytics() throws Exception {
+        assertBudget(1, 0, Set.of("Assessment"), teacher, "/api/teacher/analytics");
+    }
+
+    @Test
+    void adminUsers() throws Exception {
+        assertBudget(1, 8, Set.of(), admin, "/api/admin/users");
+    }
+
+    // Grading loads the exam alone, never its student, assessment or questions
+    @Test
+    void answerSubmit() throws Exception {
+        JsonNode state = call(student, post("/api/exam/start"),
+                "{\"userId\":" + studentId + ",\"subject\":\"Mathematics\"}");
+        String answer = "{\"examId\":" + state.get("examId").asLong() + ",\"questionId\":"
+                + state.get("nextQuestion").get("id").asLong() + ",\"selectedOption\":\"A\"}";
+
+        Map<String, Object> stats = measure(student, post("/api/exam/submit"), answer);
+        assertTrue((Long) stats.get("statements") <= 5, "statements: " + stats);
+        assertEquals(Map.of("Exam", 1L), stats.get("loadsByEntity"));
+    }
+
+    private void assertBudget(long maxStatements, long maxLoads, Set<String> forbidden, String token, String path)
+            throws Exception {
+        call(token, get(path), null);
+        Map<String, Object> stats = measure(token, get(path), null);
+        assertTrue((Long) stats.get("statements") <= maxStatements, "statements: " + stats);
+        assertTrue((Long) stats.get("entityLoads") <= maxLoads, "entity loads: " + stats);
+        @SuppressWarnings("unchecked")
+        Map<String, Long> loads = (Map<String, Long>) stats.get("loadsByEntity");
+        for (String entity : forbidden) {
+            assertFalse(loads.containsKey(entity), entity + " loaded: " + stats);
+        }
+    }
+
+    private Map<String, Object> measure(String token, MockHttpServletRequestBuilder request, String body)
+            throws Exception {
+        jpaStatistics.reset();
+        call(token, request, body);
+        return jpaStatistics.snapshot();
+    }
+
+    private String register(String email, String name, String role) throws Exception {
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"pw\",\"name\":\"" + name + "\",\"role\":\""
+                        + role + "\",\"institution\":\"X\"}"))
+                .andExpect(status().isOk());
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private JsonNode call(String token, MockHttpServletRequestBuilder request, String body) throws Exception {
+        request.header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+        if (body != null)
+            request.content(body);
+        MockHttpServletResponse response = mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse();
+        // The offline bundle is not JSON
+        if (response.getContentType() == null || !response.getContentType().contains("json"))
+            return null;
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
@@ -0,0 +1,300 @@
+package com.parakh.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.repository.UserRepository;
+import com.parakh.backend.service.FileStorageService;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// The file store with a 20 MB question paper: a chunked upload that is cut off
+// and resumed, the same bytes uploaded again, a PDF assessment whose paper
+// students download with ranges and validators, and a scanned answer sheet.
+// MockMvc has no connector, so downloads are copied; one request claims
+// Tomcat's sendfile support to check what is handed to the connector instead.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:files",
+        "spring.jpa.show-sql=false",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.journal.dir=target/file-storage-test/journal",
+        "parakh.archive.dir=target/file-storage-test/segments",
+        "parakh.storage.dir=target/file-storage-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FileStorageTest {
+
+    private static final Path DIR = Path.of("target/file-storage-test");
+    private static final int CHUNK = 8 * 1024 * 1024;
+    private static final int SIZE = 20 * 1024 * 1024;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private FileStorageService fileStorageService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String admin;
+    private String teacher;
+    private String second;
+    private String student;
+    private byte[] paper;
+    private String sha;
+
+    @BeforeAll
+    static void clearFiles() {
+        FileSystemUtils.deleteRecursively(DIR.toFile());
+    }
+
+    @BeforeAll
+    void seed() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        admin = jwtUtil.generateToken("admin@parakh.gov.in", "ADMIN");
+        teacher = register("files@teacher.in", "TEACHER");
+        second = register("second@teacher.in", "TEACHER");
+        student = register("files@student.in", "STUDENT");
+        paper = new byte[SIZE];
+        new Random(20).nextBytes(paper);
+        System.arraycopy("%PDF-1.4\n".getBytes(), 0, paper, 0, 9);
+        sha = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(paper));
+    }
+
+    // One test, as each step builds on the files and exam the last one left
+    @Test
+    void fileStore() throws Exception {
+        String uploadId = startUpload(teacher, "paper.pdf", "application/pdf", SIZE, null).get("uploadId").asText();
+        assertEquals(CHUNK, json(putChunk(teacher, uploadId, 0, paper, CHUNK, 200)).get("offset").asLong(),
+                "first chunk lands");
+
+        // The client drops the second chunk a few megabytes in
+        Long teacherId = userRepository.findByEmail("files@teacher.in").orElseThrow().getId();
+        InputStream cutOff = new FilterInputStream(new ByteArrayInputStream(paper, CHUNK, 3 * 1024 * 1024)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n < 0)
+                    throw new IOException("Connection reset");
+                return n;
+            }
+        };
+        assertThrows(IOException.class, () -> fileStorageService.appendChunk(uploadId, teacherId, CHUNK, cutOff));
+        long offset = call(teacher, get("/api/files/uploads/" + uploadId), null, 200).get("offset").asLong();
+        assertEquals(CHUNK + 3 * 1024 * 1024, offset, "the cut-off chunk's bytes were kept");
+        putChunk(teacher, uploadId, CHUNK, paper, 10, 409);
+
+        JsonNode status = json(putChunk(teacher, uploadId, offset, paper, CHUNK, 200));
+        while (!status.get("complete").asBoolean()) {
+            status = json(putChunk(teacher, uploadId, status.get("offset").asLong(), paper, CHUNK, 200));
+        }
+        assertEquals(sha, status.get("file").get("id").asText(), "resumed upload is stored under its SHA-256");
+
+        status = startUpload(teacher, "copy.pdf", "application/pdf", SIZE, sha);
+        assertTrue(status.get("uploadId").isNull(), "the uploader naming the hash needs no upload");
+        assertEquals(sha, status.get("file").get("id").asText());
+        status = startUpload(second, "copy.pdf", "application/pdf", SIZE, sha);
+        assertTrue(!status.get("uploadId").isNull() && status.get("file").isNull(),
+                "anyone else naming the hash still sends the bytes");
+        assertEquals(sha, json(upload(second, "paper.pdf", "application/pdf", paper, 200)).get("file").get("id")
+                .asText(), "same bytes uploaded again map to the same file");
+        assertEquals(1, countFiles("blobs"), "stored once");
+        assertEquals(0, countFiles("uploads"), "no upload left behind");
+        assertEquals("File is not application/pdf, upload discarded",
+                upload(teacher, "fake.pdf", "application/pdf", "not a pdf".getBytes(), 400).getContentAsString());
+
+        long classId = call(teacher, post("/api/teacher/classes"),
+                "{\"name\":\"8C\",\"subject\":\"Science\",\"description\":\"Files\"}", 200).get("id").asLong();
+        call(teacher, post("/api/teacher/classes/" + classId + "/students/bulk"),
+                "{\"emails\":[\"files@student.in\"]}", 200);
+        String assessment = "{\"classroomId\":" + classId + ",\"title\":\"Paper\",\"type\":\"PDF\","
+                + "\"durationMinutes\":60";
+        assertEquals("pdfFileId must name a PDF you uploaded",
+                perform(teacher, post("/api/teacher/assessments"), assessment + "}", 400).getContentAsString());
+        assertEquals("pdfFileId must name a PDF you uploaded", perform(register("third@teacher.in", "TEACHER"),
+                post("/api/teacher/assessments"), assessment + ",\"pdfFileId\":\"" + sha + "\"}", 400)
+                .getContentAsString(), "a paper the teacher never uploaded");
+        long assessmentId = call(teacher, post("/api/teacher/assessments"),
+                assessment + ",\"pdfFileId\":\"" + sha + "\"}", 200).get("id").asLong();
+        long examId = call(student, post("/api/student/assessments/" + assessmentId + "/start"), null, 200)
+                .get("examId").asLong();
+        String paperUrl = call(student, get("/api/student/exam/" + examId + "/questions"), null, 200)
+                .get("url").asText();
+        assertEquals("/api/files/" + sha, paperUrl, "the exam links the paper");
+
+        MockHttpServletResponse full = download(student, get(paperUrl), 200);
+        assertArrayEquals(paper, full.getContentAsByteArray(), "full download");
+        assertEquals("\"" + sha + "\"", full.getHeader("ETag"), "strong ETag");
+        MockHttpServletResponse range = download(student, get(paperUrl).header("Range", "bytes=1000-1999"), 206);
+        assertEquals("bytes 1000-1999/" + SIZE, range.getHeader("Content-Range"));
+        assertArrayEquals(Arrays.copyOfRange(paper, 1000, 2000), range.getContentAsByteArray(), "byte range");
+        assertArrayEquals(Arrays.copyOfRange(paper, SIZE - 100, SIZE),
+                download(student, get(paperUrl).header("Range", "bytes=-100"), 206).getContentAsByteArray(),
+                "suffix range");
+        assertEquals("bytes */" + SIZE, download(student, get(paperUrl).header("Range", "bytes=" + SIZE + "-"), 416)
+                .getHeader("Content-Range"), "unsatisfiable range");
+        assertEquals(SIZE, download(student, get(paperUrl).header("Range", "bytes=0-9")
+                .header("If-Range", "\"other\""), 200).getContentAsByteArray().length,
+                "If-Range with another ETag gets the whole file");
+        download(student, get(paperUrl).header("If-None-Match", "\"" + sha + "\""), 304);
+        MockHttpServletResponse headers = download(student, head(paperUrl), 200);
+        assertEquals(String.valueOf(SIZE), headers.getHeader("Content-Length"), "HEAD");
+        assertEquals(0, headers.getContentAsByteArray().length, "HEAD has no body");
+        download(register("outsider@student.in", "STUDENT"), get(paperUrl), 404);
+
+        // Where Tomcat can sendfile, the range goes to the connector instead of the body
+        long before = call(admin, get("/api/admin/files/stats"), null, 200).get("sendfileResponses").asLong();
+        MvcResult sent = mockMvc.perform(get(paperUrl).header("Authorization", "Bearer " + student)
+                .header("Range", "bytes=1000-1999").requestAttr("org.apache.tomcat.sendfile.support", true))
+                .andReturn();
+        assertEquals(206, sent.getResponse().getStatus());
+        assertEquals(0, sent.getResponse().getContentAsByteArray().length, "sendfile body left to the connector");
+        assertEquals(fileStorageService.blobPath(sha).toAbsolutePath().toString(),
+                sent.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(1000L, sent.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(2000L, sent.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(before + 1, call(admin, get("/api/admin/files/stats"), null, 200).get("sendfileResponses")
+                .asLong(), "counted as sent through sendfile");
+
+        // The student's scanned answer sheet
+        byte[] sheet = new byte[8 + 256 * 100];
+        System.arraycopy(new byte[] { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' }, 0, sheet, 0, 8);
+        for (int i = 8; i < sheet.length; i++)
+            sheet[i] = (byte) i;
+        String sheetId = json(upload(student, "sheet.png", "image/png", sheet, 200)).get("file").get("id").asText();
+        assertEquals("fileId must name a file you uploaded", perform(student, put("/api/student/exam/" + examId
+                + "/answer-sheet"), "{\"fileId\":\"" + sha + "\"}", 400).getContentAsString(),
+                "someone else's file as an answer sheet");
+        assertEquals("/api/files/" + sheetId, call(student, put("/api/student/exam/" + examId + "/answer-sheet"),
+                "{\"fileId\":\"" + sheetId + "\"}", 200).get("answerSheetUrl").asText(), "answer sheet attached");
+        perform(student, post("/api/student/exam/" + examId + "/submit"), "{\"score\":0}", 200);
+        assertArrayEquals(sheet, download(teacher, get("/api/files/" + sheetId), 200).getContentAsByteArray(),
+                "the teacher reads the answer sheet");
+        download(second, get("/api/files/" + sheetId), 404);
+        String results = download(teacher, get("/api/teacher/assessments/" + assessmentId + "/results"), 200)
+                .getContentAsString();
+        assertTrue(results.contains("Answer Sheet") && results.contains("/api/files/" + sheetId),
+                "answer sheet in the result export");
+    }
+
+    private JsonNode startUpload(String token, String fileName, String contentType, long size, String sha256)
+            throws Exception {
+        return call(token, post("/api/files/uploads"), "{\"fileName\":\"" + fileName + "\",\"contentType\":\""
+                + contentType + "\",\"size\":" + size + (sha256 == null ? "" : ",\"sha256\":\"" + sha256 + "\"")
+                + "}", 200);
+    }
+
+    // Sends the chunks in turn; returns the response to the last
+    private MockHttpServletResponse upload(String token, String fileName, String contentType, byte[] bytes,
+            int expectedStatus) throws Exception {
+        String uploadId = startUpload(token, fileName, contentType, bytes.length, null).get("uploadId").asText();
+        long offset = 0;
+        while (true) {
+            boolean last = offset + CHUNK >= bytes.length;
+            MockHttpServletResponse response = putChunk(token, uploadId, offset, bytes, CHUNK,
+                    last ? expectedStatus : 200);
+            if (last)
+                return response;
+            offset = json(response).get("offset").asLong();
+        }
+    }
+
+    // Sends up to length bytes of the file from offset
+    private MockHttpServletResponse putChunk(String token, String uploadId, long offset, byte[] file, int length,
+            int expectedStatus) throws Exception {
+        int from = (int) offset;
+        byte[] chunk = Arrays.copyOfRange(file, from, Math.min(file.length, from + length));
+        return download(token, put("/api/files/uploads/" + uploadId).param("offset", String.valueOf(offset))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM).content(chunk), expectedStatus);
+    }
+
+    private long countFiles(String dir) throws IOException {
+        Path path = DIR.resolve("files").resolve(dir);
+        if (!Files.exists(path))
+            return 0;
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private String register(String email, String role) throws Exception {
+        perform(null, post("/api/auth/register"), "{\"email\":\"" + email + "\",\"password\":\"pw\",\"name\":\""
+                + email + "\",\"role\":\"" + role + "\",\"institution\":\"X\"}", 200);
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private MockHttpServletResponse download(String token, MockHttpServletRequestBuilder request,
+            int expectedStatus) throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(request.header("Authorization", "Bearer " + token))
+                .andReturn().getResponse();
+        assertEquals(expectedStatus, response.getStatus(), response.getContentAsString());
+        return response;
+    }
+
+    private MockHttpServletResponse perform(String token, MockHttpServletRequestBuilder request, String body,
+            int expectedStatus) throws Exception {
+        if (token != null)
+            request.header("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = mockMvc.perform(request.contentType(MediaType.APPLICATION_JSON)
+                .content(body == null ? "" : body)).andReturn().getResponse();
+        assertEquals(expectedStatus, response.getStatus(), response.getContentAsString());
+        return response;
+    }
+
+    private JsonNode call(String token, MockHttpServletRequestBuilder request, String body, int expectedStatus)
+            throws Exception {
+        return json(perform(token, request, body, expectedStatus));
+    }
+
+    private JsonNode json(MockHttpServletResponse response) throws Exception {
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
@@ -0,0 +1,342 @@
+package com.parakh.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.repository.UserRepository;
+import com.parakh.backend.service.AnswerJournal;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.context.WebApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// What comes back after the server dies mid-exam. This context is the run that
+// crashes; the crash itself is a copy of its journal directory taken under
+// load, then a snapshot of its database, the journal first: an answer the
+// journal has may be missing from the database, as after a real crash, but not
+// the other way round. A second instance is started from that copy, with one
+// more segment written in as a crash would leave it: an answer journaled but
+// never committed, one the database already has, and a torn record at the end.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:journal",
+        "spring.jpa.show-sql=false",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.ratelimit.ip.per-second=100000",
+        "parakh.ratelimit.ip.burst=100000",
+        "parakh.ratelimit.user.per-second=100000",
+        "parakh.ratelimit.user.burst=100000",
+        "parakh.journal.segment-size=1MB",
+        "parakh.journal.dir=target/journal-recovery-test/journal",
+        "parakh.archive.dir=target/journal-recovery-test/segments",
+        "parakh.storage.dir=target/journal-recovery-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class JournalRecoveryTest {
+
+    private static final Path DIR = Path.of("target/journal-recovery-test");
+    private static final String RESTART_URL = "jdbc:h2:mem:journal-restart;DB_CLOSE_DELAY=-1";
+    private static final int EXAMS = 30;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private AnswerJournal answerJournal;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String student;
+    private long studentId;
+    private long assessmentId;
+
+    // Before the context starts, which opens the journal in there
+    static {
+        FileSystemUtils.deleteRecursively(DIR.toFile());
+    }
+
+    @BeforeAll
+    void seed() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        String admin = jwtUtil.generateToken("admin@parakh.gov.in", "ADMIN");
+        String[] difficulties = { "Easy", "Medium", "Hard" };
+        for (int n = 1; n <= 12; n++) {
+            call(mockMvc, admin, post("/api/admin/questions"), "{\"content\":\"Journal question " + n
+                    + ": what is " + n + " times 3?\",\"optionA\":\"" + 3 * n + "\",\"optionB\":\"" + (3 * n + 1)
+                    + "\",\"optionC\":\"" + n + "\",\"optionD\":\"0\",\"correctOption\":\"A\","
+                    + "\"subject\":\"Physics\",\"difficulty\":\"" + difficulties[n % 3] + "\",\"topic\":\"Units\"}",
+                    200);
+        }
+        String teacher = register("journal@teacher.in", "TEACHER");
+        student = register("journal@student.in", "STUDENT");
+        studentId = userRepository.findByEmail("journal@student.in").orElseThrow().getId();
+        long classId = call(mockMvc, teacher, post("/api/teacher/classes"),
+                "{\"name\":\"9A\",\"subject\":\"Physics\",\"description\":\"Journal\"}", 200).get("id").asLong();
+        call(mockMvc, teacher, post("/api/teacher/classes/" + classId + "/students/bulk"),
+                "{\"emails\":[\"journal@student.in\"]}", 200);
+        assessmentId = call(mockMvc, teacher, post("/api/teacher/assessments"), "{\"classroomId\":" + classId
+                + ",\"title\":\"Cycle 1\",\"type\":\"TOPIC\",\"durationMinutes\":30,\"subject\":\"Physics\","
+                + "\"difficulty\":\"Easy\",\"questionCount\":3}", 200).get("id").asLong();
+    }
+
+    // One test, as the restart picks up everything the crashed run left
+    @Test
+    void recoversAfterCrash() throws Exception {
+        // An assessment interrupted one answer in
+        long topicExam = call(mockMvc, student, post("/api/student/assessments/" + assessmentId + "/start"), null,
+                200).get("examId").asLong();
+        long topicQuestion = call(mockMvc, student, get("/api/student/exam/" + topicExam + "/questions"), null, 200)
+                .get(0).get("id").asLong();
+        submit(mockMvc, student, topicExam, topicQuestion, "A");
+
+        // An adaptive exam three answers in
+        JsonNode state = startAdaptive(mockMvc);
+        long exam = state.get("examId").asLong();
+        long lastQuestion = 0;
+        for (int i = 0; i < 3; i++) {
+            lastQuestion = state.get("nextQuestion").get("id").asLong();
+            state = submit(mockMvc, student, exam, lastQuestion, "A");
+        }
+        JsonNode third = submit(mockMvc, student, exam, lastQuestion, "A");
+        long fourthQuestion = state.get("nextQuestion").get("id").asLong();
+        assertEquals(0, answerJournal.getStats().get("pendingAnswers"), "journal has every answer applied");
+
+        Map<Integer, List<Object>> acked = new ConcurrentHashMap<>();
+        Path journal = crashUnderLoad(acked);
+        writeSegment(journal, new long[][] { { exam, fourthQuestion }, { exam, lastQuestion } },
+                new String[] { "A", "D" });
+
+        try (ConfigurableApplicationContext restarted = restart(journal)) {
+            MockMvc mvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) restarted)
+                    .addFilters(restarted.getBean("springSecurityFilterChain", Filter.class)).build();
+            String token = restarted.getBean(JwtUtil.class).generateToken("journal@student.in", "STUDENT");
+            String admin = restarted.getBean(JwtUtil.class).generateToken("admin@parakh.gov.in", "ADMIN");
+
+            JsonNode resumed = call(mvc, token, post("/api/student/assessments/" + assessmentId + "/start"), null,
+                    200);
+            assertEquals(topicExam, resumed.get("examId").asLong(), "interrupted assessment resumes the same exam");
+            assertEquals("Exam resumed", resumed.get("message").asText());
+            assertEquals(1, submit(mvc, token, topicExam, topicQuestion, "B").get("totalQuestionsAnswered").asInt(),
+                    "its answer survived the restart");
+
+            JsonNode stats = call(mvc, admin, get("/api/admin/journal/stats"), null, 200);
+            assertTrue(stats.get("recoveredAtStartup").asInt() >= 2, "journaled answers found at startup");
+            assertEquals(0, stats.get("pendingAnswers").asInt(), "none left pending");
+            assertEquals(1, countSegments(journal), "applied segments deleted");
+
+            JsonNode recovered = submit(mvc, token, exam, fourthQuestion, "C");
+            assertEquals(4, recovered.get("totalQuestionsAnswered").asInt(), "uncommitted answer applied");
+            assertEquals(third.get("currentScore").asInt() + 1, recovered.get("currentScore").asInt(),
+                    "applied with the journaled option, not the retry's");
+            assertEquals(third, submit(mvc, token, exam, lastQuestion, "B"), "committed answer not graded again");
+
+            for (List<Object> answer : acked.values()) {
+                assertEquals(answer.get(2), submit(mvc, token, (Long) answer.get(0), (Long) answer.get(1), "A"),
+                        "acknowledged answer to exam " + answer.get(0) + " changed by the crash");
+            }
+
+            call(mvc, token, post("/api/student/exam/" + topicExam + "/submit"), "{\"score\":1}", 200);
+            assertEquals("Exam already completed", perform(mvc, token,
+                    post("/api/student/assessments/" + assessmentId + "/start"), null, 400).getContentAsString(),
+                    "finished assessment cannot be restarted");
+        }
+    }
+
+    // Runs EXAMS adaptive exams at once and "crashes" once the answers are
+    // flowing. Fills acked with each exam's last acknowledged answer (exam,
+    // question, response) and returns the journal directory the crash left.
+    private Path crashUnderLoad(Map<Integer, List<Object>> acked) throws Exception {
+        long before = (Long) answerJournal.getStats().get("appends");
+        ExecutorService pool = Executors.newFixedThreadPool(EXAMS);
+        Set<Object> crashed = ConcurrentHashMap.newKeySet();
+        for (int e = 0; e < EXAMS; e++) {
+            int n = e;
+            pool.submit(() -> {
+                JsonNode state = startAdaptive(mockMvc);
+                long id = state.get("examId").asLong();
+                while (state.hasNonNull("nextQuestion") && crashed.isEmpty()) {
+                    long question = state.get("nextQuestion").get("id").asLong();
+                    state = submit(mockMvc, student, id, question, "ABCD".substring((int) ((question + n) % 4),
+                            (int) ((question + n) % 4) + 1));
+                    // Acknowledged only if the crash had not happened yet
+                    if (crashed.isEmpty())
+                        acked.put(n, List.of(id, question, state));
+                }
+                return null;
+            });
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        while ((Long) answerJournal.getStats().get("appends") < before + EXAMS * 3
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        crashed.add(true);
+
+        Path journal = DIR.resolve("crashed/journal");
+        Files.createDirectories(journal);
+        try (Stream<Path> files = Files.list(DIR.resolve("journal"))) {
+            for (Path file : files.toList())
+                Files.copy(file, journal.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Path script = DIR.resolve("crashed/database.sql").toAbsolutePath();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            // One point in time across all tables
+            statement.execute("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT");
+            connection.setAutoCommit(false);
+            statement.execute("SCRIPT TO '" + script + "'");
+            connection.rollback();
+            statement.execute("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL READ COMMITTED");
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS), "load did not stop");
+        assertTrue(acked.size() > EXAMS / 2, "only " + acked.size() + " exams answered before the crash");
+
+        try (Connection connection = DriverManager.getConnection(RESTART_URL, "sa", "password");
+                Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM '" + script + "'");
+        }
+        return journal;
+    }
+
+    private ConfigurableApplicationContext restart(Path journal) {
+        // Arguments, as properties() would only set defaults under application.properties
+        return new SpringApplicationBuilder(ParakhBackendApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + RESTART_URL,
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.sql.init.mode=never",
+                "--spring.jpa.show-sql=false",
+                "--parakh.warmup.iterations=10",
+                "--parakh.warmup.http-requests=0",
+                "--parakh.ratelimit.ip.burst=100000",
+                "--parakh.ratelimit.user.burst=100000",
+                "--parakh.journal.segment-size=1MB",
+                "--parakh.journal.dir=" + journal,
+                "--parakh.archive.dir=" + DIR.resolve("crashed/segments"),
+                "--parakh.storage.dir=" + DIR.resolve("crashed/files"));
+    }
+
+    // A segment as a crash leaves it: the answers journaled with no applied
+    // markers, then a record whose checksum does not match
+    private static void writeSegment(Path journal, long[][] answers, String[] options) throws IOException {
+        long number;
+        try (Stream<Path> files = Files.list(journal)) {
+            number = files.map(f -> f.getFileName().toString()).filter(f -> f.startsWith("journal-"))
+                    .mapToLong(f -> Long.parseLong(f.substring(8, 28))).max().orElse(0) + 1;
+        }
+        ByteBuffer segment = ByteBuffer.allocate(8192);
+        segment.putInt(0x50414A31).putInt(1);
+        for (int i = 0; i < answers.length; i++)
+            putAnswer(segment, 1_000_000 + i, answers[i][0], answers[i][1], options[i], false);
+        putAnswer(segment, 2_000_000, answers[0][0], 999_999, "A", true);
+        Files.write(journal.resolve(String.format("journal-%020d.log", number)), segment.array());
+    }
+
+    private static void putAnswer(ByteBuffer segment, long sequence, long examId, long questionId, String option,
+            boolean torn) {
+        byte[] bytes = option.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(34 + bytes.length);
+        payload.putLong(sequence).putLong(examId).putLong(questionId).putLong(0).putShort((short) bytes.length)
+                .put(bytes).flip();
+        CRC32C crc = new CRC32C();
+        crc.update(1);
+        crc.update(payload.duplicate());
+        segment.putInt(1 + payload.remaining()).putInt((int) crc.getValue() ^ (torn ? 1 : 0)).put((byte) 1)
+                .put(payload);
+    }
+
+    private static long countSegments(Path journal) throws IOException {
+        try (Stream<Path> files = Files.list(journal)) {
+            return files.filter(f -> f.getFileName().toString().startsWith("journal-")).count();
+        }
+    }
+
+    private JsonNode startAdaptive(MockMvc mvc) throws Exception {
+        return call(mvc, student, post("/api/exam/start"),
+                "{\"userId\":" + studentId + ",\"subject\":\"Physics\"}", 200);
+    }
+
+    private JsonNode submit(MockMvc mvc, String token, long examId, long questionId, String option)
+            throws Exception {
+        return call(mvc, token, post("/api/exam/submit"), "{\"examId\":" + examId + ",\"questionId\":" + questionId
+                + ",\"selectedOption\":\"" + option + "\"}", 200);
+    }
+
+    private String register(String email, String role) throws Exception {
+        perform(mockMvc, null, post("/api/auth/register"), "{\"email\":\"" + email + "\",\"password\":\"pw\","
+                + "\"name\":\"" + email + "\",\"role\":\"" + role + "\",\"institution\":\"X\"}", 200);
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private static MockHttpServletResponse perform(MockMvc mvc, String token, MockHttpServletRequestBuilder request,
+            String body, int expectedStatus) throws Exception {
+        if (token != null)
+            request.header("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = mvc.perform(request.contentType(MediaType.APPLICATION_JSON)
+                .content(body == null ? "" : body)).andReturn().getResponse();
+        assertEquals(expectedStatus, response.getStatus(), response.getContentAsString());
+        return response;
+    }
+
+    private JsonNode call(MockMvc mvc, String token, MockHttpServletRequestBuilder request, String body,
+            int expectedStatus) throws Exception {
+        MockHttpServletResponse response = perform(mvc, token, request, body, expectedStatus);
+        if (response.getContentType() == null || !response.getContentType().contains("json"))
+            return null;
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
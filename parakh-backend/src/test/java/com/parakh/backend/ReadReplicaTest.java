@@ -0,0 +1,146 @@
+package com.parakh.backend;
+
+import com.parakh.backend.config.ReadReplicaRouter;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// How reads are routed with a replica configured. H2 has no replication, so the
+// "replica" is a second pool on the same database, which is never behind; lag
+// is made by holding a lock on the heartbeat row, which stalls the heartbeat
+// like a stuck replication stream would. Only request threads read from the
+// replica, so its counters are exact; background jobs also read from the
+// primary, so those are checked as lower bounds.
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaTest.URL,
+        "spring.jpa.show-sql=false",
+        "parakh.datasource.replica.url=" + ReadReplicaTest.URL,
+        "parakh.datasource.replica.sticky-ms=" + ReadReplicaTest.STICKY_MS,
+        "parakh.datasource.replica.max-lag-ms=" + ReadReplicaTest.MAX_LAG_MS,
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.journal.dir=target/read-replica-test/journal",
+        "parakh.archive.dir=target/read-replica-test/response-archive",
+        "parakh.storage.dir=target/read-replica-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadReplicaTest {
+
+    static final String URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    static final long STICKY_MS = 1000;
+    static final long MAX_LAG_MS = 1500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadReplicaRouter router;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private String teacher;
+    private String student;
+
+    @BeforeAll
+    static void clearFiles() {
+        FileSystemUtils.deleteRecursively(Path.of("target/read-replica-test").toFile());
+    }
+
+    @BeforeAll
+    void seed() throws Exception {
+        waitUntil(warmupService::isReady, 60_000, "warm-up did not finish");
+        waitUntil(() -> router.getLagMillis() < MAX_LAG_MS, 10_000, "no heartbeat on the replica");
+        teacher = register("replica-teacher@check.in", "TEACHER");
+        student = register("replica-student@check.in", "STUDENT");
+    }
+
+    // One test, as the steps share the router's counters and the user's write history
+    @Test
+    void routesReads() throws Exception {
+        Thread.sleep(STICKY_MS + 500);
+        assertEquals(1, delta("replicaReads", teacher, "/api/teacher/classes"), "class list from the replica");
+
+        // The ETag comes from the primary's counters, so the body must too
+        long replicaBefore = count("replicaReads");
+        assertTrue(delta("primaryReads", student, "/api/student/assessments") >= 1, "dashboard from the primary");
+        assertEquals(replicaBefore, count("replicaReads"), "dashboard read from the replica");
+
+        perform(teacher, post("/api/teacher/classes"),
+                "{\"name\":\"Replica\",\"subject\":\"Science\",\"description\":\"Routing\"}");
+        assertEquals(1, delta("stickyReads", teacher, "/api/teacher/classes"), "own write read from the primary");
+        Thread.sleep(STICKY_MS + 500);
+        assertEquals(1, delta("replicaReads", teacher, "/api/teacher/classes"), "back on the replica after sticky-ms");
+
+        // Hold the heartbeat row; the replica then looks stale
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "password");
+                Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.executeUpdate("UPDATE replica_heartbeat SET beat_at = beat_at WHERE id = 1");
+            waitUntil(() -> router.getLagMillis() > MAX_LAG_MS, 10_000, "replica never fell behind");
+            assertEquals(1, delta("laggingReads", teacher, "/api/teacher/classes"), "primary while lagging");
+            connection.rollback();
+        }
+        waitUntil(() -> router.getLagMillis() < MAX_LAG_MS, 10_000, "replica never caught up");
+        assertEquals(1, delta("replicaReads", teacher, "/api/teacher/classes"), "replica once caught up");
+    }
+
+    // How much one read moved a routing counter
+    private long delta(String counter, String token, String path) throws Exception {
+        long before = count(counter);
+        perform(token, get(path), null);
+        return count(counter) - before;
+    }
+
+    private long count(String counter) {
+        return (Long) router.getStats().get(counter);
+    }
+
+    private String register(String email, String role) throws Exception {
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"pw\",\"name\":\"Replica\",\"role\":\"" + role
+                        + "\",\"institution\":\"X\"}"))
+                .andExpect(status().isOk());
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private void perform(String token, MockHttpServletRequestBuilder request, String body) throws Exception {
+        request.header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+        if (body != null)
+            request.content(body);
+        mockMvc.perform(request).andExpect(status().isOk());
+    }
+
+    private static void waitUntil(BooleanSupplier condition, long timeoutMillis, String message)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(condition.getAsBoolean(), message);
+    }
+}
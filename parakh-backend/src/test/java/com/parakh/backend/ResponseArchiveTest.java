@@ -0,0 +1,167 @@
+package com.parakh.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.repository.ExamRepository;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Archiving a closed assessment window moves its responses out of
+// student_responses without changing what analytics report. Windows are two
+// seconds here, and analytics are never kept in the cache, so each request
+// builds them again: from the table before the run, from the archive after.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive",
+        "spring.jpa.show-sql=false",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.archive.window=2s",
+        "parakh.archive.hot-windows=1",
+        "parakh.cache.analytics.ttl-ms=1",
+        "parakh.journal.dir=target/response-archive-test/journal",
+        "parakh.archive.dir=target/response-archive-test/segments",
+        "parakh.storage.dir=target/response-archive-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ResponseArchiveTest {
+
+    private static final String OPTIONS = "ABCD";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private ExamRepository examRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String admin;
+    private String teacher;
+    private long assessmentId;
+    private long answered;
+
+    @BeforeAll
+    static void clearFiles() {
+        FileSystemUtils.deleteRecursively(Path.of("target/response-archive-test").toFile());
+    }
+
+    // Three students sit a topic assessment in one window
+    @BeforeAll
+    void seed() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        admin = jwtUtil.generateToken("admin@parakh.gov.in", "ADMIN");
+        for (int n = 1; n <= 6; n++) {
+            call(admin, post("/api/admin/questions"), "{\"content\":\"Archive question " + n + ": what is " + n
+                    + " + " + n + "?\",\"optionA\":\"" + 2 * n + "\",\"optionB\":\"" + (2 * n + 1)
+                    + "\",\"optionC\":\"" + n + "\",\"optionD\":\"0\",\"correctOption\":\"A\","
+                    + "\"subject\":\"Mathematics\",\"difficulty\":\"Easy\",\"topic\":\""
+                    + (n % 2 == 0 ? "Algebra" : "Geometry") + "\"}");
+        }
+        teacher = register("archive@teacher.in", "TEACHER");
+        long classId = call(teacher, post("/api/teacher/classes"),
+                "{\"name\":\"9A\",\"subject\":\"Mathematics\",\"description\":\"Archive\"}").get("id").asLong();
+        String[] students = new String[3];
+        for (int i = 1; i <= 3; i++) {
+            students[i - 1] = register("archive" + i + "@student.in", "STUDENT");
+        }
+        call(teacher, post("/api/teacher/classes/" + classId + "/students/bulk"),
+                "{\"emails\":[\"archive1@student.in\",\"archive2@student.in\",\"archive3@student.in\"]}");
+        assessmentId = call(teacher, post("/api/teacher/assessments"), "{\"classroomId\":" + classId
+                + ",\"title\":\"Cycle 1\",\"type\":\"TOPIC\",\"durationMinutes\":30,\"subject\":\"Mathematics\","
+                + "\"difficulty\":\"Easy\",\"questionCount\":5}").get("id").asLong();
+
+        for (int i = 1; i <= 3; i++) {
+            String student = students[i - 1];
+            long examId = call(student, post("/api/student/assessments/" + assessmentId + "/start"), null)
+                    .get("examId").asLong();
+            for (JsonNode question : call(student, get("/api/student/exam/" + examId + "/questions"), null)) {
+                long questionId = question.get("id").asLong();
+                char option = OPTIONS.charAt((int) ((questionId + i) % 4));
+                call(student, post("/api/exam/submit"), "{\"examId\":" + examId + ",\"questionId\":" + questionId
+                        + ",\"selectedOption\":\"" + option + "\"}");
+                answered++;
+            }
+            call(student, post("/api/student/exam/" + examId + "/submit"), "{\"score\":3}");
+        }
+    }
+
+    @Test
+    void archiveRoundTrip() throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!examRepository.findUnaggregatedIds(PageRequest.of(0, 1)).isEmpty()
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        JsonNode analytics = call(teacher, get("/api/teacher/assessments/" + assessmentId + "/analytics"), null);
+        JsonNode incremental = call(admin, get("/api/admin/aggregates/topic"), null);
+        call(admin, post("/api/admin/aggregates/rebuild"), null);
+        JsonNode topics = call(admin, get("/api/admin/aggregates/topic"), null);
+        assertEquals(incremental, topics, "rebuild differs from the incremental topic aggregates");
+        assertEquals(answered, call(admin, get("/api/admin/archive"), null).get("hotResponses").asLong());
+
+        // The next window closes this one
+        Thread.sleep(2_100);
+        JsonNode run = call(admin, post("/api/admin/archive/run"), null);
+        assertEquals(answered, run.get("archivedNow").asLong(), "archived now");
+        assertEquals(0, run.get("hotResponses").asLong(), "left in student_responses");
+        assertEquals(0, call(admin, post("/api/admin/archive/run"), null).get("archivedNow").asLong(),
+                "second run");
+
+        assertEquals(analytics, call(teacher, get("/api/teacher/assessments/" + assessmentId + "/analytics"), null),
+                "analytics read from the archive");
+        call(admin, post("/api/admin/aggregates/rebuild"), null);
+        assertEquals(topics, call(admin, get("/api/admin/aggregates/topic"), null),
+                "topic aggregates rebuilt from the archive");
+    }
+
+    private String register(String email, String role) throws Exception {
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"pw\",\"name\":\"" + email + "\",\"role\":\""
+                        + role + "\",\"institution\":\"X\"}"))
+                .andExpect(status().isOk());
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private JsonNode call(String token, MockHttpServletRequestBuilder request, String body) throws Exception {
+        request.header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+        if (body != null)
+            request.content(body);
+        MockHttpServletResponse response = mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse();
+        if (response.getContentType() == null || !response.getContentType().contains("json"))
+            return null;
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
@@ -0,0 +1,393 @@
+package com.parakh.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parakh.backend.export.SheetFormat;
+import com.parakh.backend.export.SheetWriter;
+import com.parakh.backend.service.ResultExportService;
+import com.parakh.backend.service.WarmupService;
+import com.parakh.backend.util.JwtUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.util.FileSystemUtils;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// The per-assessment result sheet: cells, quoting, XLSX against CSV, access,
+// archived windows, and memory. The last exports 100,000 students written
+// straight into the database and measures the heap still in use (after a GC)
+// once the first bytes are out: a streaming export holds one row there, one
+// that builds the sheet first holds all of them.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:export",
+        "spring.jpa.show-sql=false",
+        "parakh.warmup.iterations=10",
+        "parakh.warmup.http-requests=0",
+        "parakh.archive.window=2s",
+        "parakh.archive.hot-windows=1",
+        "parakh.journal.dir=target/result-export-test/journal",
+        "parakh.archive.dir=target/result-export-test/segments",
+        "parakh.storage.dir=target/result-export-test/files" })
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ResultExportTest {
+
+    private static final Path DIR = Path.of("target/result-export-test");
+    private static final int BULK_STUDENTS = 100_000;
+    // The rows held at once would take about 100 MB: 16 cells of some 60 bytes
+    // each, BULK_STUDENTS times. The contexts of other test classes share this
+    // heap and have moved readings by over 30 MB, hence the margin.
+    private static final long MAX_RETAINED_BYTES = 64L * 1024 * 1024;
+    private static final int SAMPLES = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Autowired
+    private ResultExportService resultExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String admin;
+    private String teacher;
+    private long classId;
+    private long assessmentId;
+    // "examId questionId option" for every answer given
+    private final Set<List<String>> answers = new HashSet<>();
+
+    @BeforeAll
+    static void clearFiles() {
+        FileSystemUtils.deleteRecursively(DIR.toFile());
+    }
+
+    // Three students, with awkward names, sit a topic assessment
+    @BeforeAll
+    void seed() throws Exception {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!warmupService.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(warmupService.isReady(), "warm-up did not finish");
+
+        admin = jwtUtil.generateToken("admin@parakh.gov.in", "ADMIN");
+        for (int n = 1; n <= 6; n++) {
+            call(admin, post("/api/admin/questions"), "{\"content\":\"Export question " + n + ": what is " + n
+                    + " + " + n + "?\",\"optionA\":\"" + 2 * n + "\",\"optionB\":\"" + (2 * n + 1)
+                    + "\",\"optionC\":\"" + n + "\",\"optionD\":\"0\",\"correctOption\":\"A\","
+                    + "\"subject\":\"Mathematics\",\"difficulty\":\"Easy\",\"topic\":\"Algebra\"}");
+        }
+        teacher = register("export@teacher.in", "Teacher", "TEACHER");
+        classId = call(teacher, post("/api/teacher/classes"),
+                "{\"name\":\"10B\",\"subject\":\"Mathematics\",\"description\":\"Export\"}").get("id").asLong();
+        String[] students = { register("export1@student.in", "Asha, Rao", "STUDENT"),
+                register("export2@student.in", "=SUM(A1:A9)", "STUDENT"),
+                register("export3@student.in", "Student <3>", "STUDENT") };
+        call(teacher, post("/api/teacher/classes/" + classId + "/students/bulk"),
+                "{\"emails\":[\"export1@student.in\",\"export2@student.in\",\"export3@student.in\"]}");
+        assessmentId = createAssessment("Board cycle");
+
+        for (int i = 1; i <= 3; i++) {
+            String student = students[i - 1];
+            long examId = call(student, post("/api/student/assessments/" + assessmentId + "/start"), null)
+                    .get("examId").asLong();
+            for (JsonNode question : call(student, get("/api/student/exam/" + examId + "/questions"), null)) {
+                long questionId = question.get("id").asLong();
+                String option = String.valueOf("ABCD".charAt((int) ((questionId + i) % 4)));
+                call(student, post("/api/exam/submit"), "{\"examId\":" + examId + ",\"questionId\":" + questionId
+                        + ",\"selectedOption\":\"" + option + "\"}");
+                answers.add(List.of(String.valueOf(examId), String.valueOf(questionId), option));
+            }
+            call(student, post("/api/student/exam/" + examId + "/submit"), "{\"score\":3}");
+        }
+    }
+
+    @Test
+    void resultSheet() throws Exception {
+        String results = "/api/teacher/assessments/" + assessmentId + "/results";
+        byte[] csv = download(teacher, results, 200);
+        List<List<String>> rows = parseCsv(new String(csv, StandardCharsets.UTF_8));
+        assertEquals(4, rows.size(), "header and one row per student");
+
+        List<String> header = rows.get(0);
+        Set<List<String>> cells = new HashSet<>();
+        for (List<String> row : rows.subList(1, rows.size())) {
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Q") && !row.get(i).isEmpty())
+                    cells.add(List.of(row.get(0), header.get(i).substring(1), row.get(i)));
+            }
+            assertEquals("5", row.get(header.indexOf("Answered")));
+        }
+        assertEquals(answers, cells, "cells hold the chosen options");
+
+        String text = new String(csv, StandardCharsets.UTF_8);
+        assertTrue(text.contains("\"Asha, Rao\""), "names with commas are quoted");
+        assertTrue(text.contains("\"'=SUM(A1:A9)\""), "formulas are defused");
+
+        List<List<String>> unguarded = new ArrayList<>();
+        for (List<String> row : rows) {
+            unguarded.add(row.stream().map(c -> c.matches("'[=+\\-@].*") ? c.substring(1) : c).toList());
+        }
+        assertEquals(unguarded, xlsxRows(download(teacher, results + "?format=xlsx", 200)), "XLSX cells");
+
+        String other = register("other@teacher.in", "Other", "TEACHER");
+        download(other, results, 404);
+        download(teacher, results + "?format=pdf", 400);
+
+        // The next window closes this one
+        Thread.sleep(2_100);
+        assertEquals(0, call(admin, post("/api/admin/archive/run"), null).get("hotResponses").asLong(),
+                "responses left in the table");
+        assertArrayEquals(csv, download(admin, "/api/admin/assessments/" + assessmentId + "/results", 200),
+                "sheet once archived");
+    }
+
+    @Test
+    void bulkExportStreams() throws Exception {
+        long bulkId = createAssessment("State census");
+        jdbcTemplate.update("INSERT INTO users (email, password, name, role, status, institution) "
+                + "SELECT 'bulk' || X || '@student.in', 'x', 'Bulk Student ' || X, 'STUDENT', 'APPROVED', 'X' "
+                + "FROM SYSTEM_RANGE(1, ?)", BULK_STUDENTS);
+        jdbcTemplate.update("INSERT INTO exams (user_id, assessment_id, subject, start_time, end_time, status, score, "
+                + "current_difficulty, aggregated, version) "
+                + "SELECT id, ?, 'Mathematics', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 'COMPLETED', MOD(id, 6), "
+                + "'Easy', TRUE, 0 FROM users WHERE email LIKE 'bulk%'", bulkId);
+        jdbcTemplate.update("INSERT INTO student_responses (exam_id, question_id, selected_option, is_correct, "
+                + "time_taken_seconds) "
+                + "SELECT e.id, q.id, CASEWHEN(MOD(e.id + q.id, 2) = 0, 'A', 'B'), MOD(e.id + q.id, 2) = 0, 10 "
+                + "FROM exams e CROSS JOIN (SELECT id FROM questions WHERE subject = 'Mathematics' "
+                + "AND difficulty = 'Easy' ORDER BY id LIMIT 5) q WHERE e.assessment_id = ?", bulkId);
+
+        Path csv = DIR.resolve("bulk.csv");
+        assertRetainedBelow(MAX_RETAINED_BYTES, exportMeasured(bulkId, SheetFormat.CSV, csv), "CSV");
+        long rows = 0;
+        long answered = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            List<String> header = parseCsv(reader.readLine()).get(0);
+            int at = header.indexOf("Answered");
+            for (String line; (line = reader.readLine()) != null;) {
+                rows++;
+                answered += Long.parseLong(line.split(",")[at]);
+            }
+        }
+        assertEquals(BULK_STUDENTS, rows, "CSV rows");
+        assertEquals(BULK_STUDENTS * 5L, answered, "CSV responses");
+
+        Path xlsx = DIR.resolve("bulk.xlsx");
+        assertRetainedBelow(MAX_RETAINED_BYTES, exportMeasured(bulkId, SheetFormat.XLSX, xlsx), "XLSX");
+        assertEquals(BULK_STUDENTS + 1, countXlsxRows(xlsx), "XLSX rows");
+    }
+
+    // Exports to the file; returns the heap in use beyond what it was before,
+    // the least of SAMPLES readings taken 256 KB of output apart, so that
+    // something another context allocated meanwhile is not put on the export
+    private long exportMeasured(long assessmentId, SheetFormat format, Path file) throws Exception {
+        Files.createDirectories(file.getParent());
+        long before = usedHeap();
+        long[] retained = { Long.MAX_VALUE };
+        int[] samples = new int[1];
+        try (OutputStream out = new FilterOutputStream(new BufferedOutputStream(Files.newOutputStream(file))) {
+            long written;
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                count(len);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                count(1);
+            }
+
+            private void count(int n) {
+                written += n;
+                if (samples[0] < SAMPLES && written >= (samples[0] + 1) * 256L * 1024) {
+                    samples[0]++;
+                    retained[0] = Math.min(retained[0], usedHeap() - before);
+                }
+            }
+        }; SheetWriter sheet = format.open(out, "Results")) {
+            resultExportService.export(assessmentId, sheet);
+            sheet.finish();
+        }
+        assertEquals(SAMPLES, samples[0], format + " export was too small to measure");
+        return retained[0];
+    }
+
+    private static void assertRetainedBelow(long max, long retained, String what) {
+        assertTrue(retained < max, what + " export held " + retained / (1024 * 1024) + " MB");
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private long createAssessment(String title) throws Exception {
+        return call(teacher, post("/api/teacher/assessments"), "{\"classroomId\":" + classId + ",\"title\":\""
+                + title + "\",\"type\":\"TOPIC\",\"durationMinutes\":30,\"subject\":\"Mathematics\","
+                + "\"difficulty\":\"Easy\",\"questionCount\":5}").get("id").asLong();
+    }
+
+    // RFC 4180, as the export writes it, byte order mark included
+    private static List<List<String>> parseCsv(String text) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        int i = text.startsWith("﻿") ? 1 : 0;
+        for (; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    cell.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(cell.toString());
+                cell.setLength(0);
+            } else if (c == '\n') {
+                row.add(cell.toString());
+                cell.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else if (c != '\r') {
+                cell.append(c);
+            }
+        }
+        if (cell.length() > 0 || !row.isEmpty()) {
+            row.add(cell.toString());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    // Cell text of every row in the first sheet, gaps filled with ""
+    private static List<List<String>> xlsxRows(byte[] xlsx) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        try (InputStream sheet = sheetXml(new ByteArrayInputStream(xlsx))) {
+            NodeList rowNodes = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(sheet)
+                    .getElementsByTagName("row");
+            for (int r = 0; r < rowNodes.getLength(); r++) {
+                NodeList cellNodes = ((Element) rowNodes.item(r)).getElementsByTagName("c");
+                List<String> row = new ArrayList<>();
+                for (int c = 0; c < cellNodes.getLength(); c++) {
+                    Element cell = (Element) cellNodes.item(c);
+                    int column = columnIndex(cell.getAttribute("r"));
+                    while (row.size() < column)
+                        row.add("");
+                    row.add(cell.getTextContent());
+                }
+                rows.add(row);
+            }
+        }
+        // The CSV writes empty trailing cells too
+        int width = rows.get(0).size();
+        for (List<String> row : rows) {
+            while (row.size() < width)
+                row.add("");
+        }
+        return rows;
+    }
+
+    private static long countXlsxRows(Path xlsx) throws Exception {
+        long rows = 0;
+        try (InputStream sheet = sheetXml(Files.newInputStream(xlsx))) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(sheet);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("row"))
+                    rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static InputStream sheetXml(InputStream xlsx) throws IOException {
+        ZipInputStream zip = new ZipInputStream(xlsx);
+        for (ZipEntry entry; (entry = zip.getNextEntry()) != null;) {
+            if (entry.getName().equals("xl/worksheets/sheet1.xml"))
+                return zip;
+        }
+        throw new FileNotFoundException("xl/worksheets/sheet1.xml");
+    }
+
+    private static int columnIndex(String ref) {
+        int n = 0;
+        for (char c : ref.toCharArray()) {
+            if (!Character.isLetter(c))
+                break;
+            n = n * 26 + c - 'A' + 1;
+        }
+        return n - 1;
+    }
+
+    private byte[] download(String token, String path, int expectedStatus) throws Exception {
+        return mockMvc.perform(get(path).header("Authorization", "Bearer " + token))
+                .andExpect(status().is(expectedStatus)).andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private String register(String email, String name, String role) throws Exception {
+        mockMvc.perform(post("/api/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("email", email, "password", "pw", "name", name,
+                        "role", role, "institution", "X"))))
+                .andExpect(status().isOk());
+        return jwtUtil.generateToken(email, role);
+    }
+
+    private JsonNode call(String token, MockHttpServletRequestBuilder request, String body) throws Exception {
+        request.header("Authorization", "Bearer " + token).contentType(MediaType.APPLICATION_JSON);
+        if (body != null)
+            request.content(body);
+        MockHttpServletResponse response = mockMvc.perform(request).andExpect(status().isOk())
+                .andReturn().getResponse();
+        if (response.getContentType() == null || !response.getContentType().contains("json"))
+            return null;
+        return objectMapper.readTree(response.getContentAsString());
+    }
+}
@@ -0,0 +1,66 @@
+#!/bin/bash
+# Startup benchmark: time to first request, time to ready (after warm-up) and
+# resident memory for the plain JVM jar, the AOT+CDS build and the native image.
+#
+#   mvn -Paot-cds -DskipTests package           # jar, target/app and app.jsa
+#   mvn -Pnative -DskipTests native:compile     # optional, needs GraalVM
+#   ./startup-benchmark.sh [rounds]
+#
+# Variants whose artifacts are missing are skipped.
+
+cd "$(dirname "$0")"
+ROUNDS=${1:-3}
+PORT=${BENCH_PORT:-18081}
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+JAR=target/parakh-backend-0.0.1-SNAPSHOT.jar
+APP_JAR=target/app/parakh-backend-0.0.1-SNAPSHOT.jar
+ARGS="--server.port=$PORT --spring.jpa.show-sql=false"
+
+now_ms() {
+    date +%s%3N
+}
+
+wait_for() {
+    until [ "$(curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT$1")" = "200" ]; do
+        kill -0 "$2" 2>/dev/null || return 1
+        sleep 0.01
+    done
+}
+
+run_variant() {
+    local name=$1
+    shift
+    local first_total=0 ready_total=0 rss_total=0
+    for round in $(seq 1 "$ROUNDS"); do
+        local start pid first ready rss
+        start=$(now_ms)
+        "$@" $ARGS > "target/bench-$name.log" 2>&1 &
+        pid=$!
+        if ! wait_for /api/health $pid; then
+            echo "$name: failed to start, see target/bench-$name.log"
+            return
+        fi
+        first=$(( $(now_ms) - start ))
+        wait_for /api/health/ready $pid
+        ready=$(( $(now_ms) - start ))
+        rss=$(awk '/VmRSS/ { print int($2 / 1024) }' /proc/$pid/status)
+        kill $pid
+        wait $pid 2>/dev/null
+        printf '%-8s round %d: first request %6d ms, ready %6d ms, RSS %5d MB\n' "$name" "$round" "$first" "$ready" "$rss"
+        first_total=$((first_total + first))
+        ready_total=$((ready_total + ready))
+        rss_total=$((rss_total + rss))
+    done
+    printf '%-8s average: first request %6d ms, ready %6d ms, RSS %5d MB\n\n' "$name" \
+        $((first_total / ROUNDS)) $((ready_total / ROUNDS)) $((rss_total / ROUNDS))
+}
+
+if [ -f "$JAR" ]; then
+    run_variant jvm "$JAVA" -jar "$JAR"
+fi
+if [ -f target/app/app.jsa ]; then
+    run_variant aot-cds "$JAVA" -XX:SharedArchiveFile=target/app/app.jsa -Dspring.aot.enabled=true -jar "$APP_JAR"
+fi
+if [ -x target/parakh-backend ]; then
+    run_variant native target/parakh-backend
+fi
@@ -0,0 +1,47 @@
+const API_URL = 'http://localhost:8081/api/files';
+
+// The server takes at most 8MB per chunk
+const CHUNK_SIZE = 8 * 1024 * 1024;
+
+const readError = async (response, fallback) => {
+  const text = await response.text();
+  return text || fallback;
+};
+
+// Sends a file to the store in chunks and resolves to its stored id. A chunk the
+// server refuses because of the offset is retried from where the server stands.
+export const uploadFile = async (file, token, contentType = file.type) => {
+  const headers = { 'Authorization': `Bearer ${token}` };
+
+  const start = await fetch(`${API_URL}/uploads`, {
+    method: 'POST',
+    headers: { ...headers, 'Content-Type': 'application/json' },
+    body: JSON.stringify({ fileName: file.name, contentType, size: file.size }),
+  });
+  if (!start.ok) {
+    throw new Error(await readError(start, 'Could not start the upload'));
+  }
+  let status = await start.json();
+
+  while (!status.file) {
+    const offset = status.offset;
+    const response = await fetch(`${API_URL}/uploads/${status.uploadId}?offset=${offset}`, {
+      method: 'PUT',
+      headers: { ...headers, 'Content-Type': 'application/octet-stream' },
+      body: file.slice(offset, offset + CHUNK_SIZE),
+    });
+    if (response.status === 409) {
+      const current = await fetch(`${API_URL}/uploads/${status.uploadId}`, { headers });
+      if (!current.ok) {
+        throw new Error(await readError(current, 'Upload was lost'));
+      }
+      status = await current.json();
+      continue;
+    }
+    if (!response.ok) {
+      throw new Error(await readError(response, 'Upload failed'));
+    }
+    status = await response.json();
+  }
+  return status.file.id;
+};
@@ -6,6 +6,7 @@ const Exam = () => {
   const [loading, setLoading] = useState(true);
   const [selectedOption, setSelectedOption] = useState(null);
   const [submitting, setSubmitting] = useState(false);
+  const [pending, setPending] = useState(false); // Answer saved, not graded yet
   const [userId] = useState(1); // Mock User ID for MVP
   const [subject] = useState("Science"); // Mock Subject for MVP
 
@@ -48,10 +49,14 @@ const Exam = () => {
         }),
       });
 
-      if (response.ok) {
+      if (response.status === 202) {
+        // Saved on the server but not graded yet; submitting again fetches the result
+        setPending(true);
+      } else if (response.ok) {
         const data = await response.json();
         setExamState(data);
         setSelectedOption(null); // Reset selection
+        setPending(false);
       }
     } catch (error) {
       console.error('Error submitting answer:', error);
@@ -174,6 +179,11 @@ const Exam = () => {
       </div>
 
       {/* Navigation */}
+      {pending && (
+        <p className="text-sm text-surface-600 mb-4 text-right">
+          Your answer is saved and will be graded shortly. Submit again to continue.
+        </p>
+      )}
       <div className="flex justify-end items-center">
         <Button
           onClick={handleSubmitAnswer}
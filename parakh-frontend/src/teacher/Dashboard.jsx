@@ -1,6 +1,7 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import { useAuth } from '../context/AuthContext';
 import { useNavigate } from 'react-router-dom';
+import { uploadFile } from '../services/fileService';
 
 // --- Modals (Government Style) ---
 
@@ -62,14 +63,25 @@ const CreateAssessmentModal = ({ isOpen, onClose, onSave, classes }) => {
   const [step, setStep] = useState(1);
   const [formData, setFormData] = useState({
     title: '', classroomId: '', durationMinutes: 60, type: 'TOPIC',
-    subject: 'Science', topic: '', difficulty: 'Medium', questionCount: 10,
-    pdfUrl: ''
+    subject: 'Science', topic: '', difficulty: 'Medium', questionCount: 10
   });
+  const [pdfFile, setPdfFile] = useState(null);
+  const [saving, setSaving] = useState(false);
+  const [error, setError] = useState('');
+  const fileInput = useRef(null);
 
   if (!isOpen) return null;
 
-  const handleSubmit = () => {
-    onSave(formData);
+  const handleSubmit = async () => {
+    setSaving(true);
+    setError('');
+    try {
+      await onSave(formData, pdfFile);
+    } catch (e) {
+      setError(e.message);
+    } finally {
+      setSaving(false);
+    }
   };
 
   return (
@@ -143,13 +155,17 @@ const CreateAssessmentModal = ({ isOpen, onClose, onSave, classes }) => {
                 <svg className="w-12 h-12 text-surface-400 mb-2" fill="none" stroke="currentColor" viewBox="0 0 24 24"><path strokeLinecap="round" strokeLinejoin="round" strokeWidth="2" d="M7 16a4 4 0 01-.88-7.903A5 5 0 1115.9 6L16 6a5 5 0 011 9.9M15 13l-3-3m0 0l-3 3m3-3v12"></path></svg>
                 <p className="text-surface-700 font-medium">Upload Question Paper (PDF)</p>
                 <p className="text-xs text-surface-500">Official document format required</p>
-                <button className="mt-2 px-4 py-2 bg-surface-200 hover:bg-surface-300 text-surface-800 text-xs font-bold uppercase">Choose File</button>
+                <input ref={fileInput} type="file" accept="application/pdf" className="hidden" onChange={e => setPdfFile(e.target.files[0] || null)} />
+                <button onClick={() => fileInput.current.click()} className="mt-2 px-4 py-2 bg-surface-200 hover:bg-surface-300 text-surface-800 text-xs font-bold uppercase">Choose File</button>
+                {pdfFile && <p className="text-xs text-surface-700">{pdfFile.name}</p>}
               </div>
             )}
 
+            {error && <p className="text-xs text-red-700 font-bold">{error}</p>}
+
             <div className="flex justify-end mt-6 pt-4 border-t border-surface-200">
               <button onClick={() => setStep(1)} className="px-4 py-2 border border-surface-300 text-surface-700 bg-surface-50 hover:bg-surface-100 text-sm font-bold uppercase mr-3">Back</button>
-              <button onClick={handleSubmit} className="px-4 py-2 bg-primary-700 text-white hover:bg-primary-800 text-sm font-bold uppercase">Create Assessment</button>
+              <button onClick={handleSubmit} disabled={saving || (formData.type === 'PDF' && !pdfFile)} className="px-4 py-2 bg-primary-700 text-white hover:bg-primary-800 disabled:bg-surface-300 text-sm font-bold uppercase">{saving ? 'Saving...' : 'Create Assessment'}</button>
             </div>
           </div>
         )}
@@ -225,12 +241,20 @@ const TeacherDashboard = () => {
     setIsStudentModalOpen(false);
   };
 
-  const handleCreateAssessment = async (data) => {
-    await fetch('http://localhost:8081/api/teacher/assessments', {
+  // PDF papers go to the file store first; the assessment names the stored file
+  const handleCreateAssessment = async (data, pdfFile) => {
+    const payload = { ...data };
+    if (data.type === 'PDF') {
+      payload.pdfFileId = await uploadFile(pdfFile, user?.token, 'application/pdf');
+    }
+    const res = await fetch('http://localhost:8081/api/teacher/assessments', {
       method: 'POST',
       headers: { 'Authorization': `Bearer ${user?.token}`, 'Content-Type': 'application/json' },
-      body: JSON.stringify(data)
+      body: JSON.stringify(payload)
     });
+    if (!res.ok) {
+      throw new Error(await res.text() || 'Could not create the assessment');
+    }
     setIsAssessmentModalOpen(false);
     fetchData();
   };
@@ -289,7 +313,7 @@ const TeacherDashboard = () => {
                           </div>
                           <p className="text-surface-600 text-sm mb-4 min-h-[40px]">{c.description || 'No description provided.'}</p>
                           <div className="bg-surface-50 p-3 flex justify-between items-center border border-surface-100">
-                            <span className="text-xs font-bold text-surface-600 uppercase">{c.students ? c.students.length : 0} Enrolled</span>
+                            <span className="text-xs font-bold text-surface-600 uppercase">{c.studentCount ?? 0} Enrolled</span>
                             <button onClick={() => openAddStudent(c.id)} className="text-xs text-primary-700 hover:text-primary-900 font-bold uppercase">+ Add Student</button>
                           </div>
                         </div>